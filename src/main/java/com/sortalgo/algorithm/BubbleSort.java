@@ -1,5 +1,7 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
 
 /**
@@ -16,6 +18,7 @@ public class BubbleSort implements SortingAlgorithm {
     private int swaps;
     private long startTime;
     private boolean isComplete;
+    private OperationLog log;
     
     @Override
     public void init(int[] array) {
@@ -60,15 +63,21 @@ public class BubbleSort implements SortingAlgorithm {
     
     @Override
     public SortingEvent step() {
+        return step(new ReusableSortingEvent()).toSortingEvent();
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
         if (isComplete) {
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
         }
         
         // Perform one comparison step
         if (j < n - i - 1) {
-            int[] highlightIndices = {j, j + 1};
             comparisons++;
+            if (log != null) {
+                log.compare(j, j + 1);
+            }
             
             if (array[j] > array[j + 1]) {
                 // Swap arr[j] and arr[j+1]
@@ -77,11 +86,14 @@ public class BubbleSort implements SortingAlgorithm {
                 array[j + 1] = temp;
                 swaps++;
                 swapped = true;
+                if (log != null) {
+                    log.swap(j, j + 1);
+                }
             }
             
             j++;
-            return new SortingEvent(array, highlightIndices, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(j - 1, j);
         } 
         // Move to next pass
         else if (i < n - 1) {
@@ -91,22 +103,26 @@ public class BubbleSort implements SortingAlgorithm {
             // Optimization: if no swaps occurred in the last pass, we're done
             if (!swapped) {
                 isComplete = true;
-                return new SortingEvent(array, new int[0], comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
             }
             
             swapped = false;
-            return new SortingEvent(array, new int[]{i}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(i);
         } 
         // Sorting complete
         else {
             isComplete = true;
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
         }
     }
     
+    @Override
+    public boolean setOperationLog(OperationLog log) {
+        this.log = log;
+        return true;
+    }
+    
     @Override
     public boolean isSortingComplete() {
         return isComplete;
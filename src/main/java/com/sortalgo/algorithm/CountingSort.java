@@ -2,66 +2,167 @@ package com.sortalgo.algorithm;
 
 import com.sortalgo.model.SortingEvent;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
 public class CountingSort implements SortingAlgorithm {
+    // Faixas de valores maiores que SPARSE_RANGE_FACTOR * n + DENSE_RANGE_SLACK são consideradas
+    // esparsas demais para um histograma e são ordenadas pelo Radix Sort
+    private static final int SPARSE_RANGE_FACTOR = 2;
+    private static final int DENSE_RANGE_SLACK = 1024;
+    // Maior histograma que a JVM consegue alocar; faixas maiores também usam o Radix Sort
+    private static final int MAX_HISTOGRAM_LENGTH = Integer.MAX_VALUE - 8;
+    // Cada faixa (stripe) paralela precisa de pelo menos este número de elementos
+    private static final int MIN_STRIPE_LENGTH = 1 << 16;
+
+    private final int parallelism;
+
     private int[] array;
     private int[] output;
     private int comparisons;
     private int swaps;
     private boolean sortingComplete;
     private int currentStep;
+    private int minValue;
     private int maxValue;
     private int[] count;
     private long startTime;
+    private RadixSort fallback;
+
+    // Modo paralelo: um histograma por faixa do array
+    private int stripes;
+    private int[][] stripeCounts;
+
+    /**
+     * Cria um Counting Sort sequencial.
+     */
+    public CountingSort() {
+        this(1);
+    }
+
+    /**
+     * Cria um Counting Sort que usa até {@code parallelism} threads em arrays grandes.
+     * Cada thread conta uma faixa contígua do array em um histograma próprio; os histogramas são
+     * combinados por uma soma de prefixos paralela e cada thread distribui a sua faixa na saída,
+     * mantendo a ordenação estável.
+     *
+     * @param parallelism Número máximo de threads
+     */
+    public CountingSort(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
 
     @Override
     public void init(int[] array) {
         this.array = array.clone();
-        this.output = new int[array.length];
+        this.output = null;
         this.comparisons = 0;
         this.swaps = 0;
-        this.sortingComplete = false;
+        this.sortingComplete = array.length <= 1;
         this.currentStep = 0;
-        this.maxValue = findMaxValue();
-        this.count = new int[maxValue + 1];
+        this.count = null;
+        this.fallback = null;
+        this.stripes = 1;
+        this.stripeCounts = null;
         this.startTime = System.currentTimeMillis();
+
+        if (array.length == 0) {
+            this.minValue = 0;
+            this.maxValue = 0;
+            return;
+        }
+
+        findMinMaxValues();
+
+        // O histograma cobre apenas o intervalo [minValue, maxValue]
+        long range = valueRange();
+        if (range > (long) array.length * SPARSE_RANGE_FACTOR + DENSE_RANGE_SLACK || range > MAX_HISTOGRAM_LENGTH) {
+            fallback = new RadixSort();
+            fallback.init(this.array);
+        } else {
+            this.output = new int[array.length];
+            this.count = new int[(int) range];
+
+            // Só usa várias faixas se cada uma tiver pelo menos tantos elementos quanto o histograma,
+            // limitando a memória extra dos histogramas a n inteiros
+            long stripeLength = Math.max(range, MIN_STRIPE_LENGTH);
+            this.stripes = (int) Math.min(parallelism, Math.max(1, array.length / stripeLength));
+            if (stripes > 1) {
+                this.stripeCounts = new int[stripes][];
+            }
+        }
     }
 
-    private int findMaxValue() {
+    /**
+     * Encontra o mínimo e o máximo em uma única passada pelo array.
+     */
+    private void findMinMaxValues() {
+        int min = array[0];
         int max = array[0];
         for (int i = 1; i < array.length; i++) {
+            int value = array[i];
             comparisons++;
-            if (array[i] > max) {
-                max = array[i];
+            if (value < min) {
+                min = value;
+            } else {
+                comparisons++;
+                if (value > max) {
+                    max = value;
+                }
             }
         }
-        return max;
+        this.minValue = min;
+        this.maxValue = max;
+    }
+
+    private long valueRange() {
+        return (long) maxValue - minValue + 1;
     }
 
     @Override
     public SortingEvent sort() {
+        SortingEvent event = step();
         while (!isSortingComplete()) {
-            step();
+            event = step();
         }
-        return new SortingEvent(output, new int[0], comparisons, swaps, System.currentTimeMillis() - startTime);
+        return event;
     }
 
     @Override
     public SortingEvent step() {
+        if (fallback != null) {
+            return fallbackStep();
+        }
+
         if (sortingComplete) {
-            return null;
+            return finalEvent();
+        }
+
+        if (stripes > 1) {
+            return parallelStep();
         }
 
         switch (currentStep) {
             case 0:
-                // Inicializa o array de contagem
+                // Inicializa o array de contagem, deslocado pelo valor mínimo
                 for (int i = 0; i < array.length; i++) {
-                    count[array[i]]++;
+                    count[array[i] - minValue]++;
                 }
                 currentStep++;
                 break;
             case 1:
                 // Acumula as contagens
-                for (int i = 1; i <= maxValue; i++) {
+                for (int i = 1; i < count.length; i++) {
                     count[i] += count[i - 1];
                 }
                 currentStep++;
@@ -69,22 +170,181 @@ public class CountingSort implements SortingAlgorithm {
             case 2:
                 // Constrói o array de saída
                 for (int i = array.length - 1; i >= 0; i--) {
-                    output[count[array[i]] - 1] = array[i];
-                    count[array[i]]--;
+                    output[--count[array[i] - minValue]] = array[i];
                     swaps++;
                 }
                 currentStep++;
                 break;
             case 3:
-                // Copia o array ordenado de volta para o array original
-                System.arraycopy(output, 0, array, 0, array.length);
+                // O array de saída passa a ser o array ordenado (sem copiar)
+                int[] temp = array;
+                array = output;
+                output = temp;
                 sortingComplete = true;
+                return finalEvent();
+        }
+
+        return new SortingEvent(array, new int[0], comparisons, swaps, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Executa um passo do modo paralelo. Os passos são os mesmos do modo sequencial.
+     */
+    private SortingEvent parallelStep() {
+        switch (currentStep) {
+            case 0:
+                // Cada thread conta a sua faixa em um histograma próprio
+                runStripes(stripe -> {
+                    int[] local = new int[count.length];
+                    for (int i = stripeStart(stripe), end = stripeStart(stripe + 1); i < end; i++) {
+                        local[array[i] - minValue]++;
+                    }
+                    stripeCounts[stripe] = local;
+                });
+                currentStep++;
+                break;
+            case 1:
+                parallelPrefixSum();
+                currentStep++;
                 break;
+            case 2:
+                // Cada thread distribui a sua faixa a partir das suas posições iniciais (estável)
+                runStripes(stripe -> {
+                    int[] next = stripeCounts[stripe];
+                    for (int i = stripeStart(stripe), end = stripeStart(stripe + 1); i < end; i++) {
+                        int value = array[i];
+                        output[next[value - minValue]++] = value;
+                    }
+                });
+                swaps += array.length;
+                currentStep++;
+                break;
+            case 3:
+                int[] temp = array;
+                array = output;
+                output = temp;
+                stripeCounts = null;
+                sortingComplete = true;
+                return finalEvent();
         }
 
         return new SortingEvent(array, new int[0], comparisons, swaps, System.currentTimeMillis() - startTime);
     }
 
+    /**
+     * Transforma os histogramas das faixas em posições iniciais de saída. A posição do valor v na
+     * faixa t é o número de elementos menores que v mais os elementos iguais a v das faixas
+     * anteriores. O intervalo de valores é dividido em blocos somados em paralelo; só a soma
+     * dos totais dos blocos é sequencial.
+     */
+    private void parallelPrefixSum() {
+        int range = count.length;
+        int blocks = stripes;
+        long[] blockTotals = new long[blocks + 1];
+
+        // Total de elementos em cada bloco de valores, somando todas as faixas
+        runStripes(block -> {
+            long total = 0;
+            for (int v = blockStart(block, range), end = blockStart(block + 1, range); v < end; v++) {
+                for (int[] local : stripeCounts) {
+                    total += local[v];
+                }
+            }
+            blockTotals[block + 1] = total;
+        });
+
+        for (int block = 1; block <= blocks; block++) {
+            blockTotals[block] += blockTotals[block - 1];
+        }
+
+        // Posições iniciais dentro de cada bloco; o histograma global guarda o total acumulado
+        runStripes(block -> {
+            int offset = (int) blockTotals[block];
+            for (int v = blockStart(block, range), end = blockStart(block + 1, range); v < end; v++) {
+                for (int[] local : stripeCounts) {
+                    int c = local[v];
+                    local[v] = offset;
+                    offset += c;
+                }
+                count[v] = offset;
+            }
+        });
+    }
+
+    private int stripeStart(int stripe) {
+        return (int) ((long) array.length * stripe / stripes);
+    }
+
+    private int blockStart(int block, int range) {
+        return (int) ((long) range * block / stripes);
+    }
+
+    /**
+     * Executa a tarefa uma vez para cada faixa, em paralelo, e espera todas terminarem. O pool só
+     * existe durante a chamada, então um passo abandonado ou com falha não deixa threads vivas.
+     */
+    private void runStripes(IntConsumer task) {
+        List<Callable<Void>> tasks = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            final int id = stripe;
+            tasks.add(() -> {
+                task.accept(id);
+                return null;
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(stripes);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Counting Sort was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Counting Sort worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Executa um passo do Radix Sort usado quando a faixa de valores é esparsa.
+     */
+    private SortingEvent fallbackStep() {
+        SortingEvent event = fallback.step();
+        array = event.getCurrentArray();
+        swaps = fallback.getSwaps();
+        sortingComplete = fallback.isSortingComplete();
+
+        if (sortingComplete) {
+            return finalEvent();
+        }
+        return new SortingEvent(array, event.getHighlightIndices(), comparisons, swaps,
+                System.currentTimeMillis() - startTime);
+    }
+
+    private SortingEvent finalEvent() {
+        return new SortingEvent(array, new int[0], comparisons, swaps, System.currentTimeMillis() - startTime,
+                buildMetrics());
+    }
+
+    /**
+     * Métricas do caminho escolhido: faixa de valores, memória do histograma e algoritmo usado.
+     */
+    private Map<String, Object> buildMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("path", fallback != null ? "radix (sparse range)" : "counting");
+        metrics.put("minValue", minValue);
+        metrics.put("maxValue", maxValue);
+        metrics.put("valueRange", array.length == 0 ? 0L : valueRange());
+        metrics.put("histogramBytes", fallback != null
+                ? (long) RadixSort.HISTOGRAM_BYTES
+                : (count == null ? 0L : (long) count.length * Integer.BYTES * (stripes > 1 ? stripes + 1 : 1)));
+        metrics.put("threads", stripes);
+        return metrics;
+    }
+
     @Override
     public boolean isSortingComplete() {
         return sortingComplete;
@@ -93,7 +353,9 @@ public class CountingSort implements SortingAlgorithm {
     @Override
     public String getDescription() {
         return "Counting Sort é um algoritmo de ordenação que funciona contando o número de ocorrências de cada elemento no array. " +
-               "É eficiente quando o intervalo de valores possíveis é pequeno em comparação com o tamanho do array.";
+               "É eficiente quando o intervalo de valores possíveis é pequeno em comparação com o tamanho do array. " +
+               "O histograma cobre apenas o intervalo entre o menor e o maior valor; quando esse intervalo é esparso " +
+               "demais, a ordenação é feita pelo Radix Sort.";
     }
 
     @Override
@@ -125,4 +387,4 @@ public class CountingSort implements SortingAlgorithm {
     public int getSwaps() {
         return swaps;
     }
-} 
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
 
 /**
@@ -18,6 +20,7 @@ public class InsertionSort implements SortingAlgorithm {
     private int swaps;
     private long startTime;
     private boolean isComplete;
+    private OperationLog log;
     
     @Override
     public void init(int[] array) {
@@ -65,17 +68,20 @@ public class InsertionSort implements SortingAlgorithm {
     
     @Override
     public SortingEvent step() {
+        return step(new ReusableSortingEvent()).toSortingEvent();
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
         if (isComplete) {
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
         }
         
         // If we need to start with a new key
         if (keyInserted) {
             if (i >= n) {
                 isComplete = true;
-                return new SortingEvent(array, new int[0], comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
             }
             
             key = array[i];
@@ -83,8 +89,8 @@ public class InsertionSort implements SortingAlgorithm {
             keyInserted = false;
             movingKey = true;
             
-            return new SortingEvent(array, new int[]{i}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(i);
         }
         
         // Moving key to its proper position
@@ -92,38 +98,54 @@ public class InsertionSort implements SortingAlgorithm {
             // If we can move the key further left
             if (j >= 0) {
                 comparisons++;
+                // The key is held outside the array; its place is the gap at j + 1
+                if (log != null) {
+                    log.compare(j, j + 1);
+                }
                 
                 if (array[j] > key) {
                     array[j + 1] = array[j];
                     swaps++;
+                    if (log != null) {
+                        log.write(j + 1, array[j]);
+                    }
                     j--;
                     
-                    return new SortingEvent(array, new int[]{j, j + 1}, comparisons, swaps, 
-                            System.currentTimeMillis() - startTime);
+                    return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                            .highlight(j, j + 1);
                 } else {
                     // Found the right position for key
                     movingKey = false;
-                    return new SortingEvent(array, new int[]{j, j + 1}, comparisons, swaps, 
-                            System.currentTimeMillis() - startTime);
+                    return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                            .highlight(j, j + 1);
                 }
             } else {
                 // Reached the beginning of the array
                 movingKey = false;
-                return new SortingEvent(array, new int[]{0}, comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                        .highlight(0);
             }
         } 
         // Insert key and move to next element
         else {
             array[j + 1] = key;
+            if (log != null) {
+                log.write(j + 1, key);
+            }
             keyInserted = true;
             i++;
             
-            return new SortingEvent(array, new int[]{j + 1}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(j + 1);
         }
     }
     
+    @Override
+    public boolean setOperationLog(OperationLog log) {
+        this.log = log;
+        return true;
+    }
+    
     @Override
     public boolean isSortingComplete() {
         return isComplete;
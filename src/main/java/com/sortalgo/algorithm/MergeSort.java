@@ -1,8 +1,9 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
-import java.util.Arrays;
-import java.util.Stack;
+import com.sortalgo.util.IntStack;
 
 /**
  * Implementation of Merge Sort algorithm using an iterative approach for step-by-step visualization.
@@ -15,27 +16,23 @@ public class MergeSort implements SortingAlgorithm {
     private int swaps;
     private long startTime;
     private boolean isComplete;
+    private OperationLog log;
     
-    // For step-by-step execution
-    private Stack<MergePair> mergeStack;
-    private MergePair currentMerge;
+    // Buffer of both sort() and the steps, allocated by the first of them
     private int[] tempArray;
+    
+    // For step-by-step execution: pending merges stored as a struct of arrays, built by the first step
+    private IntStack mergeLefts;
+    private IntStack mergeMids;
+    private IntStack mergeRights;
+    private int currentLeft;
+    private int currentMid;
+    private int currentRight;
+    private int leftIndex;
+    private int rightIndex;
     private int mergeIndex;
     private boolean inMergePhase;
     
-    // Class to represent a merge operation
-    private static class MergePair {
-        int left;
-        int mid;
-        int right;
-        
-        MergePair(int left, int mid, int right) {
-            this.left = left;
-            this.mid = mid;
-            this.right = right;
-        }
-    }
-    
     @Override
     public void init(int[] array) {
         this.array = array.clone();
@@ -44,11 +41,25 @@ public class MergeSort implements SortingAlgorithm {
         this.swaps = 0;
         this.startTime = System.currentTimeMillis();
         this.isComplete = n <= 1; // Already sorted if array size <= 1
-        
-        // Initialize step-by-step state
-        this.mergeStack = new Stack<>();
-        this.tempArray = new int[n];
+        this.tempArray = null;
+        this.mergeLefts = null;
+        this.mergeMids = null;
+        this.mergeRights = null;
         this.inMergePhase = false;
+    }
+    
+    /**
+     * Build the stack of pending merges for step(), which sort() does not need.
+     */
+    private void initSteps() {
+        // A merge sort performs n - 1 merges
+        int merges = Math.max(1, n - 1);
+        this.mergeLefts = new IntStack(merges);
+        this.mergeMids = new IntStack(merges);
+        this.mergeRights = new IntStack(merges);
+        if (tempArray == null) {
+            tempArray = new int[n];
+        }
         
         // Build the merge operations stack
         if (n > 1) {
@@ -56,22 +67,33 @@ public class MergeSort implements SortingAlgorithm {
         }
     }
     
+    /**
+     * Push the merges for arr[left..right] so that they are popped in post-order:
+     * both halves are merged before the merge that combines them.
+     */
     private void buildMergeOperationsStack(int left, int right) {
         if (left < right) {
             int mid = left + (right - left) / 2;
             
-            // Recursively build operations for the left and right subarrays
-            buildMergeOperationsStack(left, mid);
-            buildMergeOperationsStack(mid + 1, right);
+            // Add this merge operation first, so it is popped last
+            mergeLefts.push(left);
+            mergeMids.push(mid);
+            mergeRights.push(right);
             
-            // Add this merge operation to the stack
-            mergeStack.push(new MergePair(left, mid, right));
+            // Then the right half, so the left half is popped first
+            buildMergeOperationsStack(mid + 1, right);
+            buildMergeOperationsStack(left, mid);
         }
     }
     
     @Override
     public SortingEvent sort() {
-        mergeSort(array, 0, n - 1);
+        if (n > 1) {
+            if (tempArray == null) {
+                tempArray = new int[n];
+            }
+            mergeSortBottomUp();
+        }
         
         isComplete = true;
         long executionTime = System.currentTimeMillis() - startTime;
@@ -79,149 +101,173 @@ public class MergeSort implements SortingAlgorithm {
         return new SortingEvent(array, new int[0], comparisons, swaps, executionTime);
     }
     
-    private void mergeSort(int[] arr, int left, int right) {
-        if (left < right) {
-            // Find the middle point
-            int mid = left + (right - left) / 2;
-            
-            // Sort first and second halves
-            mergeSort(arr, left, mid);
-            mergeSort(arr, mid + 1, right);
+    /**
+     * Bottom-up merge sort that alternates ("ping-pongs") between the array and tempArray:
+     * each pass merges runs of the given width from one buffer into the other, so the only
+     * auxiliary memory is the single tempArray.
+     */
+    private void mergeSortBottomUp() {
+        int[] source = array;
+        int[] target = tempArray;
+        
+        for (long width = 1; width < n; width *= 2) {
+            for (long start = 0; start < n; start += 2 * width) {
+                int left = (int) start;
+                int mid = (int) Math.min(start + width, n);
+                int right = (int) Math.min(start + 2 * width, n);
+                
+                if (mid < right) {
+                    merge(source, target, left, mid, right);
+                } else {
+                    // Trailing run without a partner in this pass, just carry it over
+                    System.arraycopy(source, left, target, left, right - left);
+                }
+            }
             
-            // Merge the sorted halves
-            merge(arr, left, mid, right);
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        
+        // After an odd number of passes the sorted data lives in tempArray
+        if (source != array) {
+            System.arraycopy(source, 0, array, 0, n);
         }
     }
     
-    private void merge(int[] arr, int left, int mid, int right) {
-        // Create temporary arrays
-        int[] L = Arrays.copyOfRange(arr, left, mid + 1);
-        int[] R = Arrays.copyOfRange(arr, mid + 1, right + 1);
-        
-        // Merge the temporary arrays back into arr[left..right]
-        int i = 0, j = 0, k = left;
+    /**
+     * Merge the sorted runs source[left..mid) and source[mid..right) into target[left..right).
+     */
+    private void merge(int[] source, int[] target, int left, int mid, int right) {
+        int i = left, j = mid, k = left;
         
-        while (i < L.length && j < R.length) {
+        while (i < mid && j < right) {
             comparisons++;
             
-            if (L[i] <= R[j]) {
-                arr[k] = L[i];
-                i++;
+            if (source[i] <= source[j]) {
+                target[k++] = source[i++];
             } else {
-                arr[k] = R[j];
-                j++;
+                target[k++] = source[j++];
             }
-            swaps++;
-            k++;
         }
         
-        // Copy remaining elements of L[] if any
-        while (i < L.length) {
-            arr[k] = L[i];
-            i++;
-            k++;
-            swaps++;
+        // Copy remaining elements of whichever run is not exhausted
+        if (i < mid) {
+            System.arraycopy(source, i, target, k, mid - i);
+        } else if (j < right) {
+            System.arraycopy(source, j, target, k, right - j);
         }
         
-        // Copy remaining elements of R[] if any
-        while (j < R.length) {
-            arr[k] = R[j];
-            j++;
-            k++;
-            swaps++;
-        }
+        // Every element of the range has been written once
+        swaps += right - left;
     }
     
     @Override
     public SortingEvent step() {
+        return step(new ReusableSortingEvent()).toSortingEvent();
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
         if (isComplete) {
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
+        }
+        if (mergeLefts == null) {
+            initSteps();
         }
         
         // If no current merge operation, get one from the stack
         if (!inMergePhase) {
-            if (mergeStack.isEmpty()) {
+            if (mergeLefts.isEmpty()) {
                 isComplete = true;
-                return new SortingEvent(array, new int[0], comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
             }
             
             // Start a new merge operation
-            currentMerge = mergeStack.pop();
+            currentLeft = mergeLefts.pop();
+            currentMid = mergeMids.pop();
+            currentRight = mergeRights.pop();
             inMergePhase = true;
             
-            // Initialize for merge
-            int left = currentMerge.left;
-            int mid = currentMerge.mid;
-            int right = currentMerge.right;
-            
             // Copy data to temp array
-            System.arraycopy(array, left, tempArray, left, right - left + 1);
+            System.arraycopy(array, currentLeft, tempArray, currentLeft, currentRight - currentLeft + 1);
             
             // Initialize merge indices
-            int i = left;      // Initial index of first subarray
-            int j = mid + 1;   // Initial index of second subarray
-            mergeIndex = left; // Initial index of merged subarray
+            leftIndex = currentLeft;        // Initial index of first subarray
+            rightIndex = currentMid + 1;    // Initial index of second subarray
+            mergeIndex = currentLeft;       // Initial index of merged subarray
+            if (log != null) {
+                log.mark(currentLeft, currentRight);
+            }
             
-            return new SortingEvent(array, new int[]{left, mid, right}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(currentLeft, currentMid, currentRight);
         }
         
-        // Continue with current merge operation
-        int left = currentMerge.left;
-        int mid = currentMerge.mid;
-        int right = currentMerge.right;
-        
-        // Initial indices of first and second subarrays
-        int i = left;
-        int j = mid + 1;
-        
         // If we have elements to compare from both subarrays
-        if (i <= mid && j <= right) {
+        if (leftIndex <= currentMid && rightIndex <= currentRight) {
             comparisons++;
+            // The runs are read from tempArray, at the positions they were copied from
+            if (log != null) {
+                log.compare(leftIndex, rightIndex);
+            }
             
-            if (tempArray[i] <= tempArray[j]) {
-                array[mergeIndex] = tempArray[i];
-                i++;
+            if (tempArray[leftIndex] <= tempArray[rightIndex]) {
+                array[mergeIndex] = tempArray[leftIndex];
+                leftIndex++;
             } else {
-                array[mergeIndex] = tempArray[j];
-                j++;
+                array[mergeIndex] = tempArray[rightIndex];
+                rightIndex++;
             }
             swaps++;
+            logWrite(mergeIndex);
             mergeIndex++;
             
-            return new SortingEvent(array, new int[]{mergeIndex - 1, i, j}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(mergeIndex - 1, leftIndex, rightIndex);
         }
         
         // Copy remaining elements from first subarray
-        while (i <= mid) {
-            array[mergeIndex] = tempArray[i];
-            i++;
+        if (leftIndex <= currentMid) {
+            array[mergeIndex] = tempArray[leftIndex];
+            leftIndex++;
+            logWrite(mergeIndex);
             mergeIndex++;
             swaps++;
             
-            return new SortingEvent(array, new int[]{mergeIndex - 1, i}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(mergeIndex - 1, leftIndex);
         }
         
         // Copy remaining elements from second subarray
-        while (j <= right) {
-            array[mergeIndex] = tempArray[j];
-            j++;
+        if (rightIndex <= currentRight) {
+            array[mergeIndex] = tempArray[rightIndex];
+            rightIndex++;
+            logWrite(mergeIndex);
             mergeIndex++;
             swaps++;
             
-            return new SortingEvent(array, new int[]{mergeIndex - 1, j}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(mergeIndex - 1, rightIndex);
         }
         
         // Merge operation completed
         inMergePhase = false;
         
-        return new SortingEvent(array, new int[]{left, right}, comparisons, swaps, 
-                System.currentTimeMillis() - startTime);
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(currentLeft, currentRight);
+    }
+    
+    private void logWrite(int index) {
+        if (log != null) {
+            log.write(index, array[index]);
+        }
+    }
+    
+    @Override
+    public boolean setOperationLog(OperationLog log) {
+        this.log = log;
+        return true;
     }
     
     @Override
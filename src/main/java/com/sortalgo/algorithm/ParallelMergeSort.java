@@ -0,0 +1,358 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implementation of Merge Sort that sorts large arrays on several cores using the fork/join framework.
+ * Subarrays at or below the sequential cutoff are sorted on a single worker; larger ones are split
+ * in half, both halves are sorted concurrently and then merged; long merges are split between
+ * workers as well. Comparisons and swaps are counted with the same semantics as {@link MergeSort}:
+ * one swap per element written during a merge.
+ */
+public class ParallelMergeSort implements SortingAlgorithm {
+    
+    public static final int DEFAULT_SEQUENTIAL_CUTOFF = 8192;
+    
+    private final int parallelism;
+    private final int sequentialCutoff;
+    
+    private int[] array;
+    private int n;
+    private int comparisons;
+    private int swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // Stepping is inherently sequential, so it is delegated to the classic implementation
+    private MergeSort stepper;
+    
+    /**
+     * Create a parallel merge sort using all available processors and the default cutoff.
+     */
+    public ParallelMergeSort() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+    
+    /**
+     * Create a parallel merge sort with explicit tuning parameters.
+     *
+     * @param parallelism Number of worker threads used by sort()
+     * @param sequentialCutoff Subarray length at or below which sorting is done on a single thread
+     */
+    public ParallelMergeSort(int parallelism, int sequentialCutoff) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        if (sequentialCutoff < 1) {
+            throw new IllegalArgumentException("sequentialCutoff must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.sequentialCutoff = sequentialCutoff;
+    }
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        this.stepper = null;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        if (n > 1) {
+            MergeTask root = new MergeTask(array, new int[n], 0, n - 1, sequentialCutoff);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(root);
+            } finally {
+                pool.shutdown();
+            }
+            comparisons = saturate(root.comparisons);
+            swaps = saturate(root.swaps);
+        }
+        
+        isComplete = true;
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps, executionTime);
+    }
+    
+    private static int saturate(long count) {
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+    
+    /**
+     * Fork/join task sorting arr[left..right]. Every task owns a disjoint slice of the shared
+     * auxiliary buffer, so no allocation happens while sorting.
+     */
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] arr;
+        private final int[] buffer;
+        private final int left;
+        private final int right;
+        private final int cutoff;
+        
+        // Totals for this subtree, read by the parent after join()
+        long comparisons;
+        long swaps;
+        
+        MergeTask(int[] arr, int[] buffer, int left, int right, int cutoff) {
+            this.arr = arr;
+            this.buffer = buffer;
+            this.left = left;
+            this.right = right;
+            this.cutoff = cutoff;
+        }
+        
+        @Override
+        protected void compute() {
+            if (right - left + 1 <= cutoff) {
+                mergeSort(left, right);
+                return;
+            }
+            
+            int mid = left + (right - left) / 2;
+            MergeTask leftTask = new MergeTask(arr, buffer, left, mid, cutoff);
+            MergeTask rightTask = new MergeTask(arr, buffer, mid + 1, right, cutoff);
+            
+            // Sort the left half asynchronously while this worker sorts the right half
+            leftTask.fork();
+            rightTask.compute();
+            leftTask.join();
+            
+            comparisons += leftTask.comparisons + rightTask.comparisons;
+            swaps += leftTask.swaps + rightTask.swaps;
+            
+            // Merge the sorted halves back into arr[left..right], itself in parallel
+            System.arraycopy(arr, left, buffer, left, right - left + 1);
+            MergeRunsTask merge = new MergeRunsTask(buffer, left, mid + 1, mid + 1, right + 1, arr, left, cutoff);
+            merge.compute();
+            
+            comparisons += merge.comparisons;
+            swaps += merge.swaps;
+        }
+        
+        private void mergeSort(int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                mergeSort(left, mid);
+                mergeSort(mid + 1, right);
+                
+                // Copy both halves to the buffer and merge them back into arr[left..right]
+                System.arraycopy(arr, left, buffer, left, right - left + 1);
+                comparisons += mergeRuns(buffer, left, mid + 1, mid + 1, right + 1, arr, left);
+                
+                // Every element of the range has been written back once
+                swaps += right - left + 1;
+            }
+        }
+    }
+    
+    /**
+     * Fork/join task merging the sorted runs src[i..iEnd) and src[j..jEnd) into dst starting at k.
+     * Long runs are split at the median of the longer one, whose position in the shorter run is
+     * found by binary search, and the two independent halves are merged concurrently.
+     */
+    private static class MergeRunsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] src;
+        private final int i;
+        private final int iEnd;
+        private final int j;
+        private final int jEnd;
+        private final int[] dst;
+        private final int k;
+        private final int cutoff;
+        
+        // Totals for this merge, read by the parent after join()
+        long comparisons;
+        long swaps;
+        
+        MergeRunsTask(int[] src, int i, int iEnd, int j, int jEnd, int[] dst, int k, int cutoff) {
+            this.src = src;
+            this.i = i;
+            this.iEnd = iEnd;
+            this.j = j;
+            this.jEnd = jEnd;
+            this.dst = dst;
+            this.k = k;
+            this.cutoff = cutoff;
+        }
+        
+        @Override
+        protected void compute() {
+            int leftLength = iEnd - i;
+            int rightLength = jEnd - j;
+            if (leftLength + rightLength <= cutoff || leftLength == 0 || rightLength == 0) {
+                comparisons += mergeRuns(src, i, iEnd, j, jEnd, dst, k);
+                swaps += leftLength + rightLength;
+                return;
+            }
+            
+            // The pivot goes straight to its final position and the elements on either side of it
+            // are merged independently. Elements equal to the pivot keep the left run first, so
+            // the merge stays stable.
+            int leftSplit;
+            int leftResume;
+            int rightSplit;
+            int rightResume;
+            if (leftLength >= rightLength) {
+                leftSplit = i + leftLength / 2;
+                leftResume = leftSplit + 1;
+                rightSplit = lowerBound(src, j, jEnd, src[leftSplit]);
+                rightResume = rightSplit;
+                dst[k + (leftSplit - i) + (rightSplit - j)] = src[leftSplit];
+            } else {
+                rightSplit = j + rightLength / 2;
+                rightResume = rightSplit + 1;
+                leftSplit = upperBound(src, i, iEnd, src[rightSplit]);
+                leftResume = leftSplit;
+                dst[k + (leftSplit - i) + (rightSplit - j)] = src[rightSplit];
+            }
+            swaps++;
+            
+            int resume = k + (leftSplit - i) + (rightSplit - j) + 1;
+            MergeRunsTask lowTask = new MergeRunsTask(src, i, leftSplit, j, rightSplit, dst, k, cutoff);
+            MergeRunsTask highTask = new MergeRunsTask(src, leftResume, iEnd, rightResume, jEnd, dst, resume, cutoff);
+            
+            lowTask.fork();
+            highTask.compute();
+            lowTask.join();
+            
+            comparisons += lowTask.comparisons + highTask.comparisons;
+            swaps += lowTask.swaps + highTask.swaps;
+        }
+        
+        // First index in src[from..to) whose value is >= key
+        private int lowerBound(int[] src, int from, int to, int key) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                comparisons++;
+                if (src[mid] < key) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+        
+        // First index in src[from..to) whose value is > key
+        private int upperBound(int[] src, int from, int to, int key) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                comparisons++;
+                if (src[mid] <= key) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+    
+    /**
+     * Stable sequential merge of src[i..iEnd) and src[j..jEnd) into dst starting at k.
+     *
+     * @return The number of comparisons performed
+     */
+    private static long mergeRuns(int[] src, int i, int iEnd, int j, int jEnd, int[] dst, int k) {
+        long comparisons = 0;
+        
+        while (i < iEnd && j < jEnd) {
+            comparisons++;
+            
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        
+        while (i < iEnd) {
+            dst[k++] = src[i++];
+        }
+        
+        while (j < jEnd) {
+            dst[k++] = src[j++];
+        }
+        
+        return comparisons;
+    }
+    
+    @Override
+    public SortingEvent step() {
+        if (stepper == null) {
+            stepper = new MergeSort();
+            stepper.init(array);
+        }
+        
+        SortingEvent event = stepper.step();
+        comparisons = stepper.getComparisons();
+        swaps = stepper.getSwaps();
+        isComplete = stepper.isSortingComplete();
+        
+        return event;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Parallel Merge Sort splits the array into halves just like Merge Sort, but sorts both halves " +
+               "at the same time on different processor cores using the fork/join framework. Small subarrays " +
+               "are sorted sequentially to avoid the overhead of creating tasks. The total work is still " +
+               "O(n log n), but it is divided among the available cores.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public int getSwaps() {
+        return swaps;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public int getSequentialCutoff() {
+        return sequentialCutoff;
+    }
+}
@@ -0,0 +1,705 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+import com.sortalgo.util.IntStack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implementation of pattern-defeating quicksort (pdqsort).
+ *
+ * Partitions are split in blocks: the elements of a block on each side that are on the wrong side
+ * of the pivot are recorded in an offset buffer without branching, and then swapped in pairs.
+ * A partition that needed no swaps is checked with a bounded insertion sort, so presorted
+ * ranges finish in linear time. Ranges whose pivot equals the pivot of an enclosing partition are
+ * split into "equal" and "greater" parts, which keeps inputs with many duplicates linear.
+ * Highly unbalanced partitions break patterns by swapping a few elements, and after log2(n) of
+ * them the range is finished with heapsort, which bounds the worst case to O(n log n).
+ *
+ * In step-by-step mode every block of a partition is one step.
+ */
+public class PdqSort implements SortingAlgorithm {
+    
+    // Ranges smaller than this are sorted with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 24;
+    
+    // Ranges larger than this use the ninther as pivot
+    private static final int NINTHER_THRESHOLD = 128;
+    
+    // Elements moved before a partial insertion sort gives up
+    private static final int PARTIAL_INSERTION_SORT_LIMIT = 8;
+    
+    private static final int BLOCK_SIZE = 64;
+    
+    // Phases of the step-by-step state machine
+    private enum Phase {
+        IDLE, BLOCK_PARTITION
+    }
+    
+    private int[] array;
+    private int n;
+    private int comparisons;
+    private int swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // Pending ranges as (begin, end, bad partitions allowed, leftmost) quadruples
+    private IntStack stack;
+    private Phase phase;
+    
+    // Range being partitioned, [begin, end)
+    private int begin;
+    private int end;
+    private int badAllowed;
+    private boolean leftmost;
+    
+    // Block partition state
+    private int pivot;
+    private int first;
+    private int last;
+    private int[] offsetsLeft;
+    private int[] offsetsRight;
+    private int numLeft;
+    private int numRight;
+    private int startLeft;
+    private int startRight;
+    
+    // Statistics
+    private int blocks;
+    private int equalPartitions;
+    private int presortedPartitions;
+    private int patternBreaks;
+    private int heapsortFallbacks;
+    
+    @Override
+    public void init(int[] array) {
+        reset(array.clone());
+        if (n > 1) {
+            pushRange(0, n, log2(n), true);
+        }
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+    }
+    
+    /**
+     * Sort array[from..to) in place, without copying the array. Used by algorithms that sort
+     * parts of their own arrays, such as the buckets of {@link SampleSort}; the counters
+     * only cover this range afterwards.
+     */
+    void sortRange(int[] array, int from, int to) {
+        reset(array);
+        if (to - from > 1) {
+            pushRange(from, to, log2(to - from), true);
+        }
+        while (!isComplete) {
+            advance();
+        }
+    }
+    
+    private void reset(int[] array) {
+        this.array = array;
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = false;
+        
+        this.stack = new IntStack();
+        this.phase = Phase.IDLE;
+        this.offsetsLeft = new int[BLOCK_SIZE];
+        this.offsetsRight = new int[BLOCK_SIZE];
+        
+        this.blocks = 0;
+        this.equalPartitions = 0;
+        this.presortedPartitions = 0;
+        this.patternBreaks = 0;
+        this.heapsortFallbacks = 0;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            advance();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps, executionTime, buildMetrics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        if (isComplete) {
+            return new SortingEvent(array, new int[0], comparisons, swaps,
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        
+        int[] highlights = advance();
+        
+        // The step that completes the sort reports the metrics as well, like sort()
+        if (isComplete) {
+            return new SortingEvent(array, highlights, comparisons, swaps,
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        return new SortingEvent(array, highlights, comparisons, swaps,
+                System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Perform the next unit of work: one block of the current partition, or the start of the next range.
+     *
+     * @return Indices to highlight for this unit of work
+     */
+    private int[] advance() {
+        if (phase == Phase.BLOCK_PARTITION) {
+            return partitionBlockStep();
+        }
+        
+        if (stack.isEmpty()) {
+            isComplete = true;
+            return new int[0];
+        }
+        
+        leftmost = stack.pop() != 0;
+        badAllowed = stack.pop();
+        end = stack.pop();
+        begin = stack.pop();
+        
+        return startRange();
+    }
+    
+    private static int log2(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size);
+    }
+    
+    private void pushRange(int begin, int end, int badAllowed, boolean leftmost) {
+        stack.push(begin);
+        stack.push(end);
+        stack.push(badAllowed);
+        stack.push(leftmost ? 1 : 0);
+    }
+    
+    /**
+     * Sort a small range directly, or choose a pivot and start partitioning the range.
+     */
+    private int[] startRange() {
+        int size = end - begin;
+        
+        if (size < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                insertionSort(begin, end);
+            } else {
+                unguardedInsertionSort(begin, end);
+            }
+            return new int[]{begin, end - 1};
+        }
+        
+        // Move the pivot to array[begin]
+        int half = size / 2;
+        if (size > NINTHER_THRESHOLD) {
+            sort3(begin, begin + half, end - 1);
+            sort3(begin + 1, begin + (half - 1), end - 2);
+            sort3(begin + 2, begin + (half + 1), end - 3);
+            sort3(begin + (half - 1), begin + half, begin + (half + 1));
+            swap(begin, begin + half);
+        } else {
+            sort3(begin + half, begin, end - 1);
+        }
+        
+        // The element before a non-leftmost range is the pivot of an enclosing partition and no greater
+        // than any element of the range. If it equals our pivot, put all copies of it on the left;
+        // they are already in their final place and only the greater elements need sorting.
+        if (!leftmost && !less(array[begin - 1], array[begin])) {
+            int pivotPos = partitionLeft();
+            equalPartitions++;
+            if (end - (pivotPos + 1) > 1) {
+                pushRange(pivotPos + 1, end, badAllowed, false);
+            }
+            return new int[]{begin, pivotPos};
+        }
+        
+        return startPartitionRight();
+    }
+    
+    /**
+     * Find the first pair of misplaced elements. If there is none the range is already partitioned,
+     * otherwise swap them and continue block by block.
+     */
+    private int[] startPartitionRight() {
+        pivot = array[begin];
+        first = begin;
+        last = end;
+        
+        // The pivot selection guarantees an element >= pivot, so this scan stops inside the range
+        do {
+            first++;
+            comparisons++;
+        } while (array[first] < pivot);
+        
+        // Without an element < pivot before first, the scan from the right has to be bounded
+        if (first - 1 == begin) {
+            while (first < last) {
+                last--;
+                comparisons++;
+                if (array[last] < pivot) {
+                    break;
+                }
+            }
+        } else {
+            do {
+                last--;
+                comparisons++;
+            } while (array[last] >= pivot);
+        }
+        
+        if (first >= last) {
+            int pivotPos = finishPartition(true);
+            return new int[]{begin, pivotPos, end - 1};
+        }
+        
+        swap(first, last);
+        first++;
+        numLeft = 0;
+        numRight = 0;
+        startLeft = 0;
+        startRight = 0;
+        phase = Phase.BLOCK_PARTITION;
+        
+        return new int[]{begin, first - 1, last};
+    }
+    
+    /**
+     * Partition one block from each side, or the remaining elements once fewer than two blocks are left.
+     */
+    private int[] partitionBlockStep() {
+        if (last - first > 2 * BLOCK_SIZE) {
+            int[] highlights = {first, first + BLOCK_SIZE - 1, last - BLOCK_SIZE, last - 1};
+            
+            // Offsets of the elements that belong on the other side, recorded without branching
+            if (numLeft == 0) {
+                startLeft = 0;
+                fillLeftOffsets(BLOCK_SIZE);
+            }
+            if (numRight == 0) {
+                startRight = 0;
+                fillRightOffsets(BLOCK_SIZE);
+            }
+            
+            int num = Math.min(numLeft, numRight);
+            swapOffsets(num);
+            
+            // Move past the blocks that are now fully on the correct side
+            if (numLeft == 0) {
+                first += BLOCK_SIZE;
+            }
+            if (numRight == 0) {
+                last -= BLOCK_SIZE;
+            }
+            blocks++;
+            
+            return highlights;
+        }
+        
+        // Split the remaining unknown elements between the two sides; a pending block keeps its full size
+        int unknown = (last - first) - ((numRight != 0 || numLeft != 0) ? BLOCK_SIZE : 0);
+        int leftSize;
+        int rightSize;
+        if (numRight != 0) {
+            leftSize = unknown;
+            rightSize = BLOCK_SIZE;
+        } else if (numLeft != 0) {
+            leftSize = BLOCK_SIZE;
+            rightSize = unknown;
+        } else {
+            leftSize = unknown / 2;
+            rightSize = unknown - leftSize;
+        }
+        
+        if (unknown != 0 && numLeft == 0) {
+            startLeft = 0;
+            fillLeftOffsets(leftSize);
+        }
+        if (unknown != 0 && numRight == 0) {
+            startRight = 0;
+            fillRightOffsets(rightSize);
+        }
+        
+        int num = Math.min(numLeft, numRight);
+        swapOffsets(num);
+        
+        if (numLeft == 0) {
+            first += leftSize;
+        }
+        if (numRight == 0) {
+            last -= rightSize;
+        }
+        
+        // At most one side still has misplaced elements; move them next to the boundary
+        if (numLeft != 0) {
+            while (numLeft > 0) {
+                numLeft--;
+                swap(first + offsetsLeft[startLeft + numLeft], --last);
+            }
+            first = last;
+        }
+        if (numRight != 0) {
+            while (numRight > 0) {
+                numRight--;
+                swap(last - offsetsRight[startRight + numRight], first);
+                first++;
+            }
+        }
+        
+        phase = Phase.IDLE;
+        int pivotPos = finishPartition(false);
+        
+        return new int[]{begin, pivotPos, end - 1};
+    }
+    
+    private void fillLeftOffsets(int size) {
+        int[] a = array;
+        int base = first;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            offsetsLeft[count] = i;
+            count += a[base + i] < pivot ? 0 : 1;
+        }
+        numLeft = count;
+        comparisons += size;
+    }
+    
+    private void fillRightOffsets(int size) {
+        int[] a = array;
+        int base = last;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            offsetsRight[count] = i + 1;
+            count += a[base - (i + 1)] < pivot ? 1 : 0;
+        }
+        numRight = count;
+        comparisons += size;
+    }
+    
+    /**
+     * Swap the first num misplaced elements of the left block with those of the right block.
+     */
+    private void swapOffsets(int num) {
+        for (int i = 0; i < num; i++) {
+            swap(first + offsetsLeft[startLeft + i], last - offsetsRight[startRight + i]);
+        }
+        numLeft -= num;
+        numRight -= num;
+        startLeft += num;
+        startRight += num;
+    }
+    
+    /**
+     * Put the pivot between the two sides and decide how the sides are sorted.
+     *
+     * @param alreadyPartitioned Whether the range needed no swaps to be partitioned
+     * @return The final position of the pivot
+     */
+    private int finishPartition(boolean alreadyPartitioned) {
+        int pivotPos = first - 1;
+        array[begin] = array[pivotPos];
+        array[pivotPos] = pivot;
+        swaps++;
+        
+        int size = end - begin;
+        int leftSize = pivotPos - begin;
+        int rightSize = end - (pivotPos + 1);
+        
+        if (leftSize < size / 8 || rightSize < size / 8) {
+            // Too many bad partitions: guarantee O(n log n) with heapsort
+            if (--badAllowed == 0) {
+                heapSort(begin, end);
+                heapsortFallbacks++;
+                return pivotPos;
+            }
+            breakPatterns(pivotPos, leftSize, rightSize);
+        } else if (alreadyPartitioned
+                && partialInsertionSort(begin, pivotPos)
+                && partialInsertionSort(pivotPos + 1, end)) {
+            // Both sides were (nearly) sorted already
+            presortedPartitions++;
+            return pivotPos;
+        }
+        
+        // Push the larger side first, so the smaller one is sorted first and the stack stays O(log n)
+        if (leftSize > rightSize) {
+            pushSide(begin, pivotPos, leftmost);
+            pushSide(pivotPos + 1, end, false);
+        } else {
+            pushSide(pivotPos + 1, end, false);
+            pushSide(begin, pivotPos, leftmost);
+        }
+        
+        return pivotPos;
+    }
+    
+    private void pushSide(int begin, int end, boolean leftmost) {
+        if (end - begin > 1) {
+            pushRange(begin, end, badAllowed, leftmost);
+        }
+    }
+    
+    /**
+     * Swap a few elements at fixed positions of both sides so that patterns that caused
+     * an unbalanced partition are unlikely to repeat.
+     */
+    private void breakPatterns(int pivotPos, int leftSize, int rightSize) {
+        patternBreaks++;
+        
+        if (leftSize >= INSERTION_SORT_THRESHOLD) {
+            int quarter = leftSize / 4;
+            swap(begin, begin + quarter);
+            swap(pivotPos - 1, pivotPos - quarter);
+            if (leftSize > NINTHER_THRESHOLD) {
+                swap(begin + 1, begin + (quarter + 1));
+                swap(begin + 2, begin + (quarter + 2));
+                swap(pivotPos - 2, pivotPos - (quarter + 1));
+                swap(pivotPos - 3, pivotPos - (quarter + 2));
+            }
+        }
+        
+        if (rightSize >= INSERTION_SORT_THRESHOLD) {
+            int quarter = rightSize / 4;
+            swap(pivotPos + 1, pivotPos + (1 + quarter));
+            swap(end - 1, end - quarter);
+            if (rightSize > NINTHER_THRESHOLD) {
+                swap(pivotPos + 2, pivotPos + (2 + quarter));
+                swap(pivotPos + 3, pivotPos + (3 + quarter));
+                swap(end - 2, end - (1 + quarter));
+                swap(end - 3, end - (2 + quarter));
+            }
+        }
+    }
+    
+    /**
+     * Partition with the elements equal to the pivot on the left side.
+     *
+     * @return The final position of the pivot
+     */
+    private int partitionLeft() {
+        int pivot = array[begin];
+        int first = begin;
+        int last = end;
+        
+        do {
+            last--;
+            comparisons++;
+        } while (pivot < array[last]);
+        
+        if (last + 1 == end) {
+            while (first < last) {
+                first++;
+                comparisons++;
+                if (pivot < array[first]) {
+                    break;
+                }
+            }
+        } else {
+            do {
+                first++;
+                comparisons++;
+            } while (pivot >= array[first]);
+        }
+        
+        while (first < last) {
+            swap(first, last);
+            do {
+                last--;
+                comparisons++;
+            } while (pivot < array[last]);
+            do {
+                first++;
+                comparisons++;
+            } while (pivot >= array[first]);
+        }
+        
+        array[begin] = array[last];
+        array[last] = pivot;
+        swaps++;
+        
+        return last;
+    }
+    
+    private void insertionSort(int begin, int end) {
+        for (int i = begin + 1; i < end; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            while (j >= begin && less(key, array[j])) {
+                array[j + 1] = array[j];
+                swaps++;
+                j--;
+            }
+            
+            array[j + 1] = key;
+        }
+    }
+    
+    /**
+     * Insertion sort that relies on array[begin - 1] being no greater than any element of the range,
+     * so the inner loop needs no bounds check.
+     */
+    private void unguardedInsertionSort(int begin, int end) {
+        for (int i = begin + 1; i < end; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            while (less(key, array[j])) {
+                array[j + 1] = array[j];
+                swaps++;
+                j--;
+            }
+            
+            array[j + 1] = key;
+        }
+    }
+    
+    /**
+     * Insertion sort that gives up once it has moved more than PARTIAL_INSERTION_SORT_LIMIT elements.
+     *
+     * @return true if the range is now sorted
+     */
+    private boolean partialInsertionSort(int begin, int end) {
+        int moved = 0;
+        
+        for (int i = begin + 1; i < end; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            while (j >= begin && less(key, array[j])) {
+                array[j + 1] = array[j];
+                swaps++;
+                j--;
+            }
+            
+            array[j + 1] = key;
+            moved += i - (j + 1);
+            if (moved > PARTIAL_INSERTION_SORT_LIMIT) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    private void heapSort(int begin, int end) {
+        int size = end - begin;
+        
+        for (int root = size / 2 - 1; root >= 0; root--) {
+            siftDown(begin, root, size);
+        }
+        
+        for (int last = size - 1; last > 0; last--) {
+            swap(begin, begin + last);
+            siftDown(begin, 0, last);
+        }
+    }
+    
+    /**
+     * Restore the max-heap property below root for the heap stored in array[begin..begin+size-1].
+     */
+    private void siftDown(int begin, int root, int size) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                return;
+            }
+            
+            if (child + 1 < size && less(array[begin + child], array[begin + child + 1])) {
+                child++;
+            }
+            
+            if (!less(array[begin + root], array[begin + child])) {
+                return;
+            }
+            
+            swap(begin + root, begin + child);
+            root = child;
+        }
+    }
+    
+    /**
+     * Sort the elements at positions a, b and c.
+     */
+    private void sort3(int a, int b, int c) {
+        sort2(a, b);
+        sort2(b, c);
+        sort2(a, b);
+    }
+    
+    private void sort2(int a, int b) {
+        if (less(array[b], array[a])) {
+            swap(a, b);
+        }
+    }
+    
+    private boolean less(int a, int b) {
+        comparisons++;
+        return a < b;
+    }
+    
+    private void swap(int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+        swaps++;
+    }
+    
+    private Map<String, Object> buildMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("blocks", blocks);
+        metrics.put("equalPartitions", equalPartitions);
+        metrics.put("presortedPartitions", presortedPartitions);
+        metrics.put("patternBreaks", patternBreaks);
+        metrics.put("heapsortFallbacks", heapsortFallbacks);
+        return metrics;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Pattern-defeating Quicksort (pdqsort) is a quicksort that partitions in blocks of 64 elements, " +
+               "recording the misplaced elements of a block in a buffer before swapping them. It recognizes " +
+               "ranges that are already partitioned and finishes them with a short insertion sort, groups " +
+               "elements equal to a previous pivot so that duplicates cost little, breaks up patterns that " +
+               "cause bad pivots, and falls back to heapsort so the worst case stays O(n log n).";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(log n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public int getSwaps() {
+        return swaps;
+    }
+}
@@ -0,0 +1,29 @@
+package com.sortalgo.algorithm;
+
+/**
+ * Strategies for choosing the pivot of a Quick Sort partition.
+ */
+public enum PivotStrategy {
+    
+    /**
+     * The last element of the range (classic Lomuto scheme). Quadratic on sorted and reversed input
+     * unless the depth limit kicks in.
+     */
+    LAST,
+    
+    /**
+     * The median of the first, middle and last elements of the range.
+     */
+    MEDIAN_OF_THREE,
+    
+    /**
+     * Tukey's ninther: the median of three medians of three, taken from nine evenly spaced elements.
+     * Small ranges fall back to median-of-three.
+     */
+    NINTHER,
+    
+    /**
+     * A uniformly random element of the range.
+     */
+    RANDOM
+}
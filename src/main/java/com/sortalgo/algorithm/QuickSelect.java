@@ -0,0 +1,141 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.ReusableSortingEvent;
+import com.sortalgo.model.SortingEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visualization of selection with the partitioning of {@link QuickSort} (introselect).
+ *
+ * In SELECT mode the element of one rank, given as a fraction of the array (0.5 for the median),
+ * is moved to its sorted position; in PARTIAL_SORT mode the given fraction of smallest elements is
+ * sorted at the front of the array. After each partition only the sides that overlap these
+ * positions are partitioned further and the others are left as they are, so the steps show the
+ * search narrowing down on the relevant side. Like {@link QuickSort}, deep partitions fall back to
+ * heapsort, which bounds the worst case.
+ */
+public class QuickSelect extends QuickSort {
+    
+    /**
+     * What the selection produces.
+     */
+    public enum Mode {
+        /** The element of the requested rank at its sorted position (nth_element) */
+        SELECT,
+        /** The requested number of smallest elements in sorted order at the front */
+        PARTIAL_SORT
+    }
+    
+    private final Mode mode;
+    private final double fraction;
+    
+    private int k;
+    
+    /**
+     * Create a selection of the median.
+     */
+    public QuickSelect() {
+        this(Mode.SELECT, 0.5);
+    }
+    
+    /**
+     * Create a selection with a ninther pivot and the default insertion cutoff.
+     *
+     * @param mode What the selection produces
+     * @param fraction In SELECT mode the rank to select, in PARTIAL_SORT mode the number of
+     *                 elements to sort, as a fraction of the array length between 0 and 1
+     */
+    public QuickSelect(Mode mode, double fraction) {
+        super(PivotStrategy.NINTHER);
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must not be null");
+        }
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1, was " + fraction);
+        }
+        this.mode = mode;
+        this.fraction = fraction;
+    }
+    
+    @Override
+    public void init(int[] array) {
+        int n = array.length;
+        this.k = mode == Mode.SELECT ? (int) (fraction * Math.max(0, n - 1)) : (int) Math.round(fraction * n);
+        super.init(array);
+    }
+    
+    @Override
+    int neededFrom(int n) {
+        return mode == Mode.SELECT ? k : 0;
+    }
+    
+    @Override
+    int neededTo(int n) {
+        return mode == Mode.SELECT ? k + 1 : k;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        SortingEvent event = super.sort();
+        return new SortingEvent(event.getCurrentArray(), event.getHighlightIndices(), event.getComparisons(),
+                event.getSwaps(), event.getExecutionTime(), buildMetrics(event.getCurrentArray()));
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
+        return super.step(event).metrics(buildMetrics(event.getCurrentArray()));
+    }
+    
+    private Map<String, Object> buildMetrics(int[] array) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", mode);
+        metrics.put("k", k);
+        if (isSortingComplete() && mode == Mode.SELECT && k < array.length) {
+            metrics.put("selected", array[k]);
+        }
+        return metrics;
+    }
+    
+    public Mode getMode() {
+        return mode;
+    }
+    
+    /**
+     * The rank selected (SELECT mode) or the number of elements sorted (PARTIAL_SORT mode) by the
+     * last call to init.
+     */
+    public int getK() {
+        return k;
+    }
+    
+    @Override
+    public String getDescription() {
+        if (mode == Mode.SELECT) {
+            return "Quick Select finds the element of a given rank, such as the median, with the partitioning " +
+                   "of Quick Sort. After each partition the pivot is in its sorted position, and only the side " +
+                   "containing the wanted rank is partitioned further; the other side is already on the correct " +
+                   "side of the answer and never looked at again. On average the ranges shrink geometrically, " +
+                   "so the whole search takes linear time.";
+        }
+        return "Partial Quick Sort sorts only the smallest elements of an array with the partitioning of " +
+               "Quick Sort. After each partition, sides that lie entirely beyond the wanted prefix are left " +
+               "unsorted, so only the front of the array is sorted completely.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return mode == Mode.SELECT ? "O(n)" : "O(n + k log k)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return mode == Mode.SELECT ? "O(n)" : "O(n + k log k)";
+    }
+}
@@ -1,13 +1,40 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
-import java.util.Stack;
+import com.sortalgo.util.IntStack;
+import java.util.Objects;
+import java.util.Random;
 
 /**
  * Implementation of Quick Sort algorithm using an iterative approach for step-by-step visualization.
+ *
+ * The pivot is chosen with a configurable {@link PivotStrategy}. Like introsort, partitions at or
+ * below the insertion cutoff are finished with insertion sort, and partitions nested deeper than
+ * 2·log2(n) are finished with heapsort, which bounds the worst case to O(n log n).
+ * The step-by-step mode follows exactly the same decisions as sort().
+ *
+ * The same partitioning also implements selection: {@link #select} and {@link #partialSort} only
+ * continue into the ranges that overlap the positions whose final values are needed (introselect),
+ * which takes O(n) expected time instead of O(n log n).
  */
 public class QuickSort implements SortingAlgorithm {
     
+    public static final int DEFAULT_INSERTION_CUTOFF = 16;
+    
+    // Ranges smaller than this use median-of-three instead of the ninther
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    // Phases of the step-by-step state machine
+    private enum Phase {
+        IDLE, PARTITIONING, PLACING_PIVOT, INSERTION_SORT, HEAP_BUILD, HEAP_EXTRACT
+    }
+    
+    private final PivotStrategy pivotStrategy;
+    private final int insertionCutoff;
+    private final Random random = new Random();
+    
     private int[] array;
     private int n;
     private int comparisons;
@@ -16,12 +43,57 @@ public class QuickSort implements SortingAlgorithm {
     private boolean isComplete;
     
     // For step-by-step execution
-    private Stack<Integer> stack;
+    private IntStack stack;
+    private Phase phase;
     private int low;
     private int high;
+    private int depth;
     private int partitionIndex;
-    private boolean findingPivot;
-    private boolean partitioning;
+    private int cursor;
+    
+    // Positions [neededFrom, neededTo) that steps and sort() must sort; ranges outside them are left alone
+    private int neededFrom;
+    private int neededTo;
+    
+    // Receives the operations of steps; quickSort() suspends it, see setOperationLog()
+    private OperationLog log;
+    
+    // Runs select() and partialSort() with counters of its own, so they leave a run of steps alone
+    private QuickSort selector;
+    
+    /**
+     * Create a classic Quick Sort that uses the last element as pivot and no insertion cutoff.
+     */
+    public QuickSort() {
+        this(PivotStrategy.LAST, 0);
+    }
+    
+    /**
+     * Create a Quick Sort with the given pivot strategy and the default insertion cutoff.
+     *
+     * @param pivotStrategy How the pivot of each partition is chosen
+     */
+    public QuickSort(PivotStrategy pivotStrategy) {
+        this(pivotStrategy, DEFAULT_INSERTION_CUTOFF);
+    }
+    
+    /**
+     * Create a Quick Sort with explicit tuning parameters.
+     *
+     * @param pivotStrategy How the pivot of each partition is chosen
+     * @param insertionCutoff Partitions with at most this many elements are sorted by insertion sort
+     *                        (0 disables the cutoff)
+     */
+    public QuickSort(PivotStrategy pivotStrategy, int insertionCutoff) {
+        if (pivotStrategy == null) {
+            throw new IllegalArgumentException("pivotStrategy must not be null");
+        }
+        if (insertionCutoff < 0) {
+            throw new IllegalArgumentException("insertionCutoff must not be negative");
+        }
+        this.pivotStrategy = pivotStrategy;
+        this.insertionCutoff = insertionCutoff;
+    }
     
     @Override
     public void init(int[] array) {
@@ -31,20 +103,135 @@ public class QuickSort implements SortingAlgorithm {
         this.swaps = 0;
         this.startTime = System.currentTimeMillis();
         this.isComplete = n <= 1; // Already sorted if array size <= 1
+        this.neededFrom = neededFrom(n);
+        this.neededTo = neededTo(n);
         
         // Initialize step-by-step state
-        this.stack = new Stack<>();
+        this.stack = new IntStack();
         if (n > 1) {
             stack.push(0);
             stack.push(n - 1);
+            stack.push(depthLimit(n));
         }
-        this.findingPivot = false;
-        this.partitioning = false;
+        this.phase = Phase.IDLE;
+    }
+    
+    /**
+     * First position of an array of length n whose sorted value is needed; all of them by default.
+     */
+    int neededFrom(int n) {
+        return 0;
+    }
+    
+    /**
+     * End (exclusive) of the positions of an array of length n whose sorted values are needed.
+     */
+    int neededTo(int n) {
+        return n;
+    }
+    
+    /**
+     * Rearrange an array in place so that array[k] holds the value it would have after sorting,
+     * with no greater value before it and no smaller value after it (nth_element). Only the side
+     * of each partition that contains k is processed further. The comparisons and swaps are
+     * available from getSelectionComparisons() and getSelectionSwaps() afterwards.
+     *
+     * @param array The array to rearrange
+     * @param k The rank to select, from 0 (the minimum) to array.length - 1 (the maximum)
+     * @return The value of rank k
+     */
+    public int select(int[] array, int k) {
+        return select(array, 0, array.length, k);
+    }
+    
+    /**
+     * Rearrange array[from..to) in place so that array[k] holds the value it would have after
+     * sorting the range, with no greater value before it and no smaller value after it.
+     *
+     * @param array The array to rearrange
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     * @param k The index to select, from from to to - 1
+     * @return The value selected
+     */
+    public int select(int[] array, int from, int to, int k) {
+        Objects.checkFromToIndex(from, to, array.length);
+        if (k < from || k >= to) {
+            throw new IllegalArgumentException("k must be between " + from + " and " + (to - 1) + ", was " + k);
+        }
+        sortNeeded(array, from, to, k, k + 1);
+        return array[k];
+    }
+    
+    /**
+     * Rearrange an array in place so that array[0..k) holds its k smallest values in sorted order;
+     * the other values follow in no particular order. Ranges entirely at or after position k are
+     * not processed further. The comparisons and swaps are available from getSelectionComparisons()
+     * and getSelectionSwaps() afterwards.
+     *
+     * @param array The array to rearrange
+     * @param k Number of smallest values to sort, from 0 to array.length
+     */
+    public void partialSort(int[] array, int k) {
+        if (k < 0 || k > array.length) {
+            throw new IllegalArgumentException("k must be between 0 and " + array.length + ", was " + k);
+        }
+        sortNeeded(array, 0, array.length, 0, k);
+    }
+    
+    /**
+     * Sort the positions [neededFrom, neededTo) of arr[from..to) on the selector, which has no
+     * operation log and counts on its own.
+     */
+    private void sortNeeded(int[] arr, int from, int to, int neededFrom, int neededTo) {
+        if (selector == null) {
+            selector = new QuickSort(pivotStrategy, insertionCutoff);
+        }
+        selector.comparisons = 0;
+        selector.swaps = 0;
+        if (to - from > 1 && neededFrom < neededTo) {
+            selector.quickSort(arr, from, to - 1, neededFrom, neededTo);
+        }
+    }
+    
+    /**
+     * Comparisons made by the last select() or partialSort().
+     */
+    public int getSelectionComparisons() {
+        return selector == null ? 0 : selector.comparisons;
+    }
+    
+    /**
+     * Swaps made by the last select() or partialSort().
+     */
+    public int getSelectionSwaps() {
+        return selector == null ? 0 : selector.swaps;
+    }
+    
+    /**
+     * Push a range for further partitioning if it has at least two elements and overlaps the
+     * needed positions [neededFrom, neededTo).
+     */
+    private static void pushRange(IntStack stack, int low, int high, int depth, int neededFrom, int neededTo) {
+        if (low < high && low < neededTo && high >= neededFrom) {
+            stack.push(low);
+            stack.push(high);
+            stack.push(depth);
+        }
+    }
+    
+    /**
+     * Maximum partition depth before switching to heapsort: 2·floor(log2(size)).
+     */
+    private static int depthLimit(int size) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(size));
     }
     
     @Override
     public SortingEvent sort() {
-        quickSort(array, 0, n - 1);
+        if (n > 1) {
+            quickSort(array, 0, n - 1, neededFrom, neededTo);
+        }
         
         isComplete = true;
         long executionTime = System.currentTimeMillis() - startTime;
@@ -52,39 +239,118 @@ public class QuickSort implements SortingAlgorithm {
         return new SortingEvent(array, new int[0], comparisons, swaps, executionTime);
     }
     
-    private void quickSort(int[] arr, int low, int high) {
-        // Create an auxiliary stack
-        Stack<Integer> stack = new Stack<>();
+    /**
+     * Sort the positions [neededFrom, neededTo) of arr[low..high]. The bounds are parameters, so
+     * select() and partialSort() leave those of the steps alone.
+     */
+    private void quickSort(int[] arr, int low, int high, int neededFrom, int neededTo) {
+        // Only steps are recorded; sort() shares the helpers below
+        OperationLog stepLog = log;
+        log = null;
+        
+        // Create an auxiliary stack of (low, high, remaining depth) triples
+        IntStack stack = new IntStack();
         
         // Push initial values to stack
         stack.push(low);
         stack.push(high);
+        stack.push(depthLimit(high - low + 1));
         
         // Keep popping elements until stack is empty
         while (!stack.isEmpty()) {
-            // Pop high and low
+            // Pop depth, high and low
+            int depth = stack.pop();
             high = stack.pop();
             low = stack.pop();
             
+            // Small partitions are cheaper to finish with insertion sort
+            if (high - low + 1 <= insertionCutoff) {
+                insertionSort(arr, low, high);
+                continue;
+            }
+            
+            // Too many unbalanced partitions: guarantee O(n log n) with heapsort
+            if (depth == 0) {
+                heapSort(arr, low, high);
+                continue;
+            }
+            
             // Partition the array and get pivot index
+            movePivotToEnd(arr, low, high);
             int pivotIndex = partition(arr, low, high);
             
-            // If there are elements on the left side of pivot, push them to stack
-            if (pivotIndex - 1 > low) {
-                stack.push(low);
-                stack.push(pivotIndex - 1);
+            // Push the sides of the pivot that still need sorting
+            pushRange(stack, low, pivotIndex - 1, depth - 1, neededFrom, neededTo);
+            pushRange(stack, pivotIndex + 1, high, depth - 1, neededFrom, neededTo);
+        }
+        
+        log = stepLog;
+    }
+    
+    /**
+     * Choose the pivot of arr[low..high] according to the strategy and swap it into arr[high],
+     * where the Lomuto partition expects it.
+     */
+    private void movePivotToEnd(int[] arr, int low, int high) {
+        int pivotIndex = choosePivot(arr, low, high);
+        if (pivotIndex != high) {
+            swap(arr, pivotIndex, high);
+        }
+    }
+    
+    private int choosePivot(int[] arr, int low, int high) {
+        int size = high - low + 1;
+        int mid = low + (high - low) / 2;
+        
+        switch (pivotStrategy) {
+            case MEDIAN_OF_THREE:
+                return medianOfThree(arr, low, mid, high);
+            case NINTHER:
+                if (size < NINTHER_THRESHOLD) {
+                    return medianOfThree(arr, low, mid, high);
+                }
+                int step = size / 8;
+                int first = medianOfThree(arr, low, low + step, low + 2 * step);
+                int middle = medianOfThree(arr, mid - step, mid, mid + step);
+                int last = medianOfThree(arr, high - 2 * step, high - step, high);
+                return medianOfThree(arr, first, middle, last);
+            case RANDOM:
+                return low + random.nextInt(size);
+            case LAST:
+            default:
+                return high;
+        }
+    }
+    
+    /**
+     * Index of the median of arr[a], arr[b] and arr[c].
+     */
+    private int medianOfThree(int[] arr, int a, int b, int c) {
+        comparisons++;
+        logCompare(a, b);
+        if (arr[a] < arr[b]) {
+            comparisons++;
+            logCompare(b, c);
+            if (arr[b] < arr[c]) {
+                return b;
             }
-            
-            // If there are elements on the right side of pivot, push them to stack
-            if (pivotIndex + 1 < high) {
-                stack.push(pivotIndex + 1);
-                stack.push(high);
+            comparisons++;
+            logCompare(a, c);
+            return arr[a] < arr[c] ? c : a;
+        } else {
+            comparisons++;
+            logCompare(a, c);
+            if (arr[a] < arr[c]) {
+                return a;
             }
+            comparisons++;
+            logCompare(b, c);
+            return arr[b] < arr[c] ? c : b;
         }
     }
     
     private int partition(int[] arr, int low, int high) {
-        // Select the rightmost element as pivot
+        // The pivot has been moved to the rightmost position
         int pivot = arr[high];
         
         // Index of smaller element
@@ -115,100 +381,274 @@ public class QuickSort implements SortingAlgorithm {
         return i + 1;
     }
     
-    @Override
-    public SortingEvent step() {
-        if (isComplete) {
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+    private void insertionSort(int[] arr, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            insert(arr, low, i);
+        }
+    }
+    
+    /**
+     * Insert arr[i] into the sorted run arr[low..i-1].
+     *
+     * @return The final position of the inserted element
+     */
+    private int insert(int[] arr, int low, int i) {
+        int key = arr[i];
+        int j = i - 1;
+        
+        // Move elements that are greater than key to one position ahead
+        while (j >= low && arr[j] > key) {
+            comparisons++;
+            // The key is held outside the array; its place is the gap at j + 1
+            logCompare(j, j + 1);
+            arr[j + 1] = arr[j];
+            swaps++;
+            logWrite(j + 1, arr[j]);
+            j--;
+        }
+        
+        // If j >= low, we need one more comparison
+        if (j >= low) {
+            comparisons++;
+            logCompare(j, j + 1);
+        }
+        
+        arr[j + 1] = key;
+        logWrite(j + 1, key);
+        return j + 1;
+    }
+    
+    private void heapSort(int[] arr, int low, int high) {
+        int size = high - low + 1;
+        
+        // Build a max-heap over arr[low..high]
+        for (int root = size / 2 - 1; root >= 0; root--) {
+            siftDown(arr, low, root, size);
         }
         
-        // If we need to start a new partition operation
-        if (!findingPivot && !partitioning) {
-            if (stack.isEmpty()) {
-                isComplete = true;
-                return new SortingEvent(array, new int[0], comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+        // Repeatedly move the maximum behind the shrinking heap
+        for (int end = size - 1; end > 0; end--) {
+            swap(arr, low, low + end);
+            siftDown(arr, low, 0, end);
+        }
+    }
+    
+    /**
+     * Restore the max-heap property below root for the heap stored in arr[low..low+size-1].
+     */
+    private void siftDown(int[] arr, int low, int root, int size) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                return;
             }
             
-            // Pop high and low for the next partition
-            high = stack.pop();
-            low = stack.pop();
+            if (child + 1 < size) {
+                comparisons++;
+                logCompare(low + child + 1, low + child);
+                if (arr[low + child + 1] > arr[low + child]) {
+                    child++;
+                }
+            }
+            
+            comparisons++;
+            logCompare(low + root, low + child);
+            if (arr[low + root] >= arr[low + child]) {
+                return;
+            }
             
+            swap(arr, low + root, low + child);
+            root = child;
+        }
+    }
+    
+    private void swap(int[] arr, int i, int j) {
+        int temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+        swaps++;
+        if (log != null) {
+            log.swap(i, j);
+        }
+    }
+    
+    private void logCompare(int i, int j) {
+        if (log != null) {
+            log.compare(i, j);
+        }
+    }
+    
+    private void logWrite(int index, int value) {
+        if (log != null) {
+            log.write(index, value);
+        }
+    }
+    
+    @Override
+    public SortingEvent step() {
+        return step(new ReusableSortingEvent()).toSortingEvent();
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
+        if (isComplete) {
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
+        }
+        
+        switch (phase) {
+            case PARTITIONING:
+                return partitionStep(event);
+            case PLACING_PIVOT:
+                return placePivotStep(event);
+            case INSERTION_SORT:
+                return insertionStep(event);
+            case HEAP_BUILD:
+            case HEAP_EXTRACT:
+                return heapStep(event);
+            case IDLE:
+            default:
+                return startRangeStep(event);
+        }
+    }
+    
+    /**
+     * Pop the next range and decide how it will be processed, like one iteration of quickSort().
+     */
+    private ReusableSortingEvent startRangeStep(ReusableSortingEvent event) {
+        if (stack.isEmpty()) {
+            isComplete = true;
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
+        }
+        
+        // Pop depth, high and low for the next range
+        depth = stack.pop();
+        high = stack.pop();
+        low = stack.pop();
+        if (log != null) {
+            log.mark(low, high);
+        }
+        
+        if (high - low + 1 <= insertionCutoff) {
+            phase = Phase.INSERTION_SORT;
+            cursor = low + 1;
+        } else if (depth == 0) {
+            phase = Phase.HEAP_BUILD;
+            cursor = (high - low + 1) / 2 - 1;
+        } else {
             // Initialize partition operation
-            findingPivot = true;
-            partitioning = false;
+            movePivotToEnd(array, low, high);
+            phase = Phase.PARTITIONING;
             partitionIndex = low - 1;
-            
-            return new SortingEvent(array, new int[]{low, high}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            cursor = low;
         }
         
-        // Processing partition operation
-        if (findingPivot) {
-            int pivot = array[high];
-            int j = partitionIndex + 1;
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(low, high);
+    }
+    
+    private ReusableSortingEvent partitionStep(ReusableSortingEvent event) {
+        int pivot = array[high];
+        int j = cursor;
+        
+        // If we still have elements to compare with pivot
+        if (j < high) {
+            cursor++;
+            comparisons++;
+            logCompare(j, high);
             
-            // If we still have elements to compare with pivot
-            if (j < high) {
-                comparisons++;
-                
-                // If current element is smaller than or equal to pivot
-                if (array[j] <= pivot) {
-                    partitionIndex++;
-                    
-                    // Swap array[partitionIndex] and array[j]
-                    int temp = array[partitionIndex];
-                    array[partitionIndex] = array[j];
-                    array[j] = temp;
-                    swaps++;
-                }
-                
-                return new SortingEvent(array, new int[]{partitionIndex, j, high}, comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
-            } 
-            // Finished comparing all elements with pivot
-            else {
-                findingPivot = false;
-                partitioning = true;
+            // If current element is smaller than or equal to pivot
+            if (array[j] <= pivot) {
+                partitionIndex++;
                 
-                return new SortingEvent(array, new int[]{partitionIndex + 1, high}, comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                // Swap array[partitionIndex] and array[j]
+                swap(array, partitionIndex, j);
             }
+            
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(partitionIndex, j, high);
         }
         
-        // Completing the partition by placing the pivot in its correct position
-        if (partitioning) {
-            // Swap array[partitionIndex + 1] and array[high] (or pivot)
-            int temp = array[partitionIndex + 1];
-            array[partitionIndex + 1] = array[high];
-            array[high] = temp;
-            swaps++;
-            
-            int pivotIndex = partitionIndex + 1;
-            
-            // Push left subarray to stack if there are elements
-            if (pivotIndex - 1 > low) {
-                stack.push(low);
-                stack.push(pivotIndex - 1);
-            }
+        // Finished comparing all elements with pivot
+        phase = Phase.PLACING_PIVOT;
+        
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(partitionIndex + 1, high);
+    }
+    
+    /**
+     * Complete the partition by placing the pivot in its correct position.
+     */
+    private ReusableSortingEvent placePivotStep(ReusableSortingEvent event) {
+        // Swap array[partitionIndex + 1] and array[high] (or pivot)
+        swap(array, partitionIndex + 1, high);
+        
+        int pivotIndex = partitionIndex + 1;
+        
+        // Push the sides of the pivot that still need sorting
+        pushRange(stack, low, pivotIndex - 1, depth - 1, neededFrom, neededTo);
+        pushRange(stack, pivotIndex + 1, high, depth - 1, neededFrom, neededTo);
+        
+        // Reset for next partition operation
+        phase = Phase.IDLE;
+        
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(pivotIndex);
+    }
+    
+    /**
+     * Insert one element of a small range into its sorted prefix.
+     */
+    private ReusableSortingEvent insertionStep(ReusableSortingEvent event) {
+        int position = insert(array, low, cursor);
+        int inserted = cursor;
+        
+        cursor++;
+        if (cursor > high) {
+            phase = Phase.IDLE;
+        }
+        
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(position, inserted);
+    }
+    
+    /**
+     * Perform one sift-down of the heapsort fallback, either while building the heap
+     * or after moving the current maximum to the end of the range.
+     */
+    private ReusableSortingEvent heapStep(ReusableSortingEvent event) {
+        int size = high - low + 1;
+        
+        if (phase == Phase.HEAP_BUILD) {
+            siftDown(array, low, cursor, size);
+            int root = low + cursor;
             
-            // Push right subarray to stack if there are elements
-            if (pivotIndex + 1 < high) {
-                stack.push(pivotIndex + 1);
-                stack.push(high);
+            cursor--;
+            if (cursor < 0) {
+                phase = Phase.HEAP_EXTRACT;
+                cursor = size - 1;
             }
             
-            // Reset for next partition operation
-            findingPivot = false;
-            partitioning = false;
-            
-            return new SortingEvent(array, new int[]{pivotIndex}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(root, low, high);
+        }
+        
+        int end = low + cursor;
+        swap(array, low, end);
+        siftDown(array, low, 0, cursor);
+        
+        cursor--;
+        if (cursor <= 0) {
+            phase = Phase.IDLE;
         }
         
-        // This should not happen
-        return new SortingEvent(array, new int[0], comparisons, swaps, 
-                System.currentTimeMillis() - startTime);
+        return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                .highlight(low, end);
+    }
+    
+    @Override
+    public boolean setOperationLog(OperationLog log) {
+        this.log = log;
+        return true;
     }
     
     @Override
@@ -221,13 +661,14 @@ public class QuickSort implements SortingAlgorithm {
         return "Quick Sort is a divide-and-conquer algorithm that works by selecting a 'pivot' element " +
                "and partitioning the array around the pivot so that elements smaller than the pivot are on " +
                "the left and elements greater are on the right. The process is then repeated for the sub-arrays. " +
-               "Quick Sort is one of the most efficient sorting algorithms but can perform poorly with certain " +
-               "pivot selection strategies or already sorted arrays.";
+               "A simple pivot choice such as the last element performs poorly on already sorted arrays, so " +
+               "this version can use smarter pivot strategies, finishes small partitions with insertion sort " +
+               "and switches to heapsort when the recursion gets too deep (introsort).";
     }
     
     @Override
     public String getWorstCaseComplexity() {
-        return "O(n²)";
+        return "O(n log n)";
     }
     
     @Override
@@ -254,4 +695,12 @@ public class QuickSort implements SortingAlgorithm {
     public int getSwaps() {
         return swaps;
     }
+    
+    public PivotStrategy getPivotStrategy() {
+        return pivotStrategy;
+    }
+    
+    public int getInsertionCutoff() {
+        return insertionCutoff;
+    }
 }
@@ -0,0 +1,191 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+
+/**
+ * Implementation of LSD (least significant digit first) Radix Sort for the full signed int range.
+ *
+ * Each value is split into four 8-bit digits which are distributed with a stable counting pass,
+ * from the lowest digit to the highest. The sign bit is flipped when extracting digits so that
+ * negative numbers are ordered before positive ones. All four histograms are built in a single
+ * read of the input, passes whose digit is identical for every element are skipped, and the
+ * passes alternate between the array and one scratch buffer allocated in init().
+ */
+public class RadixSort implements SortingAlgorithm {
+    
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    private static final int PASSES = Integer.SIZE / DIGIT_BITS;
+    
+    // Memory used by the digit histograms of one sort
+    static final int HISTOGRAM_BYTES = PASSES * RADIX * Integer.BYTES;
+    
+    private int[] array;
+    private int[] buffer;
+    private int n;
+    private int comparisons;
+    private int swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // For step-by-step execution
+    private int[][] histograms;
+    private int pass;
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.buffer = new int[array.length];
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        this.histograms = null;
+        this.pass = 0;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            nextPass();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps, executionTime);
+    }
+    
+    @Override
+    public SortingEvent step() {
+        if (!isComplete) {
+            nextPass();
+        }
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps,
+                System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Run the next digit pass that actually moves elements, skipping passes
+     * in which every element has the same digit.
+     */
+    private void nextPass() {
+        if (histograms == null) {
+            histograms = buildHistograms(array);
+        }
+        
+        while (pass < PASSES) {
+            int shift = pass * DIGIT_BITS;
+            int[] count = histograms[pass];
+            pass++;
+            
+            if (count[digit(array[0], shift)] == n) {
+                continue;
+            }
+            
+            distribute(count, shift);
+            break;
+        }
+        
+        if (pass == PASSES) {
+            isComplete = true;
+        }
+    }
+    
+    /**
+     * Count the digits of every pass with a single read of the input.
+     */
+    private static int[][] buildHistograms(int[] arr) {
+        int[][] histograms = new int[PASSES][RADIX];
+        int[] count0 = histograms[0];
+        int[] count1 = histograms[1];
+        int[] count2 = histograms[2];
+        int[] count3 = histograms[3];
+        
+        for (int value : arr) {
+            int key = value ^ Integer.MIN_VALUE;
+            count0[key & DIGIT_MASK]++;
+            count1[(key >>> 8) & DIGIT_MASK]++;
+            count2[(key >>> 16) & DIGIT_MASK]++;
+            count3[key >>> 24]++;
+        }
+        
+        return histograms;
+    }
+    
+    /**
+     * Stable counting distribution of the array into the buffer on the digit at the given shift,
+     * after which the two arrays trade places.
+     */
+    private void distribute(int[] count, int shift) {
+        // Turn the counts into starting offsets
+        int offset = 0;
+        for (int d = 0; d < RADIX; d++) {
+            int c = count[d];
+            count[d] = offset;
+            offset += c;
+        }
+        
+        for (int i = 0; i < n; i++) {
+            int value = array[i];
+            buffer[count[digit(value, shift)]++] = value;
+        }
+        swaps += n;
+        
+        int[] temp = array;
+        array = buffer;
+        buffer = temp;
+    }
+    
+    /**
+     * Extract a digit, with the sign bit flipped so that negative values sort first.
+     */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Radix Sort does not compare elements. It splits every number into digits (here 8-bit digits, " +
+               "four per int) and, starting with the least significant digit, distributes the elements into " +
+               "256 buckets with a stable counting pass. After the last digit the array is sorted. Negative " +
+               "numbers are handled by flipping the sign bit, so the full int range is supported.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(d·(n + b))";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(d·(n + b))";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n + b)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public int getSwaps() {
+        return swaps;
+    }
+}
@@ -0,0 +1,463 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementation of parallel Sample Sort.
+ *
+ * A random sample of OVERSAMPLING elements per bucket is sorted and every OVERSAMPLING-th sample
+ * becomes a splitter. The splitters are stored as an implicit binary search tree, so each element is
+ * classified into its bucket with log2(buckets) comparisons and no unpredictable branches. Stripes of
+ * the array are classified concurrently into per-stripe histograms, distributed into a second buffer
+ * and then all buckets are sorted concurrently with {@link PdqSort}. The final event reports how
+ * evenly the elements were spread over the buckets.
+ *
+ * In step-by-step mode each phase is one step and every bucket is sorted in its own step.
+ */
+public class SampleSort implements SortingAlgorithm {
+    
+    // Samples taken per bucket; more samples give more even buckets
+    private static final int OVERSAMPLING = 32;
+    
+    // Buckets per thread, so that uneven buckets still keep every thread busy
+    private static final int BUCKETS_PER_THREAD = 4;
+    
+    // Bucket numbers are stored in a byte per element
+    private static final int MAX_BUCKETS = 256;
+    
+    // Buckets are not made smaller than this on average
+    private static final int MIN_BUCKET_LENGTH = 16;
+    
+    // Each parallel stripe has at least this many elements
+    private static final int MIN_STRIPE_LENGTH = 1 << 16;
+    
+    private final int parallelism;
+    private final Random random = new Random();
+    
+    private int[] array;
+    private int[] output;
+    private int n;
+    private long comparisons;
+    private long swaps;
+    private long startTime;
+    private boolean isComplete;
+    private int currentStep;
+    
+    // Splitters as an implicit search tree: the children of tree[i] are tree[2i] and tree[2i+1]
+    private int buckets;
+    private int levels;
+    private int[] tree;
+    private int sampleSize;
+    
+    // Bucket of every element, and per-stripe histograms turned into output positions
+    private byte[] oracle;
+    private int stripes;
+    private int[][] stripeCounts;
+    private int[] bucketStarts;
+    private int nextBucket;
+    private ForkJoinPool pool;
+    
+    // Threads that sorted the buckets: the pool's size when sort() ran them concurrently, 1 otherwise
+    private int bucketThreads;
+    
+    /**
+     * Create a sample sort using all available processors.
+     */
+    public SampleSort() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create a sample sort using up to {@code parallelism} threads on large arrays.
+     *
+     * @param parallelism Maximum number of worker threads
+     */
+    public SampleSort(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.output = null;
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        this.currentStep = 0;
+        
+        // A power of two between 1 and MAX_BUCKETS, keeping buckets at least MIN_BUCKET_LENGTH long
+        int wanted = (int) Math.min(MAX_BUCKETS, Math.min((long) parallelism * BUCKETS_PER_THREAD,
+                Math.max(1, n / MIN_BUCKET_LENGTH)));
+        this.buckets = Integer.highestOneBit(Math.max(1, wanted));
+        this.levels = Integer.numberOfTrailingZeros(buckets);
+        this.tree = new int[buckets];
+        this.sampleSize = 0;
+        
+        this.oracle = null;
+        this.stripes = Math.min(parallelism, Math.max(1, n / MIN_STRIPE_LENGTH));
+        this.stripeCounts = new int[stripes][];
+        this.bucketThreads = 1;
+        this.bucketStarts = new int[buckets + 1];
+        this.nextBucket = 0;
+        // A stepped sort that was abandoned still owns its pool
+        shutdownPool();
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        try {
+            while (!isComplete) {
+                if (currentStep == 3) {
+                    sortAllBuckets();
+                } else {
+                    nextStep();
+                }
+            }
+        } finally {
+            shutdownPool();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], getComparisons(), getSwaps(), executionTime, buildMetrics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        if (isComplete) {
+            return new SortingEvent(array, new int[0], getComparisons(), getSwaps(),
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        
+        int[] highlights = nextStep();
+        
+        // The step that completes the sort reports the metrics as well, like sort()
+        if (isComplete) {
+            shutdownPool();
+            return new SortingEvent(array, highlights, getComparisons(), getSwaps(),
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        return new SortingEvent(array, highlights, getComparisons(), getSwaps(),
+                System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Run the next phase: choosing splitters, classifying, distributing, or sorting one bucket.
+     *
+     * @return Indices to highlight for this step
+     */
+    private int[] nextStep() {
+        switch (currentStep) {
+            case 0:
+                chooseSplitters();
+                currentStep++;
+                return new int[0];
+            case 1:
+                classify();
+                currentStep++;
+                return new int[0];
+            case 2:
+                distribute();
+                currentStep++;
+                return bucketBoundaries();
+            default:
+                int bucket = nextBucket++;
+                int from = bucketStarts[bucket];
+                int to = bucketStarts[bucket + 1];
+                sortBucket(from, to);
+                if (nextBucket == buckets) {
+                    isComplete = true;
+                }
+                return to > from ? new int[]{from, to - 1} : new int[0];
+        }
+    }
+    
+    /**
+     * Sort a random sample and take every OVERSAMPLING-th element as a splitter.
+     */
+    private void chooseSplitters() {
+        if (buckets == 1) {
+            return;
+        }
+        
+        sampleSize = (int) Math.min(n, (long) OVERSAMPLING * buckets - 1);
+        int[] sample = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            sample[i] = array[random.nextInt(n)];
+        }
+        
+        PdqSort sampleSorter = new PdqSort();
+        sampleSorter.sortRange(sample, 0, sampleSize);
+        comparisons += sampleSorter.getComparisons();
+        
+        int[] splitters = new int[buckets - 1];
+        for (int i = 0; i < splitters.length; i++) {
+            splitters[i] = sample[(int) ((long) (i + 1) * sampleSize / buckets)];
+        }
+        buildTree(splitters, 1, 0, splitters.length);
+    }
+    
+    /**
+     * Store splitters[from..to) in the subtree rooted at the given node, in search tree order.
+     */
+    private void buildTree(int[] splitters, int node, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        tree[node] = splitters[mid];
+        buildTree(splitters, 2 * node, from, mid);
+        buildTree(splitters, 2 * node + 1, mid + 1, to);
+    }
+    
+    /**
+     * Find the bucket of every element and count the buckets of each stripe in its own histogram.
+     */
+    private void classify() {
+        oracle = new byte[n];
+        
+        runStripes(stripe -> {
+            int[] local = new int[buckets];
+            int[] a = array;
+            int[] t = tree;
+            for (int i = stripeStart(stripe), end = stripeStart(stripe + 1); i < end; i++) {
+                int value = a[i];
+                int j = 1;
+                for (int level = 0; level < levels; level++) {
+                    j = 2 * j + (value > t[j] ? 1 : 0);
+                }
+                int bucket = j - buckets;
+                oracle[i] = (byte) bucket;
+                local[bucket]++;
+            }
+            stripeCounts[stripe] = local;
+        });
+        comparisons += (long) n * levels;
+    }
+    
+    /**
+     * Turn the histograms into output positions and let every stripe copy its elements into place.
+     */
+    private void distribute() {
+        // Bucket-major prefix sum: stripe t writes bucket b after the earlier stripes' elements of b
+        int offset = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bucketStarts[bucket] = offset;
+            for (int[] local : stripeCounts) {
+                int c = local[bucket];
+                local[bucket] = offset;
+                offset += c;
+            }
+        }
+        bucketStarts[buckets] = offset;
+        
+        output = new int[n];
+        runStripes(stripe -> {
+            int[] next = stripeCounts[stripe];
+            for (int i = stripeStart(stripe), end = stripeStart(stripe + 1); i < end; i++) {
+                output[next[oracle[i] & 0xFF]++] = array[i];
+            }
+        });
+        swaps += n;
+        
+        // The distributed elements become the array (without copying)
+        array = output;
+        output = null;
+        oracle = null;
+        stripeCounts = null;
+    }
+    
+    private void sortBucket(int from, int to) {
+        PdqSort bucketSorter = new PdqSort();
+        bucketSorter.sortRange(array, from, to);
+        comparisons += bucketSorter.getComparisons();
+        swaps += bucketSorter.getSwaps();
+    }
+    
+    /**
+     * Sort the remaining buckets concurrently, largest first.
+     */
+    private void sortAllBuckets() {
+        List<Integer> order = new ArrayList<>();
+        for (int bucket = nextBucket; bucket < buckets; bucket++) {
+            order.add(bucket);
+        }
+        order.sort((a, b) -> Integer.compare(bucketLength(b), bucketLength(a)));
+        
+        long[] bucketComparisons = new long[buckets];
+        long[] bucketSwaps = new long[buckets];
+        List<Callable<Void>> tasks = new ArrayList<>(order.size());
+        for (int bucket : order) {
+            tasks.add(() -> {
+                PdqSort bucketSorter = new PdqSort();
+                bucketSorter.sortRange(array, bucketStarts[bucket], bucketStarts[bucket + 1]);
+                bucketComparisons[bucket] = bucketSorter.getComparisons();
+                bucketSwaps[bucket] = bucketSorter.getSwaps();
+                return null;
+            });
+        }
+        runAll(tasks);
+        bucketThreads = isParallel(tasks.size()) ? parallelism : 1;
+        
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            comparisons += bucketComparisons[bucket];
+            swaps += bucketSwaps[bucket];
+        }
+        nextBucket = buckets;
+        isComplete = true;
+    }
+    
+    private int bucketLength(int bucket) {
+        return bucketStarts[bucket + 1] - bucketStarts[bucket];
+    }
+    
+    private int[] bucketBoundaries() {
+        int[] boundaries = new int[buckets - 1];
+        for (int bucket = 1; bucket < buckets; bucket++) {
+            boundaries[bucket - 1] = Math.min(n - 1, bucketStarts[bucket]);
+        }
+        return boundaries;
+    }
+    
+    private int stripeStart(int stripe) {
+        return (int) ((long) n * stripe / stripes);
+    }
+    
+    /**
+     * Run the task once for every stripe, in parallel when there is more than one, and wait for all.
+     */
+    private void runStripes(IntConsumer task) {
+        List<Callable<Void>> tasks = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            final int id = stripe;
+            tasks.add(() -> {
+                task.accept(id);
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+    
+    private boolean isParallel(int tasks) {
+        return parallelism > 1 && tasks > 1 && n >= MIN_STRIPE_LENGTH;
+    }
+    
+    private void runAll(List<Callable<Void>> tasks) {
+        if (!isParallel(tasks.size())) {
+            try {
+                for (Callable<Void> task : tasks) {
+                    task.call();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Sample Sort worker failed", e);
+            }
+            return;
+        }
+        
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sample Sort was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sample Sort worker failed", e.getCause());
+        }
+    }
+    
+    private void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+    
+    /**
+     * Bucket load statistics: the imbalance is the largest bucket divided by the average bucket.
+     */
+    private Map<String, Object> buildMetrics() {
+        int largest = 0;
+        int smallest = n;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            largest = Math.max(largest, bucketLength(bucket));
+            smallest = Math.min(smallest, bucketLength(bucket));
+        }
+        double average = (double) n / buckets;
+        
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("buckets", buckets);
+        metrics.put("threads", bucketThreads);
+        metrics.put("sampleSize", sampleSize);
+        metrics.put("smallestBucket", smallest);
+        metrics.put("largestBucket", largest);
+        metrics.put("imbalance", n == 0 ? 1.0 : Math.round(largest / average * 100) / 100.0);
+        return metrics;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Sample Sort picks splitters from a sorted random sample of the array and uses them to " +
+               "divide the elements into buckets, so that every element of a bucket is smaller than the " +
+               "elements of the next one. Classifying and distributing the elements is done by several " +
+               "threads at once, and then the buckets are sorted independently and concurrently.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return (int) Math.min(Integer.MAX_VALUE, comparisons);
+    }
+    
+    @Override
+    public int getSwaps() {
+        return (int) Math.min(Integer.MAX_VALUE, swaps);
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+}
@@ -1,5 +1,7 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
 
 /**
@@ -16,6 +18,7 @@ public class SelectionSort implements SortingAlgorithm {
     private int swaps;
     private long startTime;
     private boolean isComplete;
+    private OperationLog log;
     
     @Override
     public void init(int[] array) {
@@ -60,23 +63,30 @@ public class SelectionSort implements SortingAlgorithm {
     
     @Override
     public SortingEvent step() {
+        return step(new ReusableSortingEvent()).toSortingEvent();
+    }
+    
+    @Override
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
         if (isComplete) {
-            return new SortingEvent(array, new int[0], comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
         }
         
         // Search for minimum element in unsorted part
         if (j < n) {
-            int[] highlightIndices = {i, j, minIndex};
+            int previousMin = minIndex;
             comparisons++;
+            if (log != null) {
+                log.compare(j, minIndex);
+            }
             
             if (array[j] < array[minIndex]) {
                 minIndex = j;
             }
             
             j++;
-            return new SortingEvent(array, highlightIndices, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(i, j - 1, previousMin);
         } 
         // Found minimum, perform swap and move to next position
         else {
@@ -86,6 +96,9 @@ public class SelectionSort implements SortingAlgorithm {
                 array[i] = array[minIndex];
                 array[minIndex] = temp;
                 swaps++;
+                if (log != null) {
+                    log.swap(i, minIndex);
+                }
             }
             
             // Move to next position
@@ -94,19 +107,24 @@ public class SelectionSort implements SortingAlgorithm {
             // Check if sorting is complete
             if (i >= n - 1) {
                 isComplete = true;
-                return new SortingEvent(array, new int[0], comparisons, swaps, 
-                        System.currentTimeMillis() - startTime);
+                return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime);
             }
             
             // Reset for next pass
             minIndex = i;
             j = i + 1;
             
-            return new SortingEvent(array, new int[]{i}, comparisons, swaps, 
-                    System.currentTimeMillis() - startTime);
+            return event.update(array, comparisons, swaps, System.currentTimeMillis() - startTime)
+                    .highlight(i);
         }
     }
     
+    @Override
+    public boolean setOperationLog(OperationLog log) {
+        this.log = log;
+        return true;
+    }
+    
     @Override
     public boolean isSortingComplete() {
         return isComplete;
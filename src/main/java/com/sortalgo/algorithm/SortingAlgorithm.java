@@ -1,5 +1,7 @@
 package com.sortalgo.algorithm;
 
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
 import com.sortalgo.model.SortingEvent;
 
 /**
@@ -29,6 +31,37 @@ public interface SortingAlgorithm {
      */
     SortingEvent step();
     
+    /**
+     * Execute a single step of the sorting algorithm, writing the state after the step into an
+     * event supplied by the caller instead of a new one. A loop that passes the same event to
+     * every step does not allocate, provided the algorithm overrides this method; the default
+     * implementation copies the event returned by step().
+     * 
+     * @param event The event to fill in
+     * @return The same event
+     */
+    default ReusableSortingEvent step(ReusableSortingEvent event) {
+        SortingEvent result = step();
+        return event.update(result.getCurrentArray(), result.getComparisons(), result.getSwaps(),
+                        result.getExecutionTime())
+                .highlight(result.getHighlightIndices())
+                .metrics(result.getMetrics());
+    }
+    
+    /**
+     * Attach a log that every following step appends its compares, swaps, writes and range marks
+     * to, so a consumer can follow the array by applying the operations of each step instead of
+     * copying the whole array (see {@link OperationLog}). sort() does not record; it only reports
+     * the final state. Passing null detaches the log. The log survives init().
+     * 
+     * @param log The log to append to, or null
+     * @return true if the algorithm records its operations, false if it does not support a log
+     *         and consumers must use the array of each event
+     */
+    default boolean setOperationLog(OperationLog log) {
+        return false;
+    }
+    
     /**
      * Check if the sorting is complete.
      * 
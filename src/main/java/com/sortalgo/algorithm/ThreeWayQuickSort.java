@@ -0,0 +1,355 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+import com.sortalgo.util.IntStack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implementation of Quick Sort with three-way (Bentley-McIlroy) partitioning.
+ *
+ * While scanning, elements equal to the pivot are swapped to the two ends of the range; at the end
+ * of the partition they are moved to the middle. The range is then split into "less", "equal" and
+ * "greater" parts and only the outer parts are sorted further, so inputs with few distinct keys take
+ * close to linear time instead of degrading like a two-way partition.
+ *
+ * In step-by-step mode every exchange of the partition is one step, highlighting the boundaries of
+ * the equal keys gathered on the left (lt) and on the right (gt) and the two scan positions.
+ */
+public class ThreeWayQuickSort implements SortingAlgorithm {
+    
+    // Ranges with at most this many elements are sorted with insertion sort
+    private static final int INSERTION_CUTOFF = 16;
+    
+    // Ranges smaller than this use median-of-three instead of the ninther
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    // Phases of the step-by-step state machine
+    private enum Phase {
+        IDLE, PARTITIONING, GATHERING_EQUALS
+    }
+    
+    private int[] array;
+    private int n;
+    private int comparisons;
+    private int swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // Pending ranges as (low, high) pairs
+    private IntStack stack;
+    private Phase phase;
+    
+    // Partition state: array[low..lt] and array[gt..high] are equal to the pivot,
+    // array[lt+1..i] are smaller and array[j..gt-1] are greater
+    private int low;
+    private int high;
+    private int pivot;
+    private int i;
+    private int j;
+    private int lt;
+    private int gt;
+    
+    // Statistics
+    private int partitions;
+    private long equalKeys;
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        
+        // Initialize step-by-step state
+        this.stack = new IntStack();
+        if (n > 1) {
+            stack.push(0);
+            stack.push(n - 1);
+        }
+        this.phase = Phase.IDLE;
+        this.partitions = 0;
+        this.equalKeys = 0;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            advance();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps, executionTime, buildMetrics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        if (isComplete) {
+            return new SortingEvent(array, new int[0], comparisons, swaps,
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        
+        int[] highlights = advance();
+        
+        // The step that completes the sort reports the metrics as well, like sort()
+        if (isComplete) {
+            return new SortingEvent(array, highlights, comparisons, swaps,
+                    System.currentTimeMillis() - startTime, buildMetrics());
+        }
+        return new SortingEvent(array, highlights, comparisons, swaps,
+                System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Perform the next unit of work: one exchange of the current partition, moving the equal keys
+     * to the middle, or the start of the next range.
+     *
+     * @return Indices to highlight for this unit of work
+     */
+    private int[] advance() {
+        switch (phase) {
+            case PARTITIONING:
+                return partitionStep();
+            case GATHERING_EQUALS:
+                return gatherEqualsStep();
+            case IDLE:
+            default:
+                return startRangeStep();
+        }
+    }
+    
+    /**
+     * Pop the next range and either sort it by insertion or choose its pivot.
+     */
+    private int[] startRangeStep() {
+        if (stack.isEmpty()) {
+            isComplete = true;
+            return new int[0];
+        }
+        
+        high = stack.pop();
+        low = stack.pop();
+        
+        if (high - low + 1 <= INSERTION_CUTOFF) {
+            insertionSort(low, high);
+            return new int[]{low, high};
+        }
+        
+        // Move the pivot to array[low]
+        int pivotIndex = choosePivot(low, high);
+        if (pivotIndex != low) {
+            swap(pivotIndex, low);
+        }
+        
+        pivot = array[low];
+        i = low;
+        j = high + 1;
+        lt = low;
+        gt = high + 1;
+        partitions++;
+        phase = Phase.PARTITIONING;
+        
+        return new int[]{low, high};
+    }
+    
+    /**
+     * Scan from both ends to the next pair of misplaced elements and exchange them. Elements equal
+     * to the pivot are moved to the left end (after lt) or to the right end (before gt).
+     */
+    private int[] partitionStep() {
+        // Stop at an element that is not smaller than the pivot
+        while (true) {
+            i++;
+            if (!less(array[i], pivot) || i == high) {
+                break;
+            }
+        }
+        
+        // Stop at an element that is not greater than the pivot
+        while (true) {
+            j--;
+            if (!less(pivot, array[j]) || j == low) {
+                break;
+            }
+        }
+        
+        // The scans met at a key equal to the pivot
+        if (i == j && equal(array[i], pivot)) {
+            swap(++lt, i);
+        }
+        
+        if (i >= j) {
+            phase = Phase.GATHERING_EQUALS;
+            return new int[]{lt, j, gt};
+        }
+        
+        swap(i, j);
+        if (equal(array[i], pivot)) {
+            swap(++lt, i);
+        }
+        if (equal(array[j], pivot)) {
+            swap(--gt, j);
+        }
+        
+        return new int[]{lt, i, j, gt};
+    }
+    
+    /**
+     * Swap the keys equal to the pivot from both ends into the middle, then push the
+     * "less" and "greater" parts; the "equal" part is already in its final place.
+     */
+    private int[] gatherEqualsStep() {
+        int right = j + 1;
+        int left = j;
+        
+        for (int k = low; k <= lt; k++) {
+            swap(k, left--);
+        }
+        for (int k = high; k >= gt; k--) {
+            swap(k, right++);
+        }
+        
+        // Now array[low..left] < pivot, array[left+1..right-1] == pivot and array[right..high] > pivot
+        equalKeys += right - left - 1;
+        
+        // Push the larger part first, so the smaller one is sorted first and the stack stays O(log n)
+        if (left - low > high - right) {
+            pushRange(low, left);
+            pushRange(right, high);
+        } else {
+            pushRange(right, high);
+            pushRange(low, left);
+        }
+        
+        phase = Phase.IDLE;
+        
+        return new int[]{left + 1, right - 1};
+    }
+    
+    private void pushRange(int low, int high) {
+        if (low < high) {
+            stack.push(low);
+            stack.push(high);
+        }
+    }
+    
+    private int choosePivot(int low, int high) {
+        int size = high - low + 1;
+        int mid = low + (high - low) / 2;
+        
+        if (size < NINTHER_THRESHOLD) {
+            return medianOfThree(low, mid, high);
+        }
+        
+        int step = size / 8;
+        int first = medianOfThree(low, low + step, low + 2 * step);
+        int middle = medianOfThree(mid - step, mid, mid + step);
+        int last = medianOfThree(high - 2 * step, high - step, high);
+        return medianOfThree(first, middle, last);
+    }
+    
+    /**
+     * Index of the median of array[a], array[b] and array[c].
+     */
+    private int medianOfThree(int a, int b, int c) {
+        if (less(array[a], array[b])) {
+            if (less(array[b], array[c])) {
+                return b;
+            }
+            return less(array[a], array[c]) ? c : a;
+        } else {
+            if (less(array[a], array[c])) {
+                return a;
+            }
+            return less(array[b], array[c]) ? c : b;
+        }
+    }
+    
+    private void insertionSort(int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            // Move elements that are greater than key to one position ahead
+            while (j >= low && less(key, array[j])) {
+                array[j + 1] = array[j];
+                swaps++;
+                j--;
+            }
+            
+            array[j + 1] = key;
+        }
+    }
+    
+    private boolean less(int a, int b) {
+        comparisons++;
+        return a < b;
+    }
+    
+    private boolean equal(int a, int b) {
+        comparisons++;
+        return a == b;
+    }
+    
+    private void swap(int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+        swaps++;
+    }
+    
+    private Map<String, Object> buildMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("partitions", partitions);
+        metrics.put("equalKeysSkipped", equalKeys);
+        return metrics;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Three-way Quick Sort splits the array into elements smaller than, equal to and greater than " +
+               "the pivot (the Dutch national flag problem). Keys equal to the pivot are collected at both " +
+               "ends while scanning and then moved to the middle, where they are already in their final " +
+               "place. Only the smaller and greater parts are sorted further, which makes arrays with many " +
+               "duplicate keys much faster to sort than with a two-way partition.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n²)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(log n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public int getSwaps() {
+        return swaps;
+    }
+}
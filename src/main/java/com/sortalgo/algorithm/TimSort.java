@@ -0,0 +1,706 @@
+package com.sortalgo.algorithm;
+
+import com.sortalgo.model.SortingEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implementation of an adaptive, TimSort-style merge sort.
+ *
+ * The array is scanned for natural runs (already ascending, or strictly descending runs that are
+ * reversed in place). Runs shorter than a minimum length are extended with binary insertion sort.
+ * Runs are kept on a stack whose lengths follow the TimSort invariants and are merged with a
+ * merge that switches to galloping (exponential search) when one run keeps winning.
+ * On presorted input the whole array is one run, so sorting takes O(n) comparisons.
+ *
+ * Every step either finds the next run or performs one merge, and every event carries
+ * the run statistics collected so far as metrics.
+ */
+public class TimSort implements SortingAlgorithm {
+    
+    // Arrays shorter than this are sorted with a single binary insertion sort
+    private static final int MIN_MERGE = 32;
+    
+    // Consecutive wins needed before a merge switches to galloping mode
+    private static final int MIN_GALLOP = 7;
+    
+    private static final int INITIAL_TMP_LENGTH = 256;
+    private static final int MAX_RUN_STACK = 64;
+    
+    private int[] array;
+    private int n;
+    private int comparisons;
+    private int swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // Merge state
+    private int[] tmp;
+    private int minGallop;
+    private int minRun;
+    private int[] runBase;
+    private int[] runLength;
+    private int stackSize;
+    
+    // Position of the next run to detect
+    private int nextRunStart;
+    
+    // Run statistics
+    private int naturalRuns;
+    private int descendingRuns;
+    private int extendedRuns;
+    private int longestNaturalRun;
+    private int merges;
+    private int gallops;
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        
+        this.tmp = new int[Math.min(INITIAL_TMP_LENGTH, Math.max(1, n / 2))];
+        this.minGallop = MIN_GALLOP;
+        this.minRun = minRunLength(n);
+        this.runBase = new int[MAX_RUN_STACK];
+        this.runLength = new int[MAX_RUN_STACK];
+        this.stackSize = 0;
+        this.nextRunStart = 0;
+        
+        this.naturalRuns = 0;
+        this.descendingRuns = 0;
+        this.extendedRuns = 0;
+        this.longestNaturalRun = 0;
+        this.merges = 0;
+        this.gallops = 0;
+    }
+    
+    /**
+     * Minimum run length: n itself for small arrays, otherwise a value in [MIN_MERGE/2, MIN_MERGE]
+     * chosen so that n / minRun is close to (and not above) a power of two.
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            advance();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], comparisons, swaps, executionTime, runStatistics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        int[] highlights = isComplete ? new int[0] : advance();
+        
+        return new SortingEvent(array, highlights, comparisons, swaps,
+                System.currentTimeMillis() - startTime, runStatistics());
+    }
+    
+    /**
+     * Perform the next unit of work: a merge required by the stack invariants, the detection of
+     * the next run, or one of the final merges once the whole array has been scanned.
+     *
+     * @return Indices to highlight for this unit of work
+     */
+    private int[] advance() {
+        int mergeIndex = collapseIndex();
+        if (mergeIndex >= 0) {
+            return mergeAt(mergeIndex);
+        }
+        
+        if (nextRunStart < n) {
+            return nextRun();
+        }
+        
+        if (stackSize > 1) {
+            // Force the remaining runs together, always merging the smaller neighbor first
+            int i = stackSize - 2;
+            if (i > 0 && runLength[i - 1] < runLength[i + 1]) {
+                i--;
+            }
+            return mergeAt(i);
+        }
+        
+        isComplete = true;
+        return new int[0];
+    }
+    
+    /**
+     * Detect the next natural run, extend it to minRun if it is short and push it on the run stack.
+     */
+    private int[] nextRun() {
+        int lo = nextRunStart;
+        int remaining = n - lo;
+        
+        int runLen = countRunAndMakeAscending(lo, n);
+        naturalRuns++;
+        longestNaturalRun = Math.max(longestNaturalRun, runLen);
+        
+        if (runLen < minRun) {
+            int force = Math.min(remaining, minRun);
+            binarySort(lo, lo + force, lo + runLen);
+            runLen = force;
+            extendedRuns++;
+        }
+        
+        runBase[stackSize] = lo;
+        runLength[stackSize] = runLen;
+        stackSize++;
+        nextRunStart = lo + runLen;
+        
+        return new int[]{lo, lo + runLen - 1};
+    }
+    
+    /**
+     * Index of the run to merge with its successor so that the stack invariants
+     * len[i-2] > len[i-1] + len[i] and len[i-1] > len[i] hold, or -1 if they already hold.
+     */
+    private int collapseIndex() {
+        if (stackSize <= 1) {
+            return -1;
+        }
+        
+        int i = stackSize - 2;
+        if ((i > 0 && runLength[i - 1] <= runLength[i] + runLength[i + 1])
+                || (i > 1 && runLength[i - 2] <= runLength[i] + runLength[i - 1])) {
+            if (runLength[i - 1] < runLength[i + 1]) {
+                i--;
+            }
+            return i;
+        }
+        
+        return runLength[i] <= runLength[i + 1] ? i : -1;
+    }
+    
+    /**
+     * Length of the run beginning at lo, reversing it first if it is strictly descending.
+     * Strictness keeps the sort stable.
+     */
+    private int countRunAndMakeAscending(int lo, int hi) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        
+        if (less(array[runHi++], array[lo])) {
+            while (runHi < hi && less(array[runHi], array[runHi - 1])) {
+                runHi++;
+            }
+            reverseRange(lo, runHi);
+            descendingRuns++;
+        } else {
+            while (runHi < hi && !less(array[runHi], array[runHi - 1])) {
+                runHi++;
+            }
+        }
+        
+        return runHi - lo;
+    }
+    
+    private void reverseRange(int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            int temp = array[lo];
+            array[lo++] = array[hi];
+            array[hi--] = temp;
+            swaps++;
+        }
+    }
+    
+    /**
+     * Binary insertion sort of array[lo..hi) where array[lo..start) is already sorted.
+     */
+    private void binarySort(int lo, int hi, int start) {
+        for (; start < hi; start++) {
+            int pivot = array[start];
+            int left = lo;
+            int right = start;
+            
+            // Find the rightmost position to keep equal elements in order
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (less(pivot, array[mid])) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            
+            int shift = start - left;
+            System.arraycopy(array, left, array, left + 1, shift);
+            array[left] = pivot;
+            swaps += shift + 1;
+        }
+    }
+    
+    /**
+     * Merge the runs at stack positions i and i + 1.
+     */
+    private int[] mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLength[i];
+        int base2 = runBase[i + 1];
+        int len2 = runLength[i + 1];
+        merges++;
+        
+        // Record the combined run; if i is the third-last run, slide the last one down
+        runLength[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLength[i + 1] = runLength[i + 2];
+        }
+        stackSize--;
+        
+        int[] highlights = {base1, base2, base2 + len2 - 1};
+        
+        // Elements of run 1 that are not greater than the first element of run 2 are already in place
+        int k = gallopRight(array[base2], array, base1, len1, 0);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return highlights;
+        }
+        
+        // Elements of run 2 that are not smaller than the last element of run 1 are already in place
+        len2 = gallopLeft(array[base1 + len1 - 1], array, base2, len2, len2 - 1);
+        if (len2 == 0) {
+            return highlights;
+        }
+        
+        // Merge using a temporary copy of the shorter run
+        if (len1 <= len2) {
+            mergeLo(base1, len1, base2, len2);
+        } else {
+            mergeHi(base1, len1, base2, len2);
+        }
+        return highlights;
+    }
+    
+    /**
+     * Position in a[base..base+len) before the leftmost element not less than key,
+     * searching outward from the hint position.
+     */
+    private int gallopLeft(int key, int[] a, int base, int len, int hint) {
+        int lastOfs = 0;
+        int ofs = 1;
+        
+        if (less(a[base + hint], key)) {
+            // Gallop right until a[base+hint+lastOfs] < key <= a[base+hint+ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && less(a[base + hint + ofs], key)) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        } else {
+            // Gallop left until a[base+hint-ofs] < key <= a[base+hint-lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && !less(a[base + hint - ofs], key)) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        }
+        
+        // Binary search in the bracketed interval
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (less(a[base + m], key)) {
+                lastOfs = m + 1;
+            } else {
+                ofs = m;
+            }
+        }
+        return ofs;
+    }
+    
+    /**
+     * Position in a[base..base+len) after the rightmost element not greater than key,
+     * searching outward from the hint position.
+     */
+    private int gallopRight(int key, int[] a, int base, int len, int hint) {
+        int lastOfs = 0;
+        int ofs = 1;
+        
+        if (less(key, a[base + hint])) {
+            // Gallop left until a[base+hint-ofs] <= key < a[base+hint-lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && less(key, a[base + hint - ofs])) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        } else {
+            // Gallop right until a[base+hint+lastOfs] <= key < a[base+hint+ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && !less(key, a[base + hint + ofs])) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        }
+        
+        // Binary search in the bracketed interval
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (less(key, a[base + m])) {
+                ofs = m;
+            } else {
+                lastOfs = m + 1;
+            }
+        }
+        return ofs;
+    }
+    
+    /**
+     * Merge two adjacent runs left to right, with the first (shorter) run copied to tmp.
+     * Requires array[base1] > array[base2] and the last element of run 1 to be greater
+     * than every element of run 2.
+     */
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        int[] a = array;
+        int[] t = ensureCapacity(len1);
+        System.arraycopy(a, base1, t, 0, len1);
+        
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int dest = base1;
+        
+        // The first element of run 2 is the smallest, and the last of run 1 the largest
+        a[dest++] = a[cursor2++];
+        swaps++;
+        if (--len2 == 0) {
+            System.arraycopy(t, cursor1, a, dest, len1);
+            swaps += len1;
+            return;
+        }
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = t[cursor1];
+            swaps += len2 + 1;
+            return;
+        }
+        
+        int minGallop = this.minGallop;
+        outer:
+        while (true) {
+            int count1 = 0; // Number of times in a row that run 1 won
+            int count2 = 0; // Number of times in a row that run 2 won
+            
+            // One element at a time until one run starts winning consistently
+            do {
+                if (less(a[cursor2], t[cursor1])) {
+                    a[dest++] = a[cursor2++];
+                    swaps++;
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest++] = t[cursor1++];
+                    swaps++;
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+            
+            // Galloping: copy whole blocks found by exponential search
+            gallops++;
+            do {
+                count1 = gallopRight(a[cursor2], t, cursor1, len1, 0);
+                if (count1 != 0) {
+                    System.arraycopy(t, cursor1, a, dest, count1);
+                    swaps += count1;
+                    dest += count1;
+                    cursor1 += count1;
+                    len1 -= count1;
+                    if (len1 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest++] = a[cursor2++];
+                swaps++;
+                if (--len2 == 0) {
+                    break outer;
+                }
+                
+                count2 = gallopLeft(t[cursor1], a, cursor2, len2, 0);
+                if (count2 != 0) {
+                    System.arraycopy(a, cursor2, a, dest, count2);
+                    swaps += count2;
+                    dest += count2;
+                    cursor2 += count2;
+                    len2 -= count2;
+                    if (len2 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest++] = t[cursor1++];
+                swaps++;
+                if (--len1 == 1) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+            
+            // Leaving galloping mode makes it harder to enter again
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            minGallop += 2;
+        }
+        this.minGallop = Math.max(1, minGallop);
+        
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = t[cursor1];
+            swaps += len2 + 1;
+        } else {
+            System.arraycopy(t, cursor1, a, dest, len1);
+            swaps += len1;
+        }
+    }
+    
+    /**
+     * Merge two adjacent runs right to left, with the second (shorter) run copied to tmp.
+     * Same preconditions as mergeLo.
+     */
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        int[] a = array;
+        int[] t = ensureCapacity(len2);
+        System.arraycopy(a, base2, t, 0, len2);
+        
+        int cursor1 = base1 + len1 - 1;
+        int cursor2 = len2 - 1;
+        int dest = base2 + len2 - 1;
+        
+        // The last element of run 1 is the largest, and the first of run 2 the smallest
+        a[dest--] = a[cursor1--];
+        swaps++;
+        if (--len1 == 0) {
+            System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+            swaps += len2;
+            return;
+        }
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = t[cursor2];
+            swaps += len1 + 1;
+            return;
+        }
+        
+        int minGallop = this.minGallop;
+        outer:
+        while (true) {
+            int count1 = 0; // Number of times in a row that run 1 won
+            int count2 = 0; // Number of times in a row that run 2 won
+            
+            // One element at a time until one run starts winning consistently
+            do {
+                if (less(t[cursor2], a[cursor1])) {
+                    a[dest--] = a[cursor1--];
+                    swaps++;
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest--] = t[cursor2--];
+                    swaps++;
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+            
+            // Galloping: copy whole blocks found by exponential search
+            gallops++;
+            do {
+                count1 = len1 - gallopRight(t[cursor2], a, base1, len1, len1 - 1);
+                if (count1 != 0) {
+                    dest -= count1;
+                    cursor1 -= count1;
+                    len1 -= count1;
+                    System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                    swaps += count1;
+                    if (len1 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest--] = t[cursor2--];
+                swaps++;
+                if (--len2 == 1) {
+                    break outer;
+                }
+                
+                count2 = len2 - gallopLeft(a[cursor1], t, 0, len2, len2 - 1);
+                if (count2 != 0) {
+                    dest -= count2;
+                    cursor2 -= count2;
+                    len2 -= count2;
+                    System.arraycopy(t, cursor2 + 1, a, dest + 1, count2);
+                    swaps += count2;
+                    if (len2 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest--] = a[cursor1--];
+                swaps++;
+                if (--len1 == 0) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+            
+            // Leaving galloping mode makes it harder to enter again
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            minGallop += 2;
+        }
+        this.minGallop = Math.max(1, minGallop);
+        
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = t[cursor2];
+            swaps += len1 + 1;
+        } else {
+            System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+            swaps += len2;
+        }
+    }
+    
+    /**
+     * Make sure the temporary buffer can hold at least minCapacity elements,
+     * growing it geometrically so that it is reallocated only a few times per sort.
+     */
+    private int[] ensureCapacity(int minCapacity) {
+        if (tmp.length < minCapacity) {
+            int newSize = Integer.highestOneBit(minCapacity) << 1;
+            if (newSize <= 0) {
+                newSize = minCapacity;
+            }
+            tmp = new int[Math.min(newSize, Math.max(minCapacity, n >>> 1))];
+        }
+        return tmp;
+    }
+    
+    private boolean less(int a, int b) {
+        comparisons++;
+        return a < b;
+    }
+    
+    private Map<String, Object> runStatistics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("minRun", minRun);
+        metrics.put("naturalRuns", naturalRuns);
+        metrics.put("descendingRuns", descendingRuns);
+        metrics.put("extendedRuns", extendedRuns);
+        metrics.put("longestNaturalRun", longestNaturalRun);
+        metrics.put("merges", merges);
+        metrics.put("gallops", gallops);
+        return metrics;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "TimSort is an adaptive merge sort. It scans the array for runs that are already in order " +
+               "(reversing descending runs), extends short runs with binary insertion sort and merges the " +
+               "runs following rules that keep the merges balanced. When one run keeps winning during a " +
+               "merge it switches to galloping, copying whole blocks at once. Nearly sorted data is sorted " +
+               "in close to linear time.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public int getSwaps() {
+        return swaps;
+    }
+}
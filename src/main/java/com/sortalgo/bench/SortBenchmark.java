@@ -0,0 +1,1209 @@
+package com.sortalgo.bench;
+
+import com.sortalgo.algorithm.*;
+import com.sortalgo.external.ExternalMergeSort;
+import com.sortalgo.external.ExternalSortStats;
+import com.sortalgo.external.IntFileReader;
+import com.sortalgo.external.IntFileWriter;
+import com.sortalgo.external.MappedIntSort;
+import com.sortalgo.external.MappedSortStats;
+import com.sortalgo.merge.KWayMerge;
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
+import com.sortalgo.offheap.OffHeapIntArray;
+import com.sortalgo.offheap.OffHeapQuickSort;
+import com.sortalgo.offheap.OffHeapRadixSort;
+import com.sortalgo.offheap.OffHeapSortingAlgorithm;
+import com.sortalgo.primitive.ArgSort;
+import com.sortalgo.primitive.ColumnarSort;
+import com.sortalgo.primitive.DoubleSort;
+import com.sortalgo.primitive.LongSort;
+import com.sortalgo.stream.IntTopK;
+import com.sortalgo.text.StringSort;
+import com.sortalgo.trace.TraceReader;
+import com.sortalgo.trace.TraceRecorder;
+import com.sortalgo.trace.TraceReplayer;
+import com.sortalgo.trace.TraceStats;
+import com.sortalgo.util.ArrayGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Command line benchmarks for the large-array code paths of the sorting algorithms.
+ * Run with {@code java -cp bin com.sortalgo.bench.SortBenchmark <suite> [size]}.
+ * Use a large heap (e.g. -Xmx8g) for arrays with tens of millions of elements.
+ */
+public class SortBenchmark {
+    
+    private static final int RUNS = 3;
+    
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            return;
+        }
+        
+        String suite = args[0];
+        long requestedSize = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+        int size = (int) Math.min(Integer.MAX_VALUE, requestedSize);
+        
+        switch (suite) {
+            case "parallel-merge":
+                parallelMergeScaling(size);
+                break;
+            case "merge-alloc":
+                mergeAllocation(size);
+                break;
+            case "quick-stack":
+                quickSortThroughput(size);
+                break;
+            case "radix":
+                radixVersusQuick(size);
+                break;
+            case "counting-parallel":
+                countingScaling(size);
+                break;
+            case "adaptive":
+                adaptiveInputs(size);
+                break;
+            case "distributions":
+                distributions(size);
+                break;
+            case "few-unique":
+                fewUnique(size);
+                break;
+            case "sample-sort":
+                sampleSortScaling(size);
+                break;
+            case "external":
+                externalSort(size);
+                break;
+            case "mapped":
+                mappedSort(size);
+                break;
+            case "primitive":
+                primitiveSorts(size);
+                break;
+            case "argsort":
+                argSort(size);
+                break;
+            case "columnar":
+                columnarSort(size);
+                break;
+            case "strings":
+                stringSort(size);
+                break;
+            case "select":
+                selection(size);
+                break;
+            case "topk":
+                topK(size);
+                break;
+            case "kway":
+                kWayMerge(size);
+                break;
+            case "step-alloc":
+                stepAllocation(size);
+                break;
+            case "oplog":
+                operationLog(size);
+                break;
+            case "trace":
+                trace(size);
+                break;
+            case "offheap":
+                offHeapSort(requestedSize);
+                break;
+            default:
+                printUsage();
+        }
+    }
+    
+    private static void printUsage() {
+        System.out.println("Usage: SortBenchmark <suite> [size]");
+        System.out.println("Suites:");
+        System.out.println("  parallel-merge   Parallel Merge Sort scaling across thread counts");
+        System.out.println("  merge-alloc      Merge Sort bytes allocated and GC activity of init() + sort()");
+        System.out.println("  quick-stack      Quick Sort throughput and Merge Sort step setup cost");
+        System.out.println("  radix            Radix Sort versus Quick Sort on the full signed int range");
+        System.out.println("  counting-parallel  Counting Sort scaling across thread counts on a small value range");
+        System.out.println("  adaptive         TimSort versus Merge Sort and Introsort on presorted and random input");
+        System.out.println("  distributions    PdqSort versus Introsort and Merge Sort on every ArrayGenerator distribution");
+        System.out.println("  few-unique       Three-way Quick Sort on 5 distinct keys, from 1M elements up to size");
+        System.out.println("  sample-sort      Sample Sort versus Parallel Merge Sort across thread counts, with bucket imbalance");
+        System.out.println("  external         External merge sort of a temporary file with a budget of 1/8 of its size");
+        System.out.println("  mapped           In-place sort of a memory-mapped temporary file, radix and quicksort");
+        System.out.println("  primitive        long[] and double[] engines of com.sortalgo.primitive versus Arrays.sort");
+        System.out.println("  argsort          Stable argsort of int keys versus Integer[] indices with a Comparator, and permute()");
+        System.out.println("  columnar         (int tenant, long ts, int seq) rows: normalized-key ColumnarSort versus row objects");
+        System.out.println("  strings          Multikey string sort versus Arrays.sort on URLs and random ids, as String and byte[]");
+        System.out.println("  select           QuickSort select(k) and partialSort(k) versus a full sort: time and comparisons");
+        System.out.println("  topk             IntTopK per value and in 64K chunks versus sorting, random and ascending input");
+        System.out.println("  kway             Loser-tree k-way merge of k sorted runs, k = 2..1024, versus a heap and Arrays.sort");
+        System.out.println("  step-alloc       Bytes allocated per step and steps/s, step() versus step(ReusableSortingEvent)");
+        System.out.println("  oplog            Per-step cost of following the array: a copy of each event versus its OperationLog");
+        System.out.println("  trace            Record every step of Introsort to a trace file, bytes per operation, replay speed");
+        System.out.println("                   and the time of random seeks in both directions");
+        System.out.println("  offheap          Quicksort and radix sort of a long-indexed off-heap array; size may exceed 2^31,");
+        System.out.println("                   3 billion ints need -XX:MaxDirectMemorySize=24g (radix sort uses a second copy)");
+    }
+    
+    /**
+     * Sort the same random array with 1, 2, 4, ... threads up to the number of cores
+     * and report the speedup relative to the single-threaded run.
+     */
+    private static void parallelMergeScaling(int size) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        
+        System.out.printf("Parallel Merge Sort, %,d random ints, %d cores%n", size, cores);
+        System.out.printf("%-10s %-12s %-10s %-10s%n", "threads", "time (ms)", "speedup", "Mint/s");
+        
+        long sequential = timeMillis(new MergeSort(), input);
+        System.out.printf("%-10s %-12d %-10s %-10s%n", "MergeSort", sequential, "-", throughput(size, sequential));
+        
+        long baseline = 0;
+        for (int threads = 1; threads <= cores; threads = nextThreadCount(threads, cores)) {
+            long millis = timeMillis(new ParallelMergeSort(threads, ParallelMergeSort.DEFAULT_SEQUENTIAL_CUTOFF), input);
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%-10d %-12d %-10s %-10s%n", threads, millis,
+                    String.format(Locale.ROOT, "%.2fx", (double) baseline / Math.max(1, millis)),
+                    throughput(size, millis));
+        }
+    }
+    
+    /**
+     * Measure how much memory MergeSort.init() and sort() allocate and how much GC work they
+     * cause. The expected allocation is two arrays of size ints: the copy of the input made by
+     * init() and the one buffer of sort().
+     */
+    private static void mergeAllocation(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        MergeSort mergeSort = new MergeSort();
+        
+        System.out.printf("Merge Sort, %,d random ints%n", size);
+        System.out.printf("expected: %.1f MB%n", 2.0 * size * Integer.BYTES / (1024.0 * 1024.0));
+        System.out.printf("%-6s %-12s %-16s %-10s %-12s%n", "run", "time (ms)", "allocated (MB)", "GC count", "GC time (ms)");
+        
+        for (int run = 0; run <= RUNS; run++) {
+            System.gc();
+            
+            long allocatedBefore = allocatedBytes();
+            long gcCountBefore = gcCount();
+            long gcTimeBefore = gcTimeMillis();
+            long start = System.nanoTime();
+            
+            mergeSort.init(input);
+            int[] result = mergeSort.sort().getCurrentArray();
+            
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long allocated = allocatedBytes() - allocatedBefore;
+            checkSorted(mergeSort, result);
+            
+            System.out.printf("%-6s %-12d %-16s %-10d %-12d%n", run == 0 ? "warmup" : String.valueOf(run), millis,
+                    String.format(Locale.ROOT, "%.1f", allocated / (1024.0 * 1024.0)),
+                    gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore);
+        }
+    }
+    
+    /**
+     * Throughput of the iterative Quick Sort drivers, plus the cost of preparing Merge Sort
+     * for step-by-step execution (the first step builds the stack of pending merges).
+     */
+    private static void quickSortThroughput(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        
+        System.out.printf("%,d random ints%n", size);
+        System.out.printf("%-32s %-12s %-10s%n", "algorithm", "time (ms)", "Mint/s");
+        
+        long classic = timeMillis(new QuickSort(), input);
+        System.out.printf("%-32s %-12d %-10s%n", "QuickSort(LAST, no cutoff)", classic, throughput(size, classic));
+        
+        long ninther = timeMillis(new QuickSort(PivotStrategy.NINTHER), input);
+        System.out.printf("%-32s %-12d %-10s%n", "QuickSort(NINTHER, cutoff 16)", ninther, throughput(size, ninther));
+        
+        MergeSort mergeSort = new MergeSort();
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            long start = System.nanoTime();
+            mergeSort.init(input);
+            mergeSort.step();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (run > 0) {
+                best = Math.min(best, millis);
+            }
+        }
+        System.out.printf("%-32s %-12d %-10s%n", "MergeSort init() + step()", best, throughput(size, best));
+    }
+    
+    /**
+     * Radix Sort against the comparison sorts on random values covering the whole int range.
+     */
+    private static void radixVersusQuick(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, Integer.MIN_VALUE / 2 + 1, Integer.MAX_VALUE / 2);
+        
+        System.out.printf("%,d random ints (negative and positive)%n", size);
+        System.out.printf("%-32s %-12s %-10s%n", "algorithm", "time (ms)", "Mint/s");
+        
+        SortingAlgorithm[] algorithms = {
+            new QuickSort(PivotStrategy.NINTHER), new MergeSort(), new RadixSort()
+        };
+        for (SortingAlgorithm algorithm : algorithms) {
+            long millis = timeMillis(algorithm, input);
+            System.out.printf("%-32s %-12d %-10s%n", algorithm.getClass().getSimpleName(), millis, throughput(size, millis));
+        }
+    }
+    
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+    
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+    
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+    
+    /**
+     * Sort many values from a small range with 1, 2, 4, ... threads up to the number of cores.
+     */
+    private static void countingScaling(int size) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, 999);
+        
+        System.out.printf("Counting Sort, %,d ints in [0, 999], %d cores%n", size, cores);
+        System.out.printf("%-10s %-12s %-10s %-10s%n", "threads", "time (ms)", "speedup", "Mint/s");
+        
+        long baseline = 0;
+        for (int threads = 1; threads <= cores; threads = nextThreadCount(threads, cores)) {
+            long millis = timeMillis(new CountingSort(threads), input);
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%-10d %-12d %-10s %-10s%n", threads, millis,
+                    String.format(Locale.ROOT, "%.2fx", (double) baseline / Math.max(1, millis)),
+                    throughput(size, millis));
+        }
+    }
+    
+    /**
+     * TimSort against the non-adaptive n log n sorts on inputs with different amounts of existing order.
+     */
+    private static void adaptiveInputs(int size) {
+        String[] inputNames = {"sorted", "nearly sorted", "reversed", "random"};
+        int[][] inputs = {
+            ArrayGenerator.generateNearlySortedArray(size, 0),
+            ArrayGenerator.generateNearlySortedArray(size, size / 1000),
+            ArrayGenerator.generateReversedArray(size),
+            ArrayGenerator.generateRandomArray(size, 0, size)
+        };
+        
+        System.out.printf("%,d ints%n", size);
+        System.out.printf("%-16s %-16s %-12s %-10s%n", "input", "algorithm", "time (ms)", "Mint/s");
+        
+        for (int i = 0; i < inputs.length; i++) {
+            SortingAlgorithm[] algorithms = {
+                new QuickSort(PivotStrategy.NINTHER), new MergeSort(), new TimSort()
+            };
+            for (SortingAlgorithm algorithm : algorithms) {
+                long millis = timeMillis(algorithm, inputs[i]);
+                System.out.printf("%-16s %-16s %-12d %-10s%n", inputNames[i], algorithm.getClass().getSimpleName(),
+                        millis, throughput(size, millis));
+            }
+        }
+    }
+    
+    /**
+     * PdqSort against Introsort and Merge Sort on each of the ArrayGenerator distributions.
+     */
+    private static void distributions(int size) {
+        String[] inputNames = {"random", "nearly sorted", "reversed", "few unique"};
+        int[][] inputs = {
+            ArrayGenerator.generateRandomArray(size, 0, size),
+            ArrayGenerator.generateNearlySortedArray(size, size / 1000),
+            ArrayGenerator.generateReversedArray(size),
+            ArrayGenerator.generateFewUniqueArray(size, 5)
+        };
+        
+        System.out.printf("%,d ints%n", size);
+        System.out.printf("%-16s %-16s %-12s %-10s%n", "input", "algorithm", "time (ms)", "Mint/s");
+        
+        for (int i = 0; i < inputs.length; i++) {
+            SortingAlgorithm[] algorithms = {
+                new QuickSort(PivotStrategy.NINTHER), new MergeSort(), new PdqSort()
+            };
+            for (SortingAlgorithm algorithm : algorithms) {
+                long millis = timeMillis(algorithm, inputs[i]);
+                System.out.printf("%-16s %-16s %-12d %-10s%n", inputNames[i], algorithm.getClass().getSimpleName(),
+                        millis, throughput(size, millis));
+            }
+        }
+    }
+    
+    /**
+     * Sorts of arrays with only 5 distinct keys at 1M, 10M, 100M, ... elements up to the given size.
+     */
+    private static void fewUnique(int size) {
+        System.out.printf("%-12s %-20s %-12s %-10s%n", "size", "algorithm", "time (ms)", "Mint/s");
+        
+        for (int n = 1_000_000; n <= size; n *= 10) {
+            int[] input = ArrayGenerator.generateFewUniqueArray(n, 5);
+            SortingAlgorithm[] algorithms = {
+                new QuickSort(), new QuickSort(PivotStrategy.NINTHER), new PdqSort(), new ThreeWayQuickSort()
+            };
+            for (SortingAlgorithm algorithm : algorithms) {
+                long millis = timeMillis(algorithm, input);
+                System.out.printf("%-12s %-20s %-12d %-10s%n", String.format("%,d", n), algorithmName(algorithm),
+                        millis, throughput(n, millis));
+            }
+            if (n > Integer.MAX_VALUE / 10) {
+                break;
+            }
+        }
+    }
+    
+    private static String algorithmName(SortingAlgorithm algorithm) {
+        if (algorithm instanceof QuickSort) {
+            return "QuickSort(" + ((QuickSort) algorithm).getPivotStrategy() + ")";
+        }
+        return algorithm.getClass().getSimpleName();
+    }
+    
+    /**
+     * Sample Sort and Parallel Merge Sort on the same random array with 1, 2, 4, ... threads,
+     * with the bucket imbalance (largest bucket / average bucket) of a separate Sample Sort run.
+     */
+    private static void sampleSortScaling(int size) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        
+        System.out.printf("%,d random ints, %d cores%n", size, cores);
+        System.out.printf("%-10s %-20s %-16s %-10s%n", "threads", "ParallelMerge (ms)", "SampleSort (ms)", "imbalance");
+        
+        for (int threads = 1; threads <= cores; threads = nextThreadCount(threads, cores)) {
+            long merge = timeMillis(new ParallelMergeSort(threads, ParallelMergeSort.DEFAULT_SEQUENTIAL_CUTOFF), input);
+            SampleSort sampleSort = new SampleSort(threads);
+            long sample = timeMillis(sampleSort, input);
+            sampleSort.init(input);
+            Object imbalance = sampleSort.sort().getMetrics().get("imbalance");
+            System.out.printf("%-10d %-20d %-16d %-10s%n", threads, merge, sample, imbalance);
+        }
+    }
+    
+    /**
+     * Write size random ints to a temporary file and sort it with a memory budget of an eighth of the file,
+     * so that the sort has to spill runs and merge them.
+     */
+    private static void externalSort(int size) {
+        long fileBytes = (long) size * Integer.BYTES;
+        long budget = Math.max(1L << 20, fileBytes / 8);
+        Path input = null;
+        Path output = null;
+        
+        try {
+            input = Files.createTempFile("sortalgo-input-", ".bin");
+            output = Files.createTempFile("sortalgo-output-", ".bin");
+            
+            writeRandomInts(input, size);
+            
+            ExternalSortStats stats = new ExternalMergeSort(budget, () -> new QuickSort(PivotStrategy.NINTHER))
+                    .sort(input, output);
+            checkSorted(output, size);
+            
+            System.out.printf("%,d ints (%,d MB), memory budget %,d MB%n", size, fileBytes >> 20, budget >> 20);
+            System.out.printf("%-12s %-8s %-8s %-14s %-14s %-10s%n",
+                    "time (ms)", "runs", "passes", "read (MB)", "written (MB)", "MB/s");
+            System.out.printf("%-12d %-8d %-8d %-14d %-14d %-10s%n", stats.getExecutionTime(), stats.getRuns(),
+                    stats.getMergePasses(), stats.getBytesRead() >> 20, stats.getBytesWritten() >> 20,
+                    String.format(Locale.ROOT, "%.1f", (fileBytes >> 20) * 1000.0 / Math.max(1, stats.getExecutionTime())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(input);
+            deleteQuietly(output);
+        }
+    }
+    
+    /**
+     * Sort a temporary file of size random ints in place through a memory mapping with each method,
+     * reporting the heap allocated by the sort itself.
+     */
+    private static void mappedSort(int size) {
+        long fileBytes = (long) size * Integer.BYTES;
+        Path file = null;
+        
+        System.out.printf("%,d ints (%,d MB)%n", size, fileBytes >> 20);
+        System.out.printf("%-12s %-12s %-10s %-16s%n", "method", "time (ms)", "MB/s", "heap alloc (KB)");
+        
+        try {
+            file = Files.createTempFile("sortalgo-mapped-", ".bin");
+            for (MappedIntSort.Method method : MappedIntSort.Method.values()) {
+                writeRandomInts(file, size);
+                
+                long allocated = allocatedBytes();
+                MappedSortStats stats = new MappedIntSort(method).sort(file);
+                allocated = allocatedBytes() - allocated;
+                checkSorted(file, size);
+                
+                System.out.printf("%-12s %-12d %-10s %-16d%n", method, stats.getExecutionTime(),
+                        String.format(Locale.ROOT, "%.1f", (fileBytes >> 20) * 1000.0 / Math.max(1, stats.getExecutionTime())),
+                        allocated >> 10);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+    
+    private static void writeRandomInts(Path file, int size) throws IOException {
+        try (IntFileWriter writer = new IntFileWriter(file, 1 << 20)) {
+            int chunk = 1 << 20;
+            for (int written = 0; written < size; written += chunk) {
+                int length = Math.min(chunk, size - written);
+                writer.write(ArrayGenerator.generateRandomArray(length, 0, Integer.MAX_VALUE - 1), 0, length);
+            }
+        }
+    }
+    
+    private static void checkSorted(Path file, long expectedLength) throws IOException {
+        try (IntFileReader reader = new IntFileReader(file, 1 << 20)) {
+            if (reader.remaining() != expectedLength) {
+                throw new IllegalStateException(file + " has " + reader.remaining() + " ints, expected " + expectedLength);
+            }
+            int previous = Integer.MIN_VALUE;
+            for (long i = 0; reader.hasNext(); i++) {
+                int value = reader.next();
+                if (value < previous) {
+                    throw new IllegalStateException(file + " is not sorted at index " + i);
+                }
+                previous = value;
+            }
+        }
+    }
+    
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Time every engine of LongSort and DoubleSort against Arrays.sort on random values; the doubles
+     * include NaNs and signed zeros.
+     */
+    private static void primitiveSorts(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] longs = random.longs(size).toArray();
+        double[] doubles = random.doubles(size, -1e9, 1e9).toArray();
+        for (int i = 0; i < size; i += 1000) {
+            doubles[i] = i % 3000 == 0 ? Double.NaN : i % 2000 == 0 ? -0.0 : 0.0;
+        }
+        
+        String[] engines = {"Arrays.sort", "sort", "quickSort", "mergeSort", "radixSort"};
+        List<Consumer<long[]>> longSorts = List.of(Arrays::sort, LongSort::sort, LongSort::quickSort,
+                LongSort::mergeSort, LongSort::radixSort);
+        List<Consumer<double[]>> doubleSorts = List.of(Arrays::sort, DoubleSort::sort, DoubleSort::quickSort,
+                DoubleSort::mergeSort, DoubleSort::radixSort);
+        
+        System.out.printf("%-14s %-16s %-10s %-16s %-10s%n", "engine", "long[] (ms)", "Mint/s", "double[] (ms)", "Mint/s");
+        for (int e = 0; e < engines.length; e++) {
+            long longMillis = timeMillis(longs, long[]::clone, longSorts.get(e), a -> LongSort.isSorted(a, 0, a.length));
+            long doubleMillis = timeMillis(doubles, double[]::clone, doubleSorts.get(e),
+                    a -> DoubleSort.isSorted(a, 0, a.length));
+            System.out.printf("%-14s %-16d %-10s %-16d %-10s%n", engines[e], longMillis, throughput(size, longMillis),
+                    doubleMillis, throughput(size, doubleMillis));
+        }
+    }
+    
+    /**
+     * Order random int keys with ArgSort and with boxed indices and a Comparator, then reorder two
+     * parallel columns in place with the permutation.
+     */
+    private static void argSort(int size) {
+        int[] keys = ArrayGenerator.generateRandomArray(size, 0, size / 4);
+        
+        long start = System.nanoTime();
+        int[] order = ArgSort.argSort(keys);
+        long argSortMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        start = System.nanoTime();
+        Integer[] boxed = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, Comparator.comparingInt(i -> keys[i]));
+        long boxedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        for (int i = 0; i < size; i++) {
+            if (order[i] != boxed[i]) {
+                throw new IllegalStateException("ArgSort differs from the stable boxed sort at index " + i);
+            }
+        }
+        
+        long[] timestamps = new long[size];
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i;
+            scores[i] = keys[i];
+        }
+        long[] timestampsCopy = timestamps.clone();
+        double[] scoresCopy = scores.clone();
+        
+        start = System.nanoTime();
+        ArgSort.permute(order, timestamps);
+        ArgSort.permute(order, scores);
+        long permuteMillis = (System.nanoTime() - start) / 1_000_000;
+        checkPermuted(timestamps, scores);
+        
+        start = System.nanoTime();
+        ArgSort.permuteInPlace(order, timestampsCopy);
+        ArgSort.permuteInPlace(order, scoresCopy);
+        long inPlaceMillis = (System.nanoTime() - start) / 1_000_000;
+        checkPermuted(timestampsCopy, scoresCopy);
+        
+        System.out.printf("%,d int keys, %,d distinct values at most%n", size, size / 4 + 1);
+        System.out.printf("%-36s %-12s %-10s%n", "operation", "time (ms)", "Mint/s");
+        System.out.printf("%-36s %-12d %-10s%n", "ArgSort.argSort", argSortMillis, throughput(size, argSortMillis));
+        System.out.printf("%-36s %-12d %-10s%n", "Integer[] + Comparator", boxedMillis, throughput(size, boxedMillis));
+        System.out.printf("%-36s %-12d %-10s%n", "permute long[] and double[] columns", permuteMillis,
+                throughput(size, permuteMillis));
+        System.out.printf("%-36s %-12d %-10s%n", "permuteInPlace, same columns", inPlaceMillis,
+                throughput(size, inPlaceMillis));
+    }
+    
+    private static void checkPermuted(long[] timestamps, double[] scores) {
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] < scores[i - 1] || (scores[i] == scores[i - 1] && timestamps[i] < timestamps[i - 1])) {
+                throw new IllegalStateException("Permuted columns are out of order at index " + i);
+            }
+        }
+    }
+    
+    /**
+     * Sort rows of (int tenant, long timestamp, int sequence) by all three columns, once as parallel
+     * columns with ColumnarSort and once as one object per row with a chained Comparator.
+     */
+    private static void columnarSort(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] tenants = new int[size];
+        long[] timestamps = new long[size];
+        int[] sequences = new int[size];
+        for (int i = 0; i < size; i++) {
+            tenants[i] = random.nextInt(1000);
+            timestamps[i] = 1_600_000_000_000L + random.nextLong(1L << 32);
+            sequences[i] = random.nextInt(16);
+        }
+        
+        int[] sortedTenants = tenants.clone();
+        long[] sortedTimestamps = timestamps.clone();
+        int[] sortedSequences = sequences.clone();
+        long start = System.nanoTime();
+        new ColumnarSort().by(sortedTenants).by(sortedTimestamps).by(sortedSequences).sort();
+        long columnarMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        start = System.nanoTime();
+        long[][] rows = new long[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = new long[]{tenants[i], timestamps[i], sequences[i]};
+        }
+        Arrays.sort(rows, Comparator.<long[]>comparingLong(row -> row[0])
+                .thenComparingLong(row -> row[1])
+                .thenComparingLong(row -> row[2]));
+        long rowMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        for (int i = 0; i < size; i++) {
+            if (sortedTenants[i] != rows[i][0] || sortedTimestamps[i] != rows[i][1] || sortedSequences[i] != rows[i][2]) {
+                throw new IllegalStateException("ColumnarSort differs from the row sort at index " + i);
+            }
+        }
+        
+        System.out.printf("%,d rows, 16-byte normalized keys%n", size);
+        System.out.printf("%-36s %-12s %-10s%n", "sort", "time (ms)", "Mrows/s");
+        System.out.printf("%-36s %-12d %-10s%n", "ColumnarSort", columnarMillis, throughput(size, columnarMillis));
+        System.out.printf("%-36s %-12d %-10s%n", "row objects + Comparator", rowMillis, throughput(size, rowMillis));
+    }
+    
+    /**
+     * Sort URL-like strings, which share long prefixes, and short random identifiers with StringSort
+     * and with Arrays.sort, both as Strings and as UTF-8 byte arrays.
+     */
+    private static void stringSort(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] hosts = {"https://www.example.com/", "https://shop.example.com/", "https://api.example.org/v2/"};
+        String[] sections = {"catalog/products/", "catalog/categories/", "users/profile/", "orders/history/"};
+        
+        String[] urls = new String[size];
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            urls[i] = hosts[random.nextInt(hosts.length)] + sections[random.nextInt(sections.length)]
+                    + random.nextInt(size) + "?page=" + random.nextInt(100);
+            ids[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        }
+        
+        System.out.printf("%,d strings%n", size);
+        System.out.printf("%-10s %-10s %-20s %-20s %-10s%n", "input", "type", "Arrays.sort (ms)", "StringSort (ms)", "speedup");
+        for (String[] input : List.of(urls, ids)) {
+            String name = input == urls ? "urls" : "ids";
+            
+            long arraysMillis = timeMillis(input, String[]::clone, Arrays::sort, SortBenchmark::isSorted);
+            long stringSortMillis = timeMillis(input, String[]::clone, StringSort::sort, SortBenchmark::isSorted);
+            System.out.printf("%-10s %-10s %-20d %-20d %-10s%n", name, "String", arraysMillis, stringSortMillis,
+                    String.format(Locale.ROOT, "%.2fx", arraysMillis / (double) Math.max(1, stringSortMillis)));
+            
+            byte[][] bytes = new byte[size][];
+            for (int i = 0; i < size; i++) {
+                bytes[i] = input[i].getBytes(StandardCharsets.UTF_8);
+            }
+            arraysMillis = timeMillis(bytes, byte[][]::clone, a -> Arrays.sort(a, Arrays::compareUnsigned), SortBenchmark::isSorted);
+            stringSortMillis = timeMillis(bytes, byte[][]::clone, StringSort::sort, SortBenchmark::isSorted);
+            System.out.printf("%-10s %-10s %-20d %-20d %-10s%n", name, "byte[]", arraysMillis, stringSortMillis,
+                    String.format(Locale.ROOT, "%.2fx", arraysMillis / (double) Math.max(1, stringSortMillis)));
+        }
+    }
+    
+    private static boolean isSorted(String[] strings) {
+        for (int i = 1; i < strings.length; i++) {
+            if (strings[i].compareTo(strings[i - 1]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isSorted(byte[][] strings) {
+        for (int i = 1; i < strings.length; i++) {
+            if (Arrays.compareUnsigned(strings[i], strings[i - 1]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Introselect with QuickSort's partitioning against a full sort of the same input: the median,
+     * the 100 smallest elements and the smallest 1% in sorted order.
+     */
+    private static void selection(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        int[] sorted = input.clone();
+        Arrays.sort(sorted);
+        int median = size / 2;
+        int top = Math.min(100, size);
+        int percent = size / 100;
+        QuickSort quickSort = new QuickSort(PivotStrategy.NINTHER);
+        
+        System.out.printf("%,d random ints%n", size);
+        System.out.printf("%-24s %-12s %-16s %-16s%n", "operation", "time (ms)", "comparisons", "vs full sort");
+        
+        long fullMillis = timeMillis(input, int[]::clone, a -> quickSort.partialSort(a, a.length),
+                a -> Arrays.equals(a, sorted));
+        long fullComparisons = quickSort.getSelectionComparisons();
+        System.out.printf("%-24s %-12d %-,16d %-16s%n", "full sort", fullMillis, fullComparisons, "1.00x");
+        
+        long selectMillis = timeMillis(input, int[]::clone, a -> quickSort.select(a, median),
+                a -> a[median] == sorted[median]);
+        printSelection("select(n/2)", selectMillis, quickSort.getSelectionComparisons(), fullComparisons);
+        
+        long topMillis = timeMillis(input, int[]::clone, a -> quickSort.partialSort(a, top),
+                a -> Arrays.equals(a, 0, top, sorted, 0, top));
+        printSelection("partialSort(" + top + ")", topMillis, quickSort.getSelectionComparisons(), fullComparisons);
+        
+        long percentMillis = timeMillis(input, int[]::clone, a -> quickSort.partialSort(a, percent),
+                a -> Arrays.equals(a, 0, percent, sorted, 0, percent));
+        printSelection("partialSort(n/100)", percentMillis, quickSort.getSelectionComparisons(), fullComparisons);
+    }
+    
+    private static void printSelection(String operation, long millis, long comparisons, long fullComparisons) {
+        System.out.printf("%-24s %-12d %-,16d %-16s%n", operation, millis, comparisons,
+                String.format(Locale.ROOT, "%.2fx", comparisons / (double) Math.max(1, fullComparisons)));
+    }
+    
+    /**
+     * The k largest of size ints with IntTopK, offered one value at a time and in chunks, against
+     * sorting the whole input and taking its tail. Random values rarely enter the top k; ascending
+     * values all do, which is the worst case for the heap.
+     */
+    private static void topK(int size) {
+        int[] random = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        int[] ascending = new int[size];
+        for (int i = 0; i < size; i++) {
+            ascending[i] = i;
+        }
+        int chunk = 1 << 16;
+        
+        System.out.printf("%,d ints%n", size);
+        System.out.printf("%-10s %-10s %-24s %-12s %-10s%n", "input", "k", "method", "time (ms)", "Mint/s");
+        for (int[] input : List.of(random, ascending)) {
+            String name = input == random ? "random" : "ascending";
+            int[] sorted = input.clone();
+            Arrays.sort(sorted);
+            
+            for (int k : new int[]{100, 10_000}) {
+                if (k > size) {
+                    continue;
+                }
+                int[] expected = new int[k];
+                for (int i = 0; i < k; i++) {
+                    expected[i] = sorted[size - 1 - i];
+                }
+                IntTopK topK = new IntTopK(k);
+                Predicate<int[]> correct = a -> Arrays.equals(topK.sortedSnapshot(), expected);
+                
+                long acceptMillis = timeMillis(input, a -> a, a -> {
+                    topK.clear();
+                    for (int value : a) {
+                        topK.accept(value);
+                    }
+                }, correct);
+                System.out.printf("%-10s %-10d %-24s %-12d %-10s%n", name, k, "accept(int)", acceptMillis,
+                        throughput(size, acceptMillis));
+                
+                long chunkMillis = timeMillis(input, a -> a, a -> {
+                    topK.clear();
+                    for (int from = 0; from < a.length; from += chunk) {
+                        topK.acceptAll(a, from, Math.min(a.length, from + chunk));
+                    }
+                }, correct);
+                System.out.printf("%-10s %-10d %-24s %-12d %-10s%n", name, k, "acceptAll(64K chunks)", chunkMillis,
+                        throughput(size, chunkMillis));
+                
+                long sortMillis = timeMillis(input, int[]::clone, Arrays::sort,
+                        a -> Arrays.equals(a, size - k, size, sorted, size - k, size));
+                System.out.printf("%-10s %-10d %-24s %-12d %-10s%n", name, k, "Arrays.sort + tail", sortMillis,
+                        throughput(size, sortMillis));
+            }
+        }
+    }
+    
+    /**
+     * Merge size random ints cut into k sorted runs, for k from 2 to 1024: the loser tree of
+     * KWayMerge sequentially and split across all cores, a binary heap of the runs' heads, and
+     * Arrays.sort of the concatenated runs.
+     */
+    private static void kWayMerge(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+        int[] target = new int[size];
+        int threads = Runtime.getRuntime().availableProcessors();
+        Predicate<int[][]> merged = runs -> Arrays.equals(target, expected);
+        
+        System.out.printf("%,d random ints, %d threads for parallelMerge%n", size, threads);
+        System.out.printf("%-8s %-16s %-16s %-16s %-16s%n", "k", "loser tree", "parallelMerge", "binary heap", "Arrays.sort");
+        for (int k = 2; k <= 1024 && k <= size; k *= 2) {
+            int[][] runs = new int[k][];
+            for (int i = 0; i < k; i++) {
+                runs[i] = Arrays.copyOfRange(input, (int) ((long) size * i / k), (int) ((long) size * (i + 1) / k));
+                Arrays.sort(runs[i]);
+            }
+            
+            long loserTreeMillis = timeMillis(runs, r -> r, r -> KWayMerge.merge(r, target, 0), merged);
+            long parallelMillis = timeMillis(runs, r -> r, r -> {
+                int[] result = KWayMerge.parallelMerge(r, threads);
+                System.arraycopy(result, 0, target, 0, size);
+            }, merged);
+            long heapMillis = timeMillis(runs, r -> r, r -> heapMerge(r, target), merged);
+            long sortMillis = timeMillis(runs, r -> r, r -> {
+                for (int i = 0, offset = 0; i < r.length; offset += r[i].length, i++) {
+                    System.arraycopy(r[i], 0, target, offset, r[i].length);
+                }
+                Arrays.sort(target);
+            }, merged);
+            
+            System.out.printf("%-8d %-16d %-16d %-16d %-16d%n", k, loserTreeMillis, parallelMillis, heapMillis, sortMillis);
+        }
+        System.out.println("(times in ms)");
+    }
+    
+    /**
+     * Reference k-way merge with a binary min-heap of run indices, as in ExternalMergeSort.
+     */
+    private static void heapMerge(int[][] runs, int[] target) {
+        int k = runs.length;
+        int[] heap = new int[k];
+        int[] heads = new int[k];
+        int[] positions = new int[k];
+        int size = 0;
+        for (int i = 0; i < k; i++) {
+            if (runs[i].length > 0) {
+                heads[i] = runs[i][0];
+                positions[i] = 1;
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heads, i, size);
+        }
+        
+        int out = 0;
+        while (size > 0) {
+            int run = heap[0];
+            target[out++] = heads[run];
+            if (positions[run] < runs[run].length) {
+                heads[run] = runs[run][positions[run]++];
+            } else {
+                heap[0] = heap[--size];
+            }
+            siftDown(heap, heads, 0, size);
+        }
+    }
+    
+    private static void siftDown(int[] heap, int[] heads, int root, int size) {
+        int run = heap[root];
+        int value = heads[run];
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heads[heap[child + 1]] < heads[heap[child]]) {
+                child++;
+            }
+            if (value <= heads[heap[child]]) {
+                break;
+            }
+            heap[root] = heap[child];
+            root = child;
+        }
+        heap[root] = run;
+    }
+    
+    /**
+     * Step every algorithm through a sort of size random ints (capped at 2,000 for the quadratic
+     * ones), once with step() and once with one ReusableSortingEvent, and report the bytes
+     * allocated per step. PdqSort still uses the copying default of step(ReusableSortingEvent).
+     */
+    private static void stepAllocation(int size) {
+        SortingAlgorithm[] algorithms = {
+            new BubbleSort(), new SelectionSort(), new InsertionSort(), new QuickSort(PivotStrategy.NINTHER),
+            new MergeSort(), new PdqSort()
+        };
+        
+        System.out.printf("%-16s %-12s %-16s %-16s %-16s %-16s%n", "algorithm", "steps",
+                "step() B/step", "step() Msteps/s", "reused B/step", "reused Msteps/s");
+        for (SortingAlgorithm algorithm : algorithms) {
+            boolean quadratic = algorithm instanceof BubbleSort || algorithm instanceof SelectionSort
+                    || algorithm instanceof InsertionSort;
+            int[] input = ArrayGenerator.generateRandomArray(quadratic ? Math.min(size, 2_000) : size, 0, 1_000_000);
+            ReusableSortingEvent event = new ReusableSortingEvent();
+            
+            long[] fresh = new long[3];
+            long[] reused = new long[3];
+            for (int run = 0; run <= RUNS; run++) {
+                fresh = countSteps(algorithm, input, null);
+                reused = countSteps(algorithm, input, event);
+            }
+            System.out.printf("%-16s %-,12d %-16.1f %-16s %-16.1f %-16s%n", algorithm.getClass().getSimpleName(), fresh[0],
+                    fresh[1] / (double) fresh[0], throughput((int) Math.min(Integer.MAX_VALUE, fresh[0]), fresh[2]),
+                    reused[1] / (double) reused[0], throughput((int) Math.min(Integer.MAX_VALUE, reused[0]), reused[2]));
+        }
+    }
+    
+    /**
+     * Step an algorithm to completion, with step() if event is null and with step(event) otherwise.
+     *
+     * @return The number of steps, the bytes allocated and the time in milliseconds
+     */
+    private static long[] countSteps(SortingAlgorithm algorithm, int[] input, ReusableSortingEvent event) {
+        algorithm.init(input);
+        long steps = 0;
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        while (!algorithm.isSortingComplete()) {
+            if (event == null) {
+                algorithm.step();
+            } else {
+                algorithm.step(event);
+            }
+            steps++;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        allocated = allocatedBytes() - allocated;
+        checkSorted(algorithm, algorithm.sort().getCurrentArray());
+        return new long[]{steps, allocated, millis};
+    }
+    
+    /**
+     * Follow the array of a stepped sort the way a renderer does, once by copying the array of
+     * every event and once by applying the operations each step records, for arrays of 1,000 ints
+     * and every tenfold size up to size. Both loops run the same steps, so the difference is the
+     * cost of following the array.
+     */
+    private static void operationLog(int size) {
+        final int steps = 500;
+        System.out.printf("%,d steps of QuickSort (ninther) and MergeSort on random ints%n", steps);
+        System.out.printf("%-12s %-12s %-16s %-16s %-12s%n", "algorithm", "size", "copy ns/step", "oplog ns/step",
+                "ops/step");
+        for (int n = 1_000; n <= size; n *= 10) {
+            int[] input = ArrayGenerator.generateRandomArray(n, 0, Integer.MAX_VALUE - 1);
+            for (SortingAlgorithm algorithm : new SortingAlgorithm[]{new QuickSort(PivotStrategy.NINTHER), new MergeSort()}) {
+                long copy = Long.MAX_VALUE;
+                long following = Long.MAX_VALUE;
+                long operations = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    copy = Math.min(copy, followSteps(algorithm, input, steps, null)[0]);
+                    long[] result = followSteps(algorithm, input, steps, new OperationLog());
+                    following = Math.min(following, result[0]);
+                    operations = result[1];
+                }
+                System.out.printf("%-12s %-,12d %-16d %-16d %-12.1f%n", algorithm.getClass().getSimpleName(), n,
+                        copy / steps, following / steps, operations / (double) steps);
+            }
+            if (n > Integer.MAX_VALUE / 10) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Run the given number of steps and keep a copy of the array up to date, by copying each
+     * event's array if log is null and by applying the recorded operations otherwise.
+     *
+     * @return The time in nanoseconds and the number of operations applied
+     */
+    private static long[] followSteps(SortingAlgorithm algorithm, int[] input, int steps, OperationLog log) {
+        algorithm.setOperationLog(log);
+        algorithm.init(input);
+        ReusableSortingEvent event = new ReusableSortingEvent();
+        int[] displayed = input.clone();
+        long operations = 0;
+        long start = System.nanoTime();
+        for (int step = 0; step < steps && !algorithm.isSortingComplete(); step++) {
+            algorithm.step(event);
+            if (log == null) {
+                displayed = event.getCurrentArray().clone();
+            } else {
+                operations += log.applyTo(displayed, 0);
+                log.clear();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        algorithm.setOperationLog(null);
+        if (!Arrays.equals(displayed, event.getCurrentArray())) {
+            throw new IllegalStateException(algorithm.getClass().getSimpleName() + " diverged from its operation log");
+        }
+        return new long[]{nanos, operations};
+    }
+    
+    /**
+     * Record every step of Introsort on size random ints to a temporary trace file, then read the
+     * trace back twice: decoding and applying the operations only, and as events through a
+     * TraceReplayer. Both replays must end with the sorted array.
+     */
+    private static void trace(int size) {
+        int[] input = ArrayGenerator.generateRandomArray(size, 0, Integer.MAX_VALUE - 1);
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+        Path file = null;
+        
+        System.out.printf("Introsort, %,d random ints%n", size);
+        try {
+            file = Files.createTempFile("sortalgo-trace-", ".trace");
+            TraceStats stats = TraceRecorder.record(file, new QuickSort(PivotStrategy.NINTHER), input);
+            System.out.printf("recorded %,d steps, %,d operations in %,d ms: %,d MB of steps, %.2f bytes/op%n",
+                    stats.getSteps(), stats.getOperations(), stats.getExecutionTime(), stats.getStepBytes() >> 20,
+                    stats.getBytesPerOperation());
+            System.out.printf("%,d checkpoints: %,d MB%n", stats.getCheckpoints(), stats.getCheckpointBytes() >> 20);
+            
+            System.out.printf("%-20s %-12s %-12s %-12s%n", "replay", "time (ms)", "Mops/s", "Msteps/s");
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                int[] array;
+                try (TraceReader reader = new TraceReader(file)) {
+                    array = reader.readInitialArray();
+                    while (reader.nextStep(array, null)) {
+                        // Apply every step
+                    }
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                checkReplayed(array, expected);
+                printReplay("operations", millis, stats);
+                
+                start = System.nanoTime();
+                try (TraceReplayer replayer = new TraceReplayer(file)) {
+                    ReusableSortingEvent event = new ReusableSortingEvent();
+                    while (!replayer.isComplete()) {
+                        replayer.step(event);
+                    }
+                    array = event.getCurrentArray();
+                }
+                millis = (System.nanoTime() - start) / 1_000_000;
+                checkReplayed(array, expected);
+                printReplay("events", millis, stats);
+            }
+            
+            seeks(file, stats, expected);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+    
+    /**
+     * Time random seeks forwards and backwards through a trace, each from the step the previous one
+     * reached.
+     */
+    private static void seeks(Path file, TraceStats stats, int[] expected) throws IOException {
+        final int seeks = 100;
+        SplittableRandom random = new SplittableRandom(42);
+        
+        System.out.printf("%-20s %-12s %-12s%n", "seek", "count", "avg (ms)");
+        try (TraceReplayer replayer = new TraceReplayer(file)) {
+            checkReplayed(replayer.seek(stats.getSteps()).getCurrentArray(), expected);
+            
+            long forwardNanos = 0;
+            long backwardNanos = 0;
+            int forward = 0;
+            for (int i = 0; i < seeks; i++) {
+                long target = random.nextLong(stats.getSteps() + 1);
+                boolean isForward = target >= replayer.getStepNumber();
+                long start = System.nanoTime();
+                replayer.seek(target);
+                long nanos = System.nanoTime() - start;
+                if (isForward) {
+                    forwardNanos += nanos;
+                    forward++;
+                } else {
+                    backwardNanos += nanos;
+                }
+            }
+            System.out.printf("%-20s %-12d %-12.2f%n", "forward", forward, forwardNanos / 1e6 / Math.max(1, forward));
+            System.out.printf("%-20s %-12d %-12.2f%n", "backward", seeks - forward,
+                    backwardNanos / 1e6 / Math.max(1, seeks - forward));
+            
+            checkReplayed(replayer.seek(stats.getSteps()).getCurrentArray(), expected);
+        }
+    }
+    
+    private static void checkReplayed(int[] array, int[] expected) {
+        if (!Arrays.equals(array, expected)) {
+            throw new IllegalStateException("The replayed trace does not end with the sorted array");
+        }
+    }
+    
+    private static void printReplay(String mode, long millis, TraceStats stats) {
+        System.out.printf("%-20s %-12d %-12.1f %-12.1f%n", mode, millis,
+                stats.getOperations() / 1000.0 / Math.max(1, millis), stats.getSteps() / 1000.0 / Math.max(1, millis));
+    }
+    
+    /**
+     * Sort size random ints held off-heap with each long-indexed algorithm and report the throughput.
+     */
+    private static void offHeapSort(long size) {
+        OffHeapSortingAlgorithm[] algorithms = {new OffHeapQuickSort(), new OffHeapRadixSort()};
+        
+        System.out.printf("%,d ints (%,d MB off-heap)%n", size, (size * Integer.BYTES) >> 20);
+        System.out.printf("%-20s %-12s %-10s%n", "algorithm", "time (ms)", "Mint/s");
+        
+        OffHeapIntArray array = OffHeapIntArray.allocate(size);
+        for (OffHeapSortingAlgorithm algorithm : algorithms) {
+            SplittableRandom random = new SplittableRandom(42);
+            for (long i = 0; i < size; i++) {
+                array.set(i, random.nextInt());
+            }
+            
+            long start = System.nanoTime();
+            algorithm.sort(array);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            
+            long unsorted = array.findUnsorted();
+            if (unsorted >= 0) {
+                throw new IllegalStateException(algorithm.getClass().getSimpleName() + " is not sorted at index " + unsorted);
+            }
+            
+            System.out.printf("%-20s %-12d %-10s%n", algorithm.getClass().getSimpleName(), elapsed,
+                    String.format(Locale.ROOT, "%.1f", size / 1000.0 / Math.max(1, elapsed)));
+        }
+    }
+    
+    private static int nextThreadCount(int threads, int cores) {
+        return threads < cores && threads * 2 > cores ? cores : threads * 2;
+    }
+    
+    /**
+     * Best wall-clock time out of a few runs, after one warm-up run.
+     */
+    private static long timeMillis(SortingAlgorithm algorithm, int[] input) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            algorithm.init(input);
+            long start = System.nanoTime();
+            int[] result = algorithm.sort().getCurrentArray();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            checkSorted(algorithm, result);
+            if (run > 0) {
+                best = Math.min(best, millis);
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Best wall-clock time out of a few runs over fresh copies of a primitive array, after one warm-up run.
+     */
+    private static <A> long timeMillis(A input, UnaryOperator<A> copy, Consumer<A> sorter, Predicate<A> isSorted) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            A array = copy.apply(input);
+            long start = System.nanoTime();
+            sorter.accept(array);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (!isSorted.test(array)) {
+                throw new IllegalStateException("Primitive sort produced an unsorted array");
+            }
+            if (run > 0) {
+                best = Math.min(best, millis);
+            }
+        }
+        return best;
+    }
+    
+    private static String throughput(int size, long millis) {
+        return String.format(Locale.ROOT, "%.1f", size / 1000.0 / Math.max(1, millis));
+    }
+    
+    private static void checkSorted(SortingAlgorithm algorithm, int[] result) {
+        for (int i = 1; i < result.length; i++) {
+            if (result[i - 1] > result[i]) {
+                throw new IllegalStateException(algorithm.getClass().getSimpleName()
+                        + " produced an unsorted array at index " + i);
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.sortalgo.console;
 import com.sortalgo.algorithm.*;
 import com.sortalgo.model.SortingEvent;
 
+import java.util.Map;
+
 /**
  * Uma classe que fornece visualização dos algoritmos de ordenação no console.
  */
@@ -63,6 +65,9 @@ public class ConsoleVisualizer {
             System.out.println("Comparações: " + event.getComparisons());
             System.out.println("Trocas: " + event.getSwaps());
             System.out.println("Tempo de Execução: " + event.getExecutionTime() + " ms");
+            for (Map.Entry<String, Object> metric : event.getMetrics().entrySet()) {
+                System.out.println(metric.getKey() + ": " + metric.getValue());
+            }
         }
     }
     
@@ -0,0 +1,290 @@
+package com.sortalgo.external;
+
+import com.sortalgo.algorithm.PivotStrategy;
+import com.sortalgo.algorithm.QuickSort;
+import com.sortalgo.algorithm.SortingAlgorithm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * External merge sort for binary int files larger than the heap.
+ *
+ * The input is read in chunks that fit in the memory budget. Each chunk is sorted in memory with a
+ * {@link SortingAlgorithm} and written to a temporary run file. The runs are then merged k at a time
+ * through buffered NIO channels, with as many runs per merge as the memory budget has room for read
+ * buffers; more runs than that take additional merge passes. Temporary files are deleted even when
+ * the sort fails.
+ *
+ * Files are sequences of 4-byte big-endian ints, as read by {@link IntFileReader}.
+ */
+public class ExternalMergeSort {
+    
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+    
+    // Heap bytes per chunk element: the chunk, the copy made by init() and the sorter's scratch space
+    private static final int BYTES_PER_CHUNK_ELEMENT = 3 * Integer.BYTES;
+    
+    // Smallest read buffer per run during a merge; limits how many runs are merged at once
+    private static final int MIN_MERGE_BUFFER_BYTES = 64 * 1024;
+    
+    private static final int MAX_BUFFER_BYTES = 8 << 20;
+    
+    private final long memoryBudget;
+    private final Supplier<SortingAlgorithm> chunkSorter;
+    private final Path tempDirectory;
+    
+    // Counters of the sort in progress
+    private long bytesRead;
+    private long bytesWritten;
+    private long comparisons;
+    
+    /**
+     * Create an external sort with the default memory budget that sorts chunks with Introsort.
+     */
+    public ExternalMergeSort() {
+        this(DEFAULT_MEMORY_BUDGET, () -> new QuickSort(PivotStrategy.NINTHER));
+    }
+    
+    /**
+     * Create an external sort that keeps temporary runs in the default temporary directory.
+     *
+     * @param memoryBudget Heap bytes the sort may use for chunks and buffers
+     * @param chunkSorter Creates the algorithm used to sort each chunk in memory
+     */
+    public ExternalMergeSort(long memoryBudget, Supplier<SortingAlgorithm> chunkSorter) {
+        this(memoryBudget, chunkSorter, null);
+    }
+    
+    /**
+     * Create an external sort with explicit settings.
+     *
+     * @param memoryBudget Heap bytes the sort may use for chunks and buffers
+     * @param chunkSorter Creates the algorithm used to sort each chunk in memory
+     * @param tempDirectory Directory for temporary runs, or null for the default temporary directory
+     */
+    public ExternalMergeSort(long memoryBudget, Supplier<SortingAlgorithm> chunkSorter, Path tempDirectory) {
+        if (memoryBudget < 2L * MIN_MERGE_BUFFER_BYTES) {
+            throw new IllegalArgumentException("memoryBudget must be at least " + 2 * MIN_MERGE_BUFFER_BYTES + " bytes");
+        }
+        if (chunkSorter == null) {
+            throw new IllegalArgumentException("chunkSorter must not be null");
+        }
+        this.memoryBudget = memoryBudget;
+        this.chunkSorter = chunkSorter;
+        this.tempDirectory = tempDirectory;
+    }
+    
+    /**
+     * Sort a binary int file into another file.
+     *
+     * @param input The file to sort
+     * @param output The file to write the sorted ints to; replaced if it exists
+     * @return Statistics of the sort
+     * @throws IOException if reading or writing fails, or the input is not a file of ints
+     */
+    public ExternalSortStats sort(Path input, Path output) throws IOException {
+        long startTime = System.currentTimeMillis();
+        bytesRead = 0;
+        bytesWritten = 0;
+        comparisons = 0;
+        
+        List<Path> runs = new ArrayList<>();
+        // Runs of the merge pass in progress, deleted with the others if the pass fails
+        List<Path> merged = new ArrayList<>();
+        try {
+            long elements = createRuns(input, runs);
+            int initialRuns = runs.size();
+            int mergePasses = 0;
+            
+            if (runs.isEmpty()) {
+                new IntFileWriter(output, Integer.BYTES).close();
+            } else if (runs.size() == 1) {
+                // A single run is already the result
+                Files.move(runs.remove(0), output, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                int fanIn = maxFanIn();
+                
+                // Intermediate passes, until one merge can take all remaining runs
+                while (runs.size() > fanIn) {
+                    for (int from = 0; from < runs.size(); from += fanIn) {
+                        List<Path> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+                        Path run = createTempRun();
+                        merged.add(run);
+                        merge(group, run);
+                    }
+                    deleteAll(runs);
+                    runs = merged;
+                    merged = new ArrayList<>();
+                    mergePasses++;
+                }
+                
+                merge(runs, output);
+                mergePasses++;
+            }
+            
+            return new ExternalSortStats(elements, initialRuns, mergePasses, bytesRead, bytesWritten,
+                    comparisons, System.currentTimeMillis() - startTime);
+        } finally {
+            deleteAll(merged);
+            deleteAll(runs);
+        }
+    }
+    
+    /**
+     * Split the input into sorted runs of at most chunkLength() ints.
+     *
+     * @return The number of ints in the input
+     */
+    private long createRuns(Path input, List<Path> runs) throws IOException {
+        try (IntFileReader reader = new IntFileReader(input, bufferBytes(1))) {
+            long elements = reader.remaining();
+            if (elements == 0) {
+                return 0;
+            }
+            
+            int[] chunk = new int[(int) Math.min(elements, chunkLength())];
+            while (reader.hasNext()) {
+                int length = (int) Math.min(reader.remaining(), chunk.length);
+                reader.read(chunk, 0, length);
+                
+                SortingAlgorithm sorter = chunkSorter.get();
+                sorter.init(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+                int[] sorted = sorter.sort().getCurrentArray();
+                comparisons += sorter.getComparisons();
+                
+                Path run = createTempRun();
+                runs.add(run);
+                try (IntFileWriter writer = new IntFileWriter(run, bufferBytes(1))) {
+                    writer.write(sorted, 0, length);
+                    writer.flush();
+                    bytesWritten += writer.getBytesWritten();
+                }
+            }
+            
+            bytesRead += reader.getBytesRead();
+            return elements;
+        }
+    }
+    
+    /**
+     * Merge sorted runs into the target with a min-heap of the runs' current values.
+     */
+    private void merge(List<Path> runs, Path target) throws IOException {
+        int k = runs.size();
+        int bufferBytes = bufferBytes(k + 1);
+        IntFileReader[] readers = new IntFileReader[k];
+        
+        try (IntFileWriter writer = new IntFileWriter(target, bufferBytes)) {
+            // Heap of run indices ordered by their current values
+            int[] heap = new int[k];
+            int[] heads = new int[k];
+            int size = 0;
+            
+            for (int i = 0; i < k; i++) {
+                readers[i] = new IntFileReader(runs.get(i), bufferBytes);
+                if (readers[i].hasNext()) {
+                    heads[i] = readers[i].next();
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heads, i, size);
+            }
+            
+            while (size > 0) {
+                int run = heap[0];
+                writer.write(heads[run]);
+                
+                if (readers[run].hasNext()) {
+                    heads[run] = readers[run].next();
+                } else {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, heads, 0, size);
+            }
+            
+            writer.flush();
+            bytesWritten += writer.getBytesWritten();
+        } finally {
+            for (IntFileReader reader : readers) {
+                if (reader != null) {
+                    bytesRead += reader.getBytesRead();
+                    reader.close();
+                }
+            }
+        }
+    }
+    
+    private void siftDown(int[] heap, int[] heads, int root, int size) {
+        int run = heap[root];
+        int value = heads[run];
+        
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                break;
+            }
+            
+            if (child + 1 < size) {
+                comparisons++;
+                if (heads[heap[child + 1]] < heads[heap[child]]) {
+                    child++;
+                }
+            }
+            
+            comparisons++;
+            if (value <= heads[heap[child]]) {
+                break;
+            }
+            
+            heap[root] = heap[child];
+            root = child;
+        }
+        
+        heap[root] = run;
+    }
+    
+    /**
+     * Ints per in-memory chunk allowed by the memory budget.
+     */
+    private long chunkLength() {
+        return Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryBudget / BYTES_PER_CHUNK_ELEMENT));
+    }
+    
+    /**
+     * Runs that can be merged at once while giving each run and the output a minimum-sized buffer.
+     */
+    private int maxFanIn() {
+        return (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryBudget / MIN_MERGE_BUFFER_BYTES - 1));
+    }
+    
+    /**
+     * Size of each buffer when the budget is shared by the given number of buffers.
+     */
+    private int bufferBytes(int buffers) {
+        return (int) Math.max(MIN_MERGE_BUFFER_BYTES, Math.min(MAX_BUFFER_BYTES, memoryBudget / buffers));
+    }
+    
+    private Path createTempRun() throws IOException {
+        return tempDirectory == null
+                ? Files.createTempFile("sortalgo-run-", ".bin")
+                : Files.createTempFile(tempDirectory, "sortalgo-run-", ".bin");
+    }
+    
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+}
@@ -0,0 +1,99 @@
+package com.sortalgo.external;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of one external sort: how much data was read and written, including temporary runs,
+ * and how the work was split into runs and merge passes.
+ */
+public class ExternalSortStats {
+    
+    private final long elements;
+    private final int runs;
+    private final int mergePasses;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final long comparisons;
+    private final long executionTime;
+    
+    ExternalSortStats(long elements, int runs, int mergePasses, long bytesRead, long bytesWritten,
+                      long comparisons, long executionTime) {
+        this.elements = elements;
+        this.runs = runs;
+        this.mergePasses = mergePasses;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.comparisons = comparisons;
+        this.executionTime = executionTime;
+    }
+    
+    /**
+     * Number of ints sorted.
+     */
+    public long getElements() {
+        return elements;
+    }
+    
+    /**
+     * Number of sorted runs produced from the memory-sized chunks of the input.
+     */
+    public int getRuns() {
+        return runs;
+    }
+    
+    /**
+     * Number of passes over the data needed to merge the runs (0 if the input fit in one run).
+     */
+    public int getMergePasses() {
+        return mergePasses;
+    }
+    
+    /**
+     * Bytes read from the input file and the temporary run files.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    /**
+     * Bytes written to the temporary run files and the output file.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    /**
+     * Comparisons made while sorting the chunks and merging the runs.
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+    
+    /**
+     * Wall-clock time of the sort in milliseconds.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+    
+    /**
+     * The statistics as a map, in the same form as {@link com.sortalgo.model.SortingEvent#getMetrics()}.
+     */
+    public Map<String, Object> toMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("elements", elements);
+        metrics.put("runs", runs);
+        metrics.put("mergePasses", mergePasses);
+        metrics.put("bytesRead", bytesRead);
+        metrics.put("bytesWritten", bytesWritten);
+        metrics.put("comparisons", comparisons);
+        metrics.put("executionTime", executionTime);
+        return metrics;
+    }
+    
+    @Override
+    public String toString() {
+        return "ExternalSortStats" + toMetrics();
+    }
+}
@@ -0,0 +1,132 @@
+package com.sortalgo.external;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of a binary file of ints through a buffered NIO channel.
+ * Values are stored as 4-byte big-endian ints, the format written by {@link IntFileWriter}
+ * and {@link java.io.DataOutputStream}.
+ */
+public class IntFileReader implements AutoCloseable {
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long remaining;
+    private long bytesRead;
+    
+    /**
+     * Open a file for reading.
+     *
+     * @param file The file to read
+     * @param bufferBytes Size of the read buffer, rounded down to whole ints
+     * @throws IOException if the file cannot be opened or its length is not a multiple of 4 bytes
+     */
+    public IntFileReader(Path file, int bufferBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size % Integer.BYTES != 0) {
+            channel.close();
+            throw new IOException(file + " is not a file of ints: its length " + size + " is not a multiple of 4");
+        }
+        
+        this.buffer = ByteBuffer.allocateDirect(Math.max(Integer.BYTES, bufferBytes - bufferBytes % Integer.BYTES))
+                .order(ByteOrder.BIG_ENDIAN);
+        this.buffer.flip(); // Start empty
+        this.remaining = size / Integer.BYTES;
+        this.bytesRead = 0;
+    }
+    
+    /**
+     * Check if there are more values to read.
+     *
+     * @return true if next() will return a value
+     */
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+    
+    /**
+     * Read the next value.
+     *
+     * @return The next value in the file
+     * @throws IOException if reading fails or the end of the file has been reached
+     */
+    public int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            fill();
+        }
+        remaining--;
+        return buffer.getInt();
+    }
+    
+    /**
+     * Read the next values into a part of an array.
+     *
+     * @param target The array to fill
+     * @param offset First position to fill
+     * @param length Number of values to read
+     * @throws IOException if reading fails or the file has fewer values left
+     */
+    public void read(int[] target, int offset, int length) throws IOException {
+        if (length > remaining) {
+            throw new EOFException("Requested " + length + " ints but only " + remaining + " are left");
+        }
+        
+        int end = offset + length;
+        while (offset < end) {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            int count = Math.min(end - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(target, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+        }
+        remaining -= length;
+    }
+    
+    private void fill() throws IOException {
+        if (remaining == 0) {
+            throw new EOFException("No ints left to read");
+        }
+        
+        buffer.clear();
+        while (buffer.position() < Integer.BYTES) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("File ended before the expected number of ints");
+            }
+        }
+        
+        // Keep only whole ints; a partial int at the end is read again with the next fill
+        int whole = buffer.position() - buffer.position() % Integer.BYTES;
+        channel.position(channel.position() - (buffer.position() - whole));
+        bytesRead += whole;
+        buffer.position(whole);
+        buffer.flip();
+    }
+    
+    /**
+     * Number of values that have not been read yet.
+     */
+    public long remaining() {
+        return remaining;
+    }
+    
+    /**
+     * Number of bytes read from the file so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
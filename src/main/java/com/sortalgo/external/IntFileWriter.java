@@ -0,0 +1,97 @@
+package com.sortalgo.external;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential writer of a binary file of ints through a buffered NIO channel.
+ * Values are written as 4-byte big-endian ints; an existing file is truncated.
+ */
+public class IntFileWriter implements AutoCloseable {
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+    
+    /**
+     * Create or truncate a file for writing.
+     *
+     * @param file The file to write
+     * @param bufferBytes Size of the write buffer, rounded down to whole ints
+     * @throws IOException if the file cannot be opened
+     */
+    public IntFileWriter(Path file, int bufferBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(Integer.BYTES, bufferBytes - bufferBytes % Integer.BYTES))
+                .order(ByteOrder.BIG_ENDIAN);
+        this.bytesWritten = 0;
+    }
+    
+    /**
+     * Write one value.
+     *
+     * @param value The value to write
+     * @throws IOException if writing fails
+     */
+    public void write(int value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putInt(value);
+    }
+    
+    /**
+     * Write a part of an array.
+     *
+     * @param source The array to write from
+     * @param offset First position to write
+     * @param length Number of values to write
+     * @throws IOException if writing fails
+     */
+    public void write(int[] source, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(end - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(source, offset, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            offset += count;
+        }
+    }
+    
+    /**
+     * Write the buffered values to the file.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Number of bytes written to the file so far, not counting values that are still buffered.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
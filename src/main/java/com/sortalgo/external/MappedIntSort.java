@@ -0,0 +1,206 @@
+package com.sortalgo.external;
+
+import com.sortalgo.offheap.OffHeapIntArray;
+import com.sortalgo.offheap.OffHeapQuickSort;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * In-place sort of a binary int file through a memory mapping.
+ *
+ * The file is mapped page by page as an {@link OffHeapIntArray} and sorted directly in the mapped
+ * regions, so the data lives in the operating system's page cache instead of the heap and is never
+ * copied into an int[]; files larger than 2 GB work as well. Two in-place methods are available: the
+ * introsort of {@link OffHeapQuickSort} and an MSD radix sort that permutes 8-bit digit buckets in
+ * place (American flag sort), which only compares elements inside small buckets. Files that do not
+ * fit in the page cache are better sorted with {@link ExternalMergeSort}.
+ *
+ * Files are sequences of 4-byte big-endian ints, as written by {@link IntFileWriter}.
+ */
+public class MappedIntSort {
+    
+    /**
+     * The in-place algorithm used over the mapped ints.
+     */
+    public enum Method {
+        QUICKSORT, RADIX
+    }
+    
+    // Radix buckets at or below this size are finished with the quicksort
+    private static final int RADIX_INSERTION_CUTOFF = 64;
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    
+    private final Method method;
+    private final OffHeapQuickSort quickSort = new OffHeapQuickSort();
+    
+    private OffHeapIntArray ints;
+    private long comparisons;
+    private long swaps;
+    
+    // Bucket boundaries of every radix level, reused by sibling buckets
+    private long[][] bucketNext;
+    private long[][] bucketEnd;
+    
+    /**
+     * Create a mapped sort that uses the in-place radix sort.
+     */
+    public MappedIntSort() {
+        this(Method.RADIX);
+    }
+    
+    /**
+     * Create a mapped sort with the given method.
+     *
+     * @param method The in-place algorithm to run over the mapped ints
+     */
+    public MappedIntSort(Method method) {
+        if (method == null) {
+            throw new IllegalArgumentException("method must not be null");
+        }
+        this.method = method;
+    }
+    
+    /**
+     * Sort a binary int file in place.
+     *
+     * @param file The file to sort
+     * @return Statistics of the sort
+     * @throws IOException if the file cannot be mapped or is not a file of ints
+     */
+    public MappedSortStats sort(Path file) throws IOException {
+        long startTime = System.currentTimeMillis();
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size % Integer.BYTES != 0) {
+                throw new IOException(file + " is not a file of ints: its length " + size + " is not a multiple of 4");
+            }
+            
+            OffHeapIntArray mapped = OffHeapIntArray.map(channel, ByteOrder.BIG_ENDIAN);
+            sort(mapped);
+            
+            // Write the sorted pages back before reporting completion
+            mapped.force();
+            
+            return new MappedSortStats(method, mapped.length(), size, comparisons, swaps,
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+    
+    /**
+     * Sort all ints of an array in place. The array may be a mapped file or allocated off the heap.
+     *
+     * @param array The ints to sort
+     */
+    public void sort(OffHeapIntArray array) {
+        this.comparisons = 0;
+        this.swaps = 0;
+        
+        long n = array.length();
+        if (n > 1) {
+            if (method == Method.RADIX) {
+                ints = array;
+                bucketNext = new long[Integer.SIZE / DIGIT_BITS][RADIX];
+                bucketEnd = new long[Integer.SIZE / DIGIT_BITS][RADIX];
+                radixSort(0, n, Integer.SIZE - DIGIT_BITS, 0);
+                ints = null;
+                bucketNext = null;
+                bucketEnd = null;
+            } else {
+                sortRange(array, 0, n);
+            }
+        }
+    }
+    
+    /**
+     * Sort array[from..to) with the quicksort and add its counts to ours.
+     */
+    private void sortRange(OffHeapIntArray array, long from, long to) {
+        quickSort.sort(array, from, to);
+        comparisons += quickSort.getComparisons();
+        swaps += quickSort.getSwaps();
+    }
+    
+    /**
+     * American flag sort of ints[from..to) on the digit at the given shift, then on the lower digits.
+     */
+    private void radixSort(long from, long to, int shift, int level) {
+        if (to - from <= RADIX_INSERTION_CUTOFF) {
+            sortRange(ints, from, to);
+            return;
+        }
+        
+        long[] next = bucketNext[level];
+        long[] end = bucketEnd[level];
+        
+        // Count the digits, then turn the counts into bucket boundaries
+        Arrays.fill(end, 0);
+        for (long i = from; i < to; i++) {
+            end[digit(ints.get(i), shift)]++;
+        }
+        
+        long offset = from;
+        for (int d = 0; d < RADIX; d++) {
+            next[d] = offset;
+            offset += end[d];
+            end[d] = offset;
+        }
+        
+        // All elements share this digit: nothing to move
+        int firstDigit = digit(ints.get(from), shift);
+        if (end[firstDigit] - next[firstDigit] == to - from) {
+            if (shift > 0) {
+                radixSort(from, to, shift - DIGIT_BITS, level + 1);
+            }
+            return;
+        }
+        
+        // Move every element to its bucket by following cycles of displaced elements
+        for (int d = 0; d < RADIX; d++) {
+            while (next[d] < end[d]) {
+                int value = ints.get(next[d]);
+                int target = digit(value, shift);
+                while (target != d) {
+                    int displaced = ints.get(next[target]);
+                    ints.set(next[target]++, value);
+                    swaps++;
+                    value = displaced;
+                    target = digit(value, shift);
+                }
+                ints.set(next[d]++, value);
+                swaps++;
+            }
+        }
+        
+        if (shift == 0) {
+            return;
+        }
+        
+        // Sort each bucket on the next digit; end[] of this level stays valid while the lower levels run
+        long start = from;
+        for (int d = 0; d < RADIX; d++) {
+            long bucketEndIndex = end[d];
+            if (bucketEndIndex - start > 1) {
+                radixSort(start, bucketEndIndex, shift - DIGIT_BITS, level + 1);
+            }
+            start = bucketEndIndex;
+        }
+    }
+    
+    /**
+     * Extract a digit, with the sign bit flipped so that negative values sort first.
+     */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+    
+    public Method getMethod() {
+        return method;
+    }
+}
@@ -0,0 +1,89 @@
+package com.sortalgo.external;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of one in-place sort of a memory-mapped file. Comparisons and swaps are counted like
+ * the algorithms in {@code com.sortalgo.algorithm}, but as longs so that large files do not overflow.
+ */
+public class MappedSortStats {
+    
+    private final MappedIntSort.Method method;
+    private final long elements;
+    private final long mappedBytes;
+    private final long comparisons;
+    private final long swaps;
+    private final long executionTime;
+    
+    MappedSortStats(MappedIntSort.Method method, long elements, long mappedBytes, long comparisons, long swaps,
+                    long executionTime) {
+        this.method = method;
+        this.elements = elements;
+        this.mappedBytes = mappedBytes;
+        this.comparisons = comparisons;
+        this.swaps = swaps;
+        this.executionTime = executionTime;
+    }
+    
+    /**
+     * The in-place algorithm that was used.
+     */
+    public MappedIntSort.Method getMethod() {
+        return method;
+    }
+    
+    /**
+     * Number of ints sorted.
+     */
+    public long getElements() {
+        return elements;
+    }
+    
+    /**
+     * Size of the mapped region in bytes.
+     */
+    public long getMappedBytes() {
+        return mappedBytes;
+    }
+    
+    /**
+     * Comparisons between elements.
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+    
+    /**
+     * Element writes and exchanges.
+     */
+    public long getSwaps() {
+        return swaps;
+    }
+    
+    /**
+     * Wall-clock time of the sort in milliseconds, including writing the pages back.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+    
+    /**
+     * The statistics as a map, in the same form as {@link com.sortalgo.model.SortingEvent#getMetrics()}.
+     */
+    public Map<String, Object> toMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("method", method);
+        metrics.put("elements", elements);
+        metrics.put("mappedBytes", mappedBytes);
+        metrics.put("comparisons", comparisons);
+        metrics.put("swaps", swaps);
+        metrics.put("executionTime", executionTime);
+        return metrics;
+    }
+    
+    @Override
+    public String toString() {
+        return "MappedSortStats" + toMetrics();
+    }
+}
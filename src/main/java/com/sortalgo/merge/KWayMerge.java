@@ -0,0 +1,247 @@
+package com.sortalgo.merge;
+
+import java.nio.BufferOverflowException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merge of any number of sorted int sequences into one sorted sequence with a {@link LoserTree}.
+ *
+ * Every output value costs ceil(log2 k) comparisons for k inputs, and the merge loop only
+ * reads and writes primitive arrays, so nothing is allocated per value. The merge is stable:
+ * equal values come out in the order of the inputs holding them.
+ *
+ * {@link #parallelMerge} splits the output into equal parts and merges them concurrently. The
+ * start of each part in every input is found by a splitter search: a binary search over the
+ * value range for the value at the part's first output position, followed by a binary search
+ * in each input for where that value begins. No part depends on another one.
+ */
+public final class KWayMerge {
+    
+    private KWayMerge() {
+    }
+    
+    /**
+     * Merge sorted arrays into a new array.
+     *
+     * @param runs Arrays sorted in ascending order
+     * @return A sorted array with the values of all runs
+     */
+    public static int[] merge(int[]... runs) {
+        int[] target = new int[totalLength(runs)];
+        merge(runs, target, 0);
+        return target;
+    }
+    
+    /**
+     * Merge sorted arrays into target, starting at targetFrom.
+     *
+     * @param runs Arrays sorted in ascending order
+     * @param target Array with room for the values of all runs from targetFrom on
+     * @param targetFrom Index of target receiving the smallest value
+     */
+    public static void merge(int[][] runs, int[] target, int targetFrom) {
+        int total = totalLength(runs);
+        if (targetFrom < 0 || targetFrom > target.length - total) {
+            throw new ArrayIndexOutOfBoundsException("Cannot merge " + total + " values into an array of length "
+                    + target.length + " from index " + targetFrom);
+        }
+        int[] from = new int[runs.length];
+        int[] to = new int[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            to[i] = runs[i].length;
+        }
+        mergeRanges(runs, from, to, target, targetFrom);
+    }
+    
+    /**
+     * Merge the remaining values of sorted buffers into target. The runs are read up to their
+     * limits and target is written from its position on, both advancing as with get() and put().
+     *
+     * @param runs Buffers whose remaining values are sorted in ascending order
+     * @param target Buffer with room for the remaining values of all runs
+     */
+    public static void merge(IntBuffer[] runs, IntBuffer target) {
+        long total = 0;
+        for (IntBuffer run : runs) {
+            total += run.remaining();
+        }
+        if (total > target.remaining()) {
+            throw new BufferOverflowException();
+        }
+        if (runs.length == 0) {
+            return;
+        }
+        
+        LoserTree tree = new LoserTree(runs.length);
+        for (int i = 0; i < runs.length; i++) {
+            tree.set(i, runs[i].hasRemaining() ? LoserTree.key(runs[i].get(), i) : LoserTree.EXHAUSTED);
+        }
+        tree.build();
+        
+        for (long written = 0; written < total; written++) {
+            target.put(LoserTree.value(tree.winnerKey()));
+            IntBuffer run = runs[tree.winner()];
+            tree.replaceWinner(run.hasRemaining() ? LoserTree.key(run.get(), tree.winner()) : LoserTree.EXHAUSTED);
+        }
+    }
+    
+    /**
+     * Merge sorted arrays into a new array, splitting the output into one part per thread.
+     *
+     * @param runs Arrays sorted in ascending order
+     * @param parallelism Number of worker threads
+     * @return A sorted array with the values of all runs
+     */
+    public static int[] parallelMerge(int[][] runs, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        int total = totalLength(runs);
+        int[] target = new int[total];
+        if (parallelism == 1 || total < parallelism) {
+            merge(runs, target, 0);
+            return target;
+        }
+        
+        // Split points of every part, parts + 1 of them including the start and the end
+        int[][] splits = new int[parallelism + 1][];
+        for (int part = 0; part <= parallelism; part++) {
+            splits[part] = splitPoints(runs, (int) ((long) total * part / parallelism));
+        }
+        
+        List<RecursiveAction> tasks = new ArrayList<>(parallelism);
+        for (int part = 0; part < parallelism; part++) {
+            int[] from = splits[part];
+            int[] to = splits[part + 1];
+            int targetFrom = (int) ((long) total * part / parallelism);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    mergeRanges(runs, from, to, target, targetFrom);
+                }
+            });
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return target;
+    }
+    
+    /**
+     * Positions in every run at which the merged output reaches rank: the runs' values before
+     * them are exactly the first rank values of the stable merge.
+     */
+    static int[] splitPoints(int[][] runs, int rank) {
+        int[] split = new int[runs.length];
+        long total = totalLength(runs);
+        if (rank >= total) {
+            for (int i = 0; i < runs.length; i++) {
+                split[i] = runs[i].length;
+            }
+            return split;
+        }
+        
+        // The value at output position rank: the smallest v with more than rank values <= v
+        long low = Integer.MIN_VALUE;
+        long high = Integer.MAX_VALUE;
+        while (low < high) {
+            long mid = Math.floorDiv(low + high, 2);
+            long atMost = 0;
+            for (int[] run : runs) {
+                atMost += lowerBound(run, mid + 1);
+            }
+            if (atMost > rank) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        
+        // Everything smaller than the value, then values equal to it in the order of the runs
+        int remaining = rank;
+        for (int i = 0; i < runs.length; i++) {
+            split[i] = lowerBound(runs[i], low);
+            remaining -= split[i];
+        }
+        for (int i = 0; i < runs.length && remaining > 0; i++) {
+            int equal = lowerBound(runs[i], low + 1) - split[i];
+            int taken = Math.min(equal, remaining);
+            split[i] += taken;
+            remaining -= taken;
+        }
+        return split;
+    }
+    
+    /**
+     * Number of values of a sorted run that are smaller than value.
+     */
+    private static int lowerBound(int[] run, long value) {
+        int low = 0;
+        int high = run.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (run[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Merge runs[i][from[i]..to[i]) for every run into target from targetFrom on.
+     */
+    private static void mergeRanges(int[][] runs, int[] from, int[] to, int[] target, int targetFrom) {
+        int k = runs.length;
+        if (k == 0) {
+            return;
+        }
+        
+        int[] positions = new int[k];
+        int end = targetFrom;
+        LoserTree tree = new LoserTree(k);
+        for (int i = 0; i < k; i++) {
+            end += to[i] - from[i];
+            positions[i] = from[i];
+            tree.set(i, positions[i] < to[i] ? LoserTree.key(runs[i][positions[i]++], i) : LoserTree.EXHAUSTED);
+        }
+        tree.build();
+        
+        for (int out = targetFrom; out < end; out++) {
+            int source = tree.winner();
+            target[out] = LoserTree.value(tree.winnerKey());
+            int position = positions[source];
+            if (position < to[source]) {
+                positions[source] = position + 1;
+                tree.replaceWinner(LoserTree.key(runs[source][position], source));
+            } else {
+                tree.replaceWinner(LoserTree.EXHAUSTED);
+            }
+        }
+    }
+    
+    private static int totalLength(int[][] runs) {
+        long total = 0;
+        for (int[] run : runs) {
+            total += run.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The runs hold " + total + " values, more than an array can");
+        }
+        return (int) total;
+    }
+}
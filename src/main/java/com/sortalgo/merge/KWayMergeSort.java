@@ -0,0 +1,245 @@
+package com.sortalgo.merge;
+
+import com.sortalgo.algorithm.PivotStrategy;
+import com.sortalgo.algorithm.QuickSort;
+import com.sortalgo.algorithm.SortingAlgorithm;
+import com.sortalgo.model.SortingEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visualization of a k-way merge through a tournament of losers ({@link LoserTree}).
+ *
+ * The array is cut into k runs, which are sorted one per step (with introsort) like the shards
+ * a k-way merge usually receives. The runs are then merged back into the array one value per
+ * step: the winner of the tournament is written to the next output position and the next value
+ * of its run replays the matches on its path to the root. The highlights are the output position
+ * and the value taken from the run; the metrics show the winning run and the tree, level by
+ * level, as the losers stored at each node. Comparisons are counted like {@link QuickSort} for
+ * the runs and one per match for the merge, swaps as one per value written.
+ */
+public class KWayMergeSort implements SortingAlgorithm {
+    
+    public static final int DEFAULT_RUNS = 8;
+    
+    private final int runs;
+    
+    private int[] array;
+    private int n;
+    private int k;
+    private long comparisons;
+    private long swaps;
+    private long startTime;
+    private boolean isComplete;
+    
+    // Run i is array[starts[i]..starts[i + 1])
+    private int[] starts;
+    private int sortedRuns;
+    
+    // Merge state: the sorted runs copied out of the array, and the next position in each
+    private int[] source;
+    private int[] positions;
+    private LoserTree tree;
+    private int out;
+    private int lastWinner;
+    
+    /**
+     * Create a k-way merge sort with DEFAULT_RUNS runs.
+     */
+    public KWayMergeSort() {
+        this(DEFAULT_RUNS);
+    }
+    
+    /**
+     * @param runs Number of runs to cut the array into and merge, at least 1
+     */
+    public KWayMergeSort(int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("runs must be at least 1");
+        }
+        this.runs = runs;
+    }
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.n = array.length;
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        
+        this.k = Math.max(1, Math.min(runs, n));
+        this.starts = new int[k + 1];
+        for (int i = 0; i <= k; i++) {
+            starts[i] = (int) ((long) n * i / k);
+        }
+        this.sortedRuns = 0;
+        this.tree = null;
+        this.lastWinner = -1;
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            advance();
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], getComparisons(), getSwaps(), executionTime, buildMetrics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        int[] highlights = isComplete ? new int[0] : advance();
+        
+        return new SortingEvent(array, highlights, getComparisons(), getSwaps(),
+                System.currentTimeMillis() - startTime, buildMetrics());
+    }
+    
+    /**
+     * Sort the next run, or write the next value of the merge.
+     *
+     * @return The positions to highlight
+     */
+    private int[] advance() {
+        if (sortedRuns < k) {
+            return sortNextRun();
+        }
+        if (tree == null) {
+            startMerge();
+        }
+        
+        int run = tree.winner();
+        int taken = positions[run] - 1;
+        array[out] = LoserTree.value(tree.winnerKey());
+        swaps++;
+        
+        int position = positions[run];
+        if (position < starts[run + 1]) {
+            positions[run] = position + 1;
+            tree.replaceWinner(LoserTree.key(source[position], run));
+        } else {
+            tree.replaceWinner(LoserTree.EXHAUSTED);
+        }
+        lastWinner = run;
+        
+        int written = out++;
+        if (out == n) {
+            isComplete = true;
+        }
+        return new int[]{written, taken};
+    }
+    
+    private int[] sortNextRun() {
+        int low = starts[sortedRuns];
+        int high = starts[sortedRuns + 1];
+        
+        int[] run = new int[high - low];
+        System.arraycopy(array, low, run, 0, run.length);
+        QuickSort sorter = new QuickSort(PivotStrategy.NINTHER);
+        sorter.init(run);
+        System.arraycopy(sorter.sort().getCurrentArray(), 0, array, low, run.length);
+        comparisons += sorter.getComparisons();
+        swaps += sorter.getSwaps();
+        
+        sortedRuns++;
+        return new int[]{low, high - 1};
+    }
+    
+    private void startMerge() {
+        source = array.clone();
+        positions = new int[k];
+        tree = new LoserTree(k);
+        for (int i = 0; i < k; i++) {
+            positions[i] = starts[i];
+            tree.set(i, positions[i] < starts[i + 1] ? LoserTree.key(source[positions[i]++], i) : LoserTree.EXHAUSTED);
+        }
+        tree.build();
+        out = 0;
+    }
+    
+    private Map<String, Object> buildMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runs", k);
+        metrics.put("sortedRuns", sortedRuns);
+        if (tree != null) {
+            metrics.put("winnerRun", lastWinner);
+            metrics.put("tree", describeTree());
+        }
+        return metrics;
+    }
+    
+    /**
+     * The winner followed by the losers of every level of the tree, from the root down.
+     */
+    private String describeTree() {
+        StringBuilder text = new StringBuilder();
+        text.append('[').append(describeKey(tree.winnerKey())).append(']');
+        for (int first = 1; first < k; first *= 2) {
+            text.append(" [");
+            for (int node = first; node < Math.min(2 * first, k); node++) {
+                if (node > first) {
+                    text.append(' ');
+                }
+                text.append(describeKey(tree.loserKey(node)));
+            }
+            text.append(']');
+        }
+        return text.toString();
+    }
+    
+    private static String describeKey(long key) {
+        return key == LoserTree.EXHAUSTED ? "∞" : Integer.toString(LoserTree.value(key));
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "K-way Merge Sort cuts the array into k runs, sorts each of them, and merges all runs at once " +
+               "with a tournament tree of losers. Every run's next value is a player; the overall winner, the " +
+               "smallest value, goes to the output, and the run's following value replays only the matches on " +
+               "its path to the root against the losers stored there, so each value costs log2(k) comparisons.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n + k)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        long total = comparisons + (tree == null ? 0 : tree.getComparisons());
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+    
+    @Override
+    public int getSwaps() {
+        return (int) Math.min(Integer.MAX_VALUE, swaps);
+    }
+    
+    public int getRuns() {
+        return runs;
+    }
+}
@@ -0,0 +1,121 @@
+package com.sortalgo.merge;
+
+/**
+ * Tournament tree of losers over the current heads of k sorted sources.
+ *
+ * The k sources are the leaves k..2k-1 of a complete binary tree and every internal node 1..k-1
+ * remembers the loser of the match played there; node 0 holds the overall winner, the source with
+ * the smallest head. When the winner's head is replaced, only the matches on the path from its leaf
+ * to the root are replayed, each against the loser stored at the node, so a replacement costs
+ * ceil(log2 k) comparisons and no other node is read (a binary heap needs up to two per level).
+ *
+ * Each head is a long key that packs the value in the high half and the source index in the low
+ * half, so one comparison orders by value and breaks ties by source, which makes the merge
+ * stable. An exhausted source has the key {@link #EXHAUSTED}, which is greater than every real
+ * key and never wins while a real key is left.
+ */
+final class LoserTree {
+    
+    /** Key of a source without further values */
+    static final long EXHAUSTED = Long.MAX_VALUE;
+    
+    private final int k;
+    
+    // Keys of the losers at the internal nodes 1..k-1; nodes[0] is the winner's key. A key names
+    // its source, so the tree holds no source indices and a match reads nothing else
+    private final long[] nodes;
+    
+    // First keys of the sources until the tree is built
+    private long[] keys;
+    
+    private long comparisons;
+    
+    /**
+     * @param k Number of sources, at least 1
+     */
+    LoserTree(int k) {
+        this.k = k;
+        this.nodes = new long[k];
+        this.keys = new long[k];
+    }
+    
+    static long key(int value, int source) {
+        return ((long) value << 32) | source;
+    }
+    
+    static int value(long key) {
+        return (int) (key >> 32);
+    }
+    
+    /**
+     * Set the first key of a source, before {@link #build}.
+     */
+    void set(int source, long key) {
+        keys[source] = key;
+    }
+    
+    /**
+     * Play all matches bottom-up once the first keys are set.
+     */
+    void build() {
+        long[] winners = new long[k];
+        for (int node = k - 1; node >= 1; node--) {
+            long left = winnerOf(2 * node, winners);
+            long right = winnerOf(2 * node + 1, winners);
+            comparisons++;
+            winners[node] = Math.min(left, right);
+            nodes[node] = Math.max(left, right);
+        }
+        nodes[0] = k == 1 ? keys[0] : winners[1];
+        keys = null;
+    }
+    
+    private long winnerOf(int node, long[] winners) {
+        return node >= k ? keys[node - k] : winners[node];
+    }
+    
+    /**
+     * The source with the smallest head.
+     */
+    int winner() {
+        return (int) nodes[0];
+    }
+    
+    long winnerKey() {
+        return nodes[0];
+    }
+    
+    /**
+     * Replace the head of the winner and replay the matches on its path to the root.
+     *
+     * @param key The next key of the winning source, or EXHAUSTED
+     */
+    void replaceWinner(long key) {
+        // The winner's source is taken from its key; an exhausted one is never the winner while
+        // real keys are left
+        int node = (winner() + k) >>> 1;
+        comparisons += 32 - Integer.numberOfLeadingZeros(node);
+        for (; node > 0; node >>>= 1) {
+            // min and max instead of a branch: the outcome of a match is unpredictable
+            long loser = nodes[node];
+            nodes[node] = Math.max(loser, key);
+            key = Math.min(loser, key);
+        }
+        nodes[0] = key;
+    }
+    
+    /**
+     * The key of the loser stored at an internal node, for visualization.
+     */
+    long loserKey(int node) {
+        return nodes[node];
+    }
+    
+    int size() {
+        return k;
+    }
+    
+    long getComparisons() {
+        return comparisons;
+    }
+}
@@ -0,0 +1,242 @@
+package com.sortalgo.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact log of the primitive operations a sorting algorithm performs on its array, for
+ * renderers and recorders that would otherwise copy or diff the whole array after every step
+ * (see SortingAlgorithm.setOperationLog(OperationLog)).
+ *
+ * There are four operations: COMPARE i j, SWAP i j, WRITE i value and MARK from to, the range an
+ * algorithm starts working on. Only SWAP and WRITE change the array, and WRITE carries the value
+ * written, so applying the log to a copy of the initial array reproduces the array after any step
+ * ({@link #applyTo}, {@link #materialize}); COMPARE and MARK are for highlighting.
+ *
+ * Each operation takes two ints: the opcode in the top two bits of the first, together with the
+ * first operand, and the second operand as is. The first operand is therefore limited to indices
+ * below 2^30. Appending does not allocate until the capacity is exhausted; a consumer that has
+ * applied the operations of a step calls {@link #clear()} and the log is reused.
+ */
+public final class OperationLog {
+    
+    public static final int COMPARE = 0;
+    public static final int SWAP = 1;
+    public static final int WRITE = 2;
+    public static final int MARK = 3;
+    
+    private static final int OPCODE_SHIFT = 30;
+    private static final int OPERAND_MASK = (1 << OPCODE_SHIFT) - 1;
+    
+    // Largest even array length the VM can allocate
+    private static final int MAX_OPS_LENGTH = (Integer.MAX_VALUE - 8) & ~1;
+    
+    /**
+     * Receives the operations of a log in order, see {@link #replay}. All methods do nothing by
+     * default, so a visitor only implements the operations it is interested in.
+     */
+    public interface Visitor {
+        
+        default void compare(int i, int j) {
+        }
+        
+        default void swap(int i, int j) {
+        }
+        
+        default void write(int index, int value) {
+        }
+        
+        default void mark(int from, int to) {
+        }
+    }
+    
+    // Two ints per operation, see the class comment
+    private int[] ops;
+    private int size;
+    
+    /**
+     * Create an empty log with room for 64 operations.
+     */
+    public OperationLog() {
+        this(64);
+    }
+    
+    /**
+     * @param capacity Number of operations to make room for
+     */
+    public OperationLog(int capacity) {
+        if (capacity < 0 || capacity > MAX_OPS_LENGTH / 2) {
+            throw new IllegalArgumentException("capacity must be between 0 and " + MAX_OPS_LENGTH / 2 + ", was " + capacity);
+        }
+        this.ops = new int[2 * Math.max(1, capacity)];
+    }
+    
+    /**
+     * Record that array[i] was compared with array[j].
+     */
+    public void compare(int i, int j) {
+        add(COMPARE, i, j);
+    }
+    
+    /**
+     * Record that array[i] and array[j] were exchanged.
+     */
+    public void swap(int i, int j) {
+        add(SWAP, i, j);
+    }
+    
+    /**
+     * Record that value was stored into array[index].
+     */
+    public void write(int index, int value) {
+        add(WRITE, index, value);
+    }
+    
+    /**
+     * Record that the algorithm started working on array[from..to].
+     */
+    public void mark(int from, int to) {
+        add(MARK, from, to);
+    }
+    
+    private void add(int opcode, int first, int second) {
+        // The first operand shares its int with the opcode
+        if (first < 0 || first > OPERAND_MASK) {
+            throw new IllegalArgumentException("first operand must be between 0 and " + OPERAND_MASK + ", was " + first);
+        }
+        if (2 * size == ops.length) {
+            grow();
+        }
+        ops[2 * size] = (opcode << OPCODE_SHIFT) | first;
+        ops[2 * size + 1] = second;
+        size++;
+    }
+    
+    private void grow() {
+        if (ops.length == MAX_OPS_LENGTH) {
+            throw new IllegalStateException("log is full: " + size + " operations");
+        }
+        ops = Arrays.copyOf(ops, (int) Math.min(MAX_OPS_LENGTH, 2L * ops.length));
+    }
+    
+    /**
+     * Number of operations recorded since the last {@link #clear()}.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Opcode of an operation: COMPARE, SWAP, WRITE or MARK.
+     */
+    public int opcode(int op) {
+        return ops[2 * checkIndex(op)] >>> OPCODE_SHIFT;
+    }
+    
+    /**
+     * First operand of an operation: i, index or from.
+     */
+    public int first(int op) {
+        return ops[2 * checkIndex(op)] & OPERAND_MASK;
+    }
+    
+    /**
+     * Second operand of an operation: j, value or to.
+     */
+    public int second(int op) {
+        return ops[2 * checkIndex(op) + 1];
+    }
+    
+    private int checkIndex(int op) {
+        if (op < 0 || op >= size) {
+            throw new IndexOutOfBoundsException("Operation " + op + " out of bounds for size " + size);
+        }
+        return op;
+    }
+    
+    /**
+     * Forget all operations and keep the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * Apply the swaps and writes of the operations from fromOp to the end of the log to an array
+     * that holds the state before operation fromOp.
+     *
+     * @param array The array to update in place
+     * @param fromOp First operation to apply
+     * @return The size of the log, which is the fromOp of the next call
+     */
+    public int applyTo(int[] array, int fromOp) {
+        if (fromOp < 0 || fromOp > size) {
+            throw new IndexOutOfBoundsException("Operation " + fromOp + " out of bounds for size " + size);
+        }
+        apply(array, fromOp, size);
+        return size;
+    }
+    
+    private void apply(int[] array, int fromOp, int toOp) {
+        int[] ops = this.ops;
+        for (int at = 2 * fromOp, end = 2 * toOp; at < end; at += 2) {
+            int word = ops[at];
+            int opcode = word >>> OPCODE_SHIFT;
+            if (opcode == SWAP) {
+                int i = word & OPERAND_MASK;
+                int j = ops[at + 1];
+                int temp = array[i];
+                array[i] = array[j];
+                array[j] = temp;
+            } else if (opcode == WRITE) {
+                array[word & OPERAND_MASK] = ops[at + 1];
+            }
+        }
+    }
+    
+    /**
+     * The array after the first toOp operations, computed from the array before the first one.
+     *
+     * @param initial The array before the first operation, which is not changed
+     * @param toOp Number of operations to apply
+     * @return A new array
+     */
+    public int[] materialize(int[] initial, int toOp) {
+        if (toOp < 0 || toOp > size) {
+            throw new IndexOutOfBoundsException("Operation " + toOp + " out of bounds for size " + size);
+        }
+        int[] array = initial.clone();
+        apply(array, 0, toOp);
+        return array;
+    }
+    
+    /**
+     * Pass the operations from fromOp to the end of the log to a visitor, in order.
+     *
+     * @param fromOp First operation to pass
+     * @param visitor The visitor
+     * @return The size of the log, which is the fromOp of the next call
+     */
+    public int replay(int fromOp, Visitor visitor) {
+        if (fromOp < 0 || fromOp > size) {
+            throw new IndexOutOfBoundsException("Operation " + fromOp + " out of bounds for size " + size);
+        }
+        for (int at = 2 * fromOp, end = 2 * size; at < end; at += 2) {
+            int first = ops[at] & OPERAND_MASK;
+            int second = ops[at + 1];
+            switch (ops[at] >>> OPCODE_SHIFT) {
+                case COMPARE:
+                    visitor.compare(first, second);
+                    break;
+                case SWAP:
+                    visitor.swap(first, second);
+                    break;
+                case WRITE:
+                    visitor.write(first, second);
+                    break;
+                default:
+                    visitor.mark(first, second);
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,190 @@
+package com.sortalgo.model;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The mutable counterpart of {@link SortingEvent}: filled in again by every step, for stepping
+ * loops that run millions of steps and must not allocate (see
+ * SortingAlgorithm.step(ReusableSortingEvent)). It has the getters of SortingEvent but is not one,
+ * so it cannot reach observers that keep events.
+ *
+ * Highlights are stored in one cached array per length, so setting them does not allocate either;
+ * {@link #getHighlightIndices()} returns that array, which the next highlight of the same length
+ * overwrites. Like every event, the current array is the algorithm's live array. Consumers that
+ * keep the state beyond the next step must keep {@link #snapshot()} instead.
+ */
+public final class ReusableSortingEvent {
+    
+    private static final int[] NO_HIGHLIGHTS = new int[0];
+    
+    private int[] currentArray = new int[0];
+    private int[] highlightIndices = NO_HIGHLIGHTS;
+    private int comparisons;
+    private int swaps;
+    private long executionTime;
+    private Map<String, Object> metrics = Collections.emptyMap();
+    
+    // The highlight array used last, and once more than one length has been used, the cached
+    // array of every length; an event used for a single step never needs the table
+    private int[] recent;
+    private int[][] byLength;
+    
+    /**
+     * Create an empty event, to be filled in by {@link #update}.
+     */
+    public ReusableSortingEvent() {
+    }
+    
+    /**
+     * Set the state after a step and clear the highlights and metrics.
+     *
+     * @param currentArray The current state of the array being sorted
+     * @param comparisons Number of comparisons performed so far
+     * @param swaps Number of swaps performed so far
+     * @param executionTime Execution time in milliseconds so far
+     * @return This event
+     */
+    public ReusableSortingEvent update(int[] currentArray, int comparisons, int swaps, long executionTime) {
+        this.currentArray = currentArray;
+        this.comparisons = comparisons;
+        this.swaps = swaps;
+        this.executionTime = executionTime;
+        this.highlightIndices = NO_HIGHLIGHTS;
+        this.metrics = Collections.emptyMap();
+        return this;
+    }
+    
+    /**
+     * Highlight one index.
+     *
+     * @return This event
+     */
+    public ReusableSortingEvent highlight(int a) {
+        int[] indices = highlightArray(1);
+        indices[0] = a;
+        return this;
+    }
+    
+    /**
+     * Highlight two indices.
+     *
+     * @return This event
+     */
+    public ReusableSortingEvent highlight(int a, int b) {
+        int[] indices = highlightArray(2);
+        indices[0] = a;
+        indices[1] = b;
+        return this;
+    }
+    
+    /**
+     * Highlight three indices.
+     *
+     * @return This event
+     */
+    public ReusableSortingEvent highlight(int a, int b, int c) {
+        int[] indices = highlightArray(3);
+        indices[0] = a;
+        indices[1] = b;
+        indices[2] = c;
+        return this;
+    }
+    
+    /**
+     * Highlight any number of indices, copied into a cached array.
+     *
+     * @param indices The indices to highlight
+     * @return This event
+     */
+    public ReusableSortingEvent highlight(int[] indices) {
+        System.arraycopy(indices, 0, highlightArray(indices.length), 0, indices.length);
+        return this;
+    }
+    
+    /**
+     * Attach algorithm-specific metrics to the current step.
+     *
+     * @param metrics Named metrics, in display order
+     * @return This event
+     */
+    public ReusableSortingEvent metrics(Map<String, Object> metrics) {
+        this.metrics = SortingEvent.readOnly(metrics);
+        return this;
+    }
+    
+    /**
+     * An immutable copy of the current state, with its own copies of the array and highlights,
+     * that later steps do not change.
+     *
+     * @return A new SortingEvent
+     */
+    public SortingEvent snapshot() {
+        return new SortingEvent(currentArray.clone(), highlightIndices.clone(), comparisons, swaps, executionTime,
+                metrics);
+    }
+    
+    /**
+     * A SortingEvent of the current state that, like the events of step(), shares the live array
+     * but has its own copy of the highlights.
+     *
+     * @return A new SortingEvent
+     */
+    public SortingEvent toSortingEvent() {
+        return new SortingEvent(currentArray, highlightIndices.clone(), comparisons, swaps, executionTime, metrics);
+    }
+    
+    public int[] getCurrentArray() {
+        return currentArray;
+    }
+    
+    /**
+     * The highlighted indices, in a cached array that later highlights overwrite.
+     */
+    public int[] getHighlightIndices() {
+        return highlightIndices;
+    }
+    
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    public int getSwaps() {
+        return swaps;
+    }
+    
+    public long getExecutionTime() {
+        return executionTime;
+    }
+    
+    public Map<String, Object> getMetrics() {
+        return metrics;
+    }
+    
+    private int[] highlightArray(int length) {
+        int[] indices = recent;
+        if (indices == null) {
+            indices = new int[length];
+        } else if (indices.length != length) {
+            indices = cachedArray(length);
+        }
+        recent = indices;
+        highlightIndices = indices;
+        return indices;
+    }
+    
+    private int[] cachedArray(int length) {
+        if (byLength == null || Math.max(length, recent.length) >= byLength.length) {
+            int[][] grown = new int[Math.max(4, Math.max(length, recent.length) + 1)][];
+            if (byLength != null) {
+                System.arraycopy(byLength, 0, grown, 0, byLength.length);
+            }
+            byLength = grown;
+        }
+        byLength[recent.length] = recent;
+        if (byLength[length] == null) {
+            byLength[length] = new int[length];
+        }
+        return byLength[length];
+    }
+}
@@ -1,8 +1,15 @@
 package com.sortalgo.model;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Class representing an event in the sorting process.
  * Contains information about the current state of the array and performance metrics.
+ *
+ * Events are immutable, so observers may keep them. Stepping loops that must not allocate use a
+ * {@link ReusableSortingEvent} instead, which is overwritten by every step and is not an event
+ * itself; its snapshot() is.
  */
 public class SortingEvent {
     
@@ -11,6 +18,7 @@ public class SortingEvent {
     private final int comparisons;
     private final int swaps;
     private final long executionTime;
+    private final Map<String, Object> metrics;
     
     /**
      * Create a new sorting event.
@@ -22,11 +30,31 @@ public class SortingEvent {
      * @param executionTime Execution time in milliseconds so far
      */
     public SortingEvent(int[] currentArray, int[] highlightIndices, int comparisons, int swaps, long executionTime) {
+        this(currentArray, highlightIndices, comparisons, swaps, executionTime, Collections.emptyMap());
+    }
+    
+    /**
+     * Create a new sorting event carrying algorithm-specific metrics.
+     * 
+     * @param currentArray The current state of the array being sorted
+     * @param highlightIndices Indices to highlight in the visualization
+     * @param comparisons Number of comparisons performed so far
+     * @param swaps Number of swaps performed so far
+     * @param executionTime Execution time in milliseconds so far
+     * @param metrics Additional named metrics, in display order (e.g. the chosen strategy or memory used)
+     */
+    public SortingEvent(int[] currentArray, int[] highlightIndices, int comparisons, int swaps, long executionTime,
+                        Map<String, Object> metrics) {
         this.currentArray = currentArray;
         this.highlightIndices = highlightIndices;
         this.comparisons = comparisons;
         this.swaps = swaps;
         this.executionTime = executionTime;
+        this.metrics = readOnly(metrics);
+    }
+    
+    static Map<String, Object> readOnly(Map<String, Object> metrics) {
+        return metrics.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(metrics);
     }
     
     /**
@@ -73,4 +101,13 @@ public class SortingEvent {
     public long getExecutionTime() {
         return executionTime;
     }
+    
+    /**
+     * Get the algorithm-specific metrics of this event.
+     * 
+     * @return Read-only map of metric names to values, empty if the algorithm reports none
+     */
+    public Map<String, Object> getMetrics() {
+        return metrics;
+    }
 }
@@ -1,23 +1,29 @@
 package com.sortalgo.model;
 
 import com.sortalgo.algorithm.SortingAlgorithm;
+import com.sortalgo.trace.TraceReplayer;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Model class that manages the sorting algorithm and notifies observers of changes.
+ *
+ * Steps run on the animation timer's thread as well as on the caller's, so starting, stopping,
+ * stepping and seeking are synchronized on the model. Observers are notified after the lock is
+ * released, so they may block (on a modal dialog, for instance) or call back into the model.
  */
 public class SortingModel {
     
     private int[] array;
     private SortingAlgorithm algorithm;
+    private TraceReplayer replay;
     private List<AlgorithmObserver> observers;
     private Timer timer;
     private int animationDelay;
-    private boolean sorting;
+    private volatile boolean sorting;
     
     /**
      * Initialize the model with default values.
@@ -25,7 +31,7 @@ public class SortingModel {
     public SortingModel() {
         this.array = new int[0];
         this.algorithm = null;
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
         this.timer = null;
         this.animationDelay = 300; // Default delay in milliseconds
         this.sorting = false;
@@ -56,6 +62,16 @@ public class SortingModel {
      */
     public void setArray(int[] array) {
         this.array = array.clone();
+        this.replay = null;
+    }
+    
+    /**
+     * Get a copy of the array to be sorted.
+     * 
+     * @return The array as last set, before sorting
+     */
+    public int[] getArray() {
+        return array.clone();
     }
     
     /**
@@ -65,11 +81,27 @@ public class SortingModel {
      */
     public void setAlgorithm(SortingAlgorithm algorithm) {
         this.algorithm = algorithm;
+        this.replay = null;
         if (this.array != null && this.array.length > 0) {
             algorithm.init(this.array);
         }
     }
     
+    /**
+     * Replay a recorded trace instead of running an algorithm: startSorting() and stepSorting()
+     * then advance the replayer, which reports the recorded events to the observers. The array
+     * becomes the trace's initial array.
+     * 
+     * @param replay The replayer of the trace
+     */
+    public void setReplay(TraceReplayer replay) {
+        stopSorting();
+        this.replay = replay;
+        this.algorithm = null;
+        this.array = replay.getInitialArray();
+        replay.rewind();
+    }
+    
     /**
      * Set the delay between animation steps.
      * 
@@ -82,36 +114,76 @@ public class SortingModel {
     /**
      * Start automatic sorting with animation.
      */
-    public void startSorting() {
-        if (algorithm == null || array == null || array.length <= 1) return;
-        
-        // Initialize algorithm with current array
-        algorithm.init(array.clone());
+    public synchronized void startSorting() {
+        if (replay != null) {
+            // Replays continue from the current step, and start over once complete
+            if (replay.isComplete()) {
+                replay.rewind();
+            }
+        } else {
+            if (algorithm == null || array == null || array.length <= 1) return;
+            
+            // Initialize algorithm with current array
+            algorithm.init(array.clone());
+        }
         
         // Stop any existing timer
         stopSorting();
         
         // Start a new timer for animation
         sorting = true;
-        timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
+        Timer animation = new Timer();
+        timer = animation;
+        animation.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                if (algorithm.isSortingComplete()) {
-                    stopSorting();
-                    notifySortingComplete(algorithm.step());
+                SortingEvent event;
+                boolean complete;
+                synchronized (SortingModel.this) {
+                    // Timer.cancel() does not wait for a running task, which may be waiting here
+                    if (timer != animation) return;
+                    
+                    complete = isComplete();
+                    if (complete) {
+                        stopSorting();
+                    }
+                    event = nextEvent();
+                }
+                
+                if (complete) {
+                    notifySortingComplete(event);
                 } else {
-                    SortingEvent event = algorithm.step();
                     notifySortingStep(event);
                 }
             }
         }, 0, animationDelay);
     }
     
+    /**
+     * Move a replay to the state after the given step, backwards or forwards, and report that
+     * state to the observers as a step. The replay restores the last checkpoint before the step
+     * and replays the steps after it, so a seek costs at most one array copy and the operations
+     * between two checkpoints of the trace. A running replay is stopped first.
+     * 
+     * @param stepNumber Number of recorded steps to have replayed, clamped to the trace
+     * @throws IllegalStateException if no replay is set
+     */
+    public void seek(long stepNumber) {
+        SortingEvent event;
+        synchronized (this) {
+            if (replay == null) {
+                throw new IllegalStateException("Only a replay can seek, see setReplay()");
+            }
+            stopSorting();
+            event = replay.seek(stepNumber);
+        }
+        notifySortingStep(event);
+    }
+    
     /**
      * Stop automatic sorting.
      */
-    public void stopSorting() {
+    public synchronized void stopSorting() {
         if (timer != null) {
             timer.cancel();
             timer = null;
@@ -123,18 +195,37 @@ public class SortingModel {
      * Perform a single step of the sorting algorithm.
      */
     public void stepSorting() {
-        if (algorithm == null || array == null) return;
-        
-        if (algorithm.isSortingComplete()) {
-            notifySortingComplete(algorithm.step());
-        } else {
-            SortingEvent event = algorithm.step();
-            notifySortingStep(event);
+        SortingEvent event;
+        boolean wasComplete;
+        boolean complete;
+        synchronized (this) {
+            if ((algorithm == null && replay == null) || array == null) return;
             
-            if (algorithm.isSortingComplete()) {
-                notifySortingComplete(event);
+            wasComplete = isComplete();
+            event = nextEvent();
+            complete = isComplete();
+            if (complete) {
+                sorting = false;
             }
         }
+        
+        if (!wasComplete) {
+            notifySortingStep(event);
+        }
+        if (complete) {
+            notifySortingComplete(event);
+        }
+    }
+    
+    private boolean isComplete() {
+        return replay != null ? replay.isComplete() : algorithm.isSortingComplete();
+    }
+    
+    /**
+     * The next event of the replay or the algorithm.
+     */
+    private SortingEvent nextEvent() {
+        return replay != null ? replay.step() : algorithm.step();
     }
     
     /**
@@ -163,7 +254,6 @@ public class SortingModel {
      * @param event The final sorting event
      */
     private void notifySortingComplete(SortingEvent event) {
-        sorting = false;
         for (AlgorithmObserver observer : observers) {
             observer.onSortingComplete(event);
         }
@@ -0,0 +1,166 @@
+package com.sortalgo.offheap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-length array of ints stored outside the heap and indexed by long, so it can hold more than
+ * 2^31 elements. The ints live in direct buffers of up to 1 GB each ("pages"); the garbage collector
+ * only sees the few page objects, never the data. The memory is released when the array becomes
+ * unreachable, and counts against -XX:MaxDirectMemorySize.
+ *
+ * An array can also be a view of a file of ints, mapped page by page with {@link #map}; its data then
+ * lives in the operating system's page cache, and a file can exceed the 2 GB of a single mapping.
+ */
+public class OffHeapIntArray {
+    
+    // Ints per page; direct buffers are indexed by int, so a page must stay below 2 GB
+    private static final int PAGE_SHIFT = 28;
+    private static final int PAGE_INTS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_INTS - 1;
+    
+    private final ByteBuffer[] pages;
+    private final long length;
+    
+    private OffHeapIntArray(long length) {
+        this.length = length;
+        this.pages = new ByteBuffer[pageCount(length)];
+        
+        for (int page = 0; page < pages.length; page++) {
+            pages[page] = ByteBuffer.allocateDirect(pageInts(page) * Integer.BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+    
+    private OffHeapIntArray(FileChannel channel, long length, ByteOrder order) throws IOException {
+        this.length = length;
+        this.pages = new ByteBuffer[pageCount(length)];
+        
+        for (int page = 0; page < pages.length; page++) {
+            long position = ((long) page << PAGE_SHIFT) * Integer.BYTES;
+            pages[page] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) pageInts(page) * Integer.BYTES)
+                    .order(order);
+        }
+    }
+    
+    private static int pageCount(long length) {
+        return (int) ((length + PAGE_INTS - 1) >>> PAGE_SHIFT);
+    }
+    
+    private int pageInts(int page) {
+        return (int) Math.min(PAGE_INTS, length - ((long) page << PAGE_SHIFT));
+    }
+    
+    /**
+     * Allocate an array of zeros.
+     *
+     * @param length Number of ints
+     * @return The new array
+     */
+    public static OffHeapIntArray allocate(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+        return new OffHeapIntArray(length);
+    }
+    
+    /**
+     * Map a file of ints for reading and writing. Writes go to the file; {@link #force()} waits
+     * until they have reached the storage device.
+     *
+     * @param channel A channel opened for reading and writing; the mapping stays valid after it is closed
+     * @param order The byte order of the ints in the file
+     * @return An array over all ints of the file
+     * @throws IOException if the length of the file is not a multiple of 4 or it cannot be mapped
+     */
+    public static OffHeapIntArray map(FileChannel channel, ByteOrder order) throws IOException {
+        long size = channel.size();
+        if (size % Integer.BYTES != 0) {
+            throw new IOException("not a file of ints: its length " + size + " is not a multiple of 4");
+        }
+        return new OffHeapIntArray(channel, size / Integer.BYTES, order);
+    }
+    
+    /**
+     * Copy an on-heap array into a new off-heap array.
+     *
+     * @param values The values to copy
+     * @return The new array
+     */
+    public static OffHeapIntArray copyOf(int[] values) {
+        OffHeapIntArray array = new OffHeapIntArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+    
+    /**
+     * Get the number of ints in the array.
+     *
+     * @return The length of the array
+     */
+    public long length() {
+        return length;
+    }
+    
+    /**
+     * Read one element.
+     *
+     * @param index Index of the element
+     * @return The value at the index
+     */
+    public int get(long index) {
+        return pages[(int) (index >>> PAGE_SHIFT)].getInt(((int) index & PAGE_MASK) << 2);
+    }
+    
+    /**
+     * Write one element.
+     *
+     * @param index Index of the element
+     * @param value The new value
+     */
+    public void set(long index, int value) {
+        pages[(int) (index >>> PAGE_SHIFT)].putInt(((int) index & PAGE_MASK) << 2, value);
+    }
+    
+    /**
+     * Exchange two elements.
+     *
+     * @param i Index of the first element
+     * @param j Index of the second element
+     */
+    public void swap(long i, long j) {
+        int temp = get(i);
+        set(i, get(j));
+        set(j, temp);
+    }
+    
+    /**
+     * Write the changes of an array created by {@link #map} back to its file; does nothing for an
+     * allocated array.
+     */
+    public void force() {
+        for (ByteBuffer page : pages) {
+            if (page instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) page).force();
+            }
+        }
+    }
+    
+    /**
+     * Check that the elements are in non-decreasing order.
+     *
+     * @return The index of the first element smaller than its predecessor, or -1 if the array is sorted
+     */
+    public long findUnsorted() {
+        for (long i = 1; i < length; i++) {
+            if (get(i) < get(i - 1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
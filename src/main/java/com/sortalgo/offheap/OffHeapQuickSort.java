@@ -0,0 +1,210 @@
+package com.sortalgo.offheap;
+
+/**
+ * Introsort over a long-indexed off-heap array: Hoare partition around a median-of-three or ninther
+ * pivot, insertion sort for small ranges and heapsort when the recursion gets deeper than 2·log2(n).
+ * The smaller side of every partition is sorted recursively and the larger one in a loop, so the
+ * call stack stays O(log n). Needs no memory besides the array itself.
+ */
+public class OffHeapQuickSort implements OffHeapSortingAlgorithm {
+    
+    private static final int INSERTION_CUTOFF = 16;
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    private OffHeapIntArray array;
+    private long comparisons;
+    private long swaps;
+    
+    @Override
+    public void sort(OffHeapIntArray array) {
+        sort(array, 0, array.length());
+    }
+    
+    /**
+     * Sort array[from..to) in place; the counters only cover this range.
+     *
+     * @param array The array to sort
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     */
+    public void sort(OffHeapIntArray array, long from, long to) {
+        this.array = array;
+        this.comparisons = 0;
+        this.swaps = 0;
+        
+        long n = to - from;
+        if (n > 1) {
+            quickSort(from, to - 1, 2 * (63 - Long.numberOfLeadingZeros(n)));
+        }
+        
+        this.array = null;
+    }
+    
+    private void quickSort(long low, long high, int depth) {
+        while (high - low + 1 > INSERTION_CUTOFF) {
+            if (depth == 0) {
+                heapSort(low, high);
+                return;
+            }
+            depth--;
+            
+            long split = partition(low, high);
+            if (split - low < high - split) {
+                quickSort(low, split, depth);
+                low = split + 1;
+            } else {
+                quickSort(split + 1, high, depth);
+                high = split;
+            }
+        }
+        
+        insertionSort(low, high);
+    }
+    
+    /**
+     * Hoare partition: elements equal to the pivot stop both scans, which keeps duplicates balanced.
+     *
+     * @return The split point: array[low..split] are <= pivot and array[split+1..high] are >= pivot
+     */
+    private long partition(long low, long high) {
+        int pivot = array.get(choosePivot(low, high));
+        long i = low - 1;
+        long j = high + 1;
+        
+        while (true) {
+            do {
+                i++;
+                comparisons++;
+            } while (array.get(i) < pivot);
+            
+            do {
+                j--;
+                comparisons++;
+            } while (array.get(j) > pivot);
+            
+            if (i >= j) {
+                return j;
+            }
+            array.swap(i, j);
+            swaps++;
+        }
+    }
+    
+    private long choosePivot(long low, long high) {
+        long size = high - low + 1;
+        long mid = low + (high - low) / 2;
+        
+        if (size < NINTHER_THRESHOLD) {
+            return medianOfThree(low, mid, high);
+        }
+        
+        long step = size / 8;
+        long first = medianOfThree(low, low + step, low + 2 * step);
+        long middle = medianOfThree(mid - step, mid, mid + step);
+        long last = medianOfThree(high - 2 * step, high - step, high);
+        return medianOfThree(first, middle, last);
+    }
+    
+    /**
+     * Index of the median of array[a], array[b] and array[c].
+     */
+    private long medianOfThree(long a, long b, long c) {
+        int va = array.get(a);
+        int vb = array.get(b);
+        int vc = array.get(c);
+        
+        comparisons += 2;
+        if (va < vb) {
+            if (vb < vc) {
+                return b;
+            }
+            comparisons++;
+            return va < vc ? c : a;
+        } else {
+            if (va < vc) {
+                return a;
+            }
+            comparisons++;
+            return vb < vc ? c : b;
+        }
+    }
+    
+    private void insertionSort(long low, long high) {
+        for (long i = low + 1; i <= high; i++) {
+            int key = array.get(i);
+            long j = i - 1;
+            
+            // Move elements that are greater than key to one position ahead
+            while (j >= low) {
+                comparisons++;
+                int value = array.get(j);
+                if (value <= key) {
+                    break;
+                }
+                array.set(j + 1, value);
+                swaps++;
+                j--;
+            }
+            
+            array.set(j + 1, key);
+        }
+    }
+    
+    private void heapSort(long low, long high) {
+        long size = high - low + 1;
+        
+        for (long root = size / 2 - 1; root >= 0; root--) {
+            siftDown(low, root, size);
+        }
+        
+        for (long end = size - 1; end > 0; end--) {
+            array.swap(low, low + end);
+            swaps++;
+            siftDown(low, 0, end);
+        }
+    }
+    
+    /**
+     * Restore the max-heap property below root for the heap stored in array[low..low+size-1].
+     */
+    private void siftDown(long low, long root, long size) {
+        while (true) {
+            long child = 2 * root + 1;
+            if (child >= size) {
+                return;
+            }
+            
+            if (child + 1 < size) {
+                comparisons++;
+                if (array.get(low + child + 1) > array.get(low + child)) {
+                    child++;
+                }
+            }
+            
+            comparisons++;
+            if (array.get(low + root) >= array.get(low + child)) {
+                return;
+            }
+            
+            array.swap(low + root, low + child);
+            swaps++;
+            root = child;
+        }
+    }
+    
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public long getSwaps() {
+        return swaps;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Introsort over a long-indexed off-heap array: quicksort with a Hoare partition and ninther " +
+               "pivots, insertion sort for small ranges and heapsort when the recursion gets too deep.";
+    }
+}
@@ -0,0 +1,123 @@
+package com.sortalgo.offheap;
+
+/**
+ * LSD Radix Sort over a long-indexed off-heap array, with the same scheme as
+ * {@link com.sortalgo.algorithm.RadixSort}: four 8-bit digits with the sign bit flipped, all
+ * histograms built in one read, and passes in which every element has the same digit skipped.
+ * The passes alternate between the array and an off-heap scratch array of the same length, so the
+ * sort needs twice the array's memory; the result is copied back after an odd number of passes.
+ */
+public class OffHeapRadixSort implements OffHeapSortingAlgorithm {
+    
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    private static final int PASSES = Integer.SIZE / DIGIT_BITS;
+    
+    private long comparisons;
+    private long swaps;
+    
+    @Override
+    public void sort(OffHeapIntArray array) {
+        this.comparisons = 0;
+        this.swaps = 0;
+        
+        long n = array.length();
+        if (n <= 1) {
+            return;
+        }
+        
+        long[][] histograms = buildHistograms(array);
+        OffHeapIntArray source = array;
+        OffHeapIntArray target = null;
+        
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * DIGIT_BITS;
+            long[] count = histograms[pass];
+            if (count[digit(array.get(0), shift)] == n) {
+                continue;
+            }
+            
+            if (target == null) {
+                target = OffHeapIntArray.allocate(n);
+            }
+            distribute(source, target, count, shift);
+            
+            OffHeapIntArray temp = source;
+            source = target;
+            target = temp;
+        }
+        
+        // After an odd number of passes the sorted data lives in the scratch array
+        if (source != array) {
+            for (long i = 0; i < n; i++) {
+                array.set(i, source.get(i));
+            }
+            swaps += n;
+        }
+    }
+    
+    /**
+     * Count the digits of every pass with a single read of the array.
+     */
+    private static long[][] buildHistograms(OffHeapIntArray array) {
+        long[][] histograms = new long[PASSES][RADIX];
+        long[] count0 = histograms[0];
+        long[] count1 = histograms[1];
+        long[] count2 = histograms[2];
+        long[] count3 = histograms[3];
+        
+        for (long i = 0, n = array.length(); i < n; i++) {
+            int key = array.get(i) ^ Integer.MIN_VALUE;
+            count0[key & DIGIT_MASK]++;
+            count1[(key >>> 8) & DIGIT_MASK]++;
+            count2[(key >>> 16) & DIGIT_MASK]++;
+            count3[key >>> 24]++;
+        }
+        
+        return histograms;
+    }
+    
+    /**
+     * Stable counting distribution of source into target on the digit at the given shift.
+     */
+    private void distribute(OffHeapIntArray source, OffHeapIntArray target, long[] count, int shift) {
+        // Turn the counts into starting offsets
+        long offset = 0;
+        for (int d = 0; d < RADIX; d++) {
+            long c = count[d];
+            count[d] = offset;
+            offset += c;
+        }
+        
+        long n = source.length();
+        for (long i = 0; i < n; i++) {
+            int value = source.get(i);
+            target.set(count[digit(value, shift)]++, value);
+        }
+        swaps += n;
+    }
+    
+    /**
+     * Extract a digit, with the sign bit flipped so that negative values sort first.
+     */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+    
+    @Override
+    public long getComparisons() {
+        return comparisons;
+    }
+    
+    @Override
+    public long getSwaps() {
+        return swaps;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "LSD Radix Sort over a long-indexed off-heap array: four stable counting passes on 8-bit " +
+               "digits through an off-heap scratch array of the same length.";
+    }
+}
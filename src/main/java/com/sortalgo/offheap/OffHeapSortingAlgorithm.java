@@ -0,0 +1,36 @@
+package com.sortalgo.offheap;
+
+/**
+ * Interface for in-place sorting algorithms over long-indexed off-heap arrays.
+ * Counters are longs, because arrays can have more than 2^31 elements.
+ */
+public interface OffHeapSortingAlgorithm {
+    
+    /**
+     * Sort the array in place.
+     * 
+     * @param array The array to sort
+     */
+    void sort(OffHeapIntArray array);
+    
+    /**
+     * Get the number of comparisons made by the last sort.
+     * 
+     * @return Number of comparisons
+     */
+    long getComparisons();
+    
+    /**
+     * Get the number of swaps (element writes and exchanges) made by the last sort.
+     * 
+     * @return Number of swaps
+     */
+    long getSwaps();
+    
+    /**
+     * Get a description of the algorithm.
+     * 
+     * @return Algorithm description
+     */
+    String getDescription();
+}
@@ -0,0 +1,407 @@
+package com.sortalgo.primitive;
+
+/**
+ * Stable argsort: computes the permutation that orders a key column instead of sorting the keys,
+ * so that several parallel columns can be reordered together with {@link #permute}.
+ *
+ * For int keys each element is packed into one long, the key in the upper 32 bits and its index in
+ * the lower 32 bits. Packed values are distinct and compare like (key, index) pairs, so equal keys
+ * keep their input order; large inputs are sorted with an LSD radix sort on the four key digits
+ * only, small ones with {@link LongSort#quickSort}. Long and double keys do not fit next to an
+ * index, so they are radix sorted on all eight digits with the indices moved alongside.
+ * No boxing and no Comparator are involved.
+ *
+ * Columns are reordered with {@link #permute}, which gathers from a temporary copy, or with
+ * {@link #permuteInPlace}, which follows the cycles of the permutation when memory is tight.
+ */
+public final class ArgSort {
+    
+    // Smaller inputs are sorted with a comparison sort
+    private static final int RADIX_THRESHOLD = 128;
+    
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    
+    private ArgSort() {
+    }
+    
+    /**
+     * Compute the stable ascending order of int keys.
+     *
+     * @param keys The keys to order; not modified
+     * @return Indices such that keys[order[0]] <= keys[order[1]] <= ..., with equal keys in index order
+     */
+    public static int[] argSort(int[] keys) {
+        int n = keys.length;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
+        
+        if (n < RADIX_THRESHOLD) {
+            LongSort.quickSort(packed);
+        } else {
+            packed = radixSortPacked(packed);
+        }
+        
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+    
+    /**
+     * Compute the stable ascending order of long keys.
+     *
+     * @param keys The keys to order; not modified
+     * @return Indices such that keys[order[0]] <= keys[order[1]] <= ..., with equal keys in index order
+     */
+    public static int[] argSort(long[] keys) {
+        long[] radixKeys = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            radixKeys[i] = keys[i] ^ Long.MIN_VALUE;
+        }
+        return argSortUnsigned(radixKeys);
+    }
+    
+    /**
+     * Compute the stable ascending order of double keys, in the order of {@link Double#compare}:
+     * -0.0 before 0.0 and NaN after positive infinity, as in {@link DoubleSort}.
+     *
+     * @param keys The keys to order; not modified
+     * @return Indices such that keys[order[0]] <= keys[order[1]] <= ..., with equal keys in index order
+     */
+    public static int[] argSort(double[] keys) {
+        long[] radixKeys = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long bits = Double.doubleToLongBits(keys[i]);
+            radixKeys[i] = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+        }
+        return argSortUnsigned(radixKeys);
+    }
+    
+    /**
+     * Reorder a column so that column[i] becomes the old column[order[i]]. The elements are read
+     * from a temporary copy of the column; the loads are independent of each other, so the memory
+     * system can overlap their cache misses.
+     *
+     * @param order A permutation of 0..column.length-1, as returned by argSort
+     * @param column The column to reorder
+     * @throws IllegalArgumentException if order and column have different lengths
+     */
+    public static void permute(int[] order, int[] column) {
+        checkLength(order, column.length);
+        int[] source = column.clone();
+        for (int i = 0; i < order.length; i++) {
+            column[i] = source[order[i]];
+        }
+    }
+    
+    /**
+     * Reorder a long column, see {@link #permute(int[], int[])}.
+     */
+    public static void permute(int[] order, long[] column) {
+        checkLength(order, column.length);
+        long[] source = column.clone();
+        for (int i = 0; i < order.length; i++) {
+            column[i] = source[order[i]];
+        }
+    }
+    
+    /**
+     * Reorder a double column, see {@link #permute(int[], int[])}.
+     */
+    public static void permute(int[] order, double[] column) {
+        checkLength(order, column.length);
+        double[] source = column.clone();
+        for (int i = 0; i < order.length; i++) {
+            column[i] = source[order[i]];
+        }
+    }
+    
+    /**
+     * Reorder an object column, see {@link #permute(int[], int[])}.
+     */
+    public static <T> void permute(int[] order, T[] column) {
+        checkLength(order, column.length);
+        T[] source = column.clone();
+        for (int i = 0; i < order.length; i++) {
+            column[i] = source[order[i]];
+        }
+    }
+    
+    /**
+     * Reorder a column in place so that column[i] becomes the old column[order[i]], following the
+     * cycles of the permutation. Needs only n bits of extra memory, but every move depends on the
+     * previous one, so it is much slower than {@link #permute} on large random permutations.
+     *
+     * @param order A permutation of 0..column.length-1, as returned by argSort
+     * @param column The column to reorder
+     * @throws IllegalArgumentException if order is not a permutation of the column's indices;
+     *                                  the column is then left partially reordered
+     */
+    public static void permuteInPlace(int[] order, int[] column) {
+        checkLength(order, column.length);
+        long[] visited = new long[(order.length + 63) >>> 6];
+        
+        for (int start = 0; start < order.length; start++) {
+            if (isVisited(visited, start)) {
+                continue;
+            }
+            
+            // Follow the cycle through start, pulling each element from the position it comes from
+            int first = column[start];
+            int i = start;
+            while (true) {
+                markVisited(visited, i);
+                int from = checkNext(order, visited, start, i);
+                if (from == start) {
+                    column[i] = first;
+                    break;
+                }
+                column[i] = column[from];
+                i = from;
+            }
+        }
+    }
+    
+    /**
+     * Reorder a long column in place, see {@link #permuteInPlace(int[], int[])}.
+     */
+    public static void permuteInPlace(int[] order, long[] column) {
+        checkLength(order, column.length);
+        long[] visited = new long[(order.length + 63) >>> 6];
+        
+        for (int start = 0; start < order.length; start++) {
+            if (isVisited(visited, start)) {
+                continue;
+            }
+            
+            long first = column[start];
+            int i = start;
+            while (true) {
+                markVisited(visited, i);
+                int from = checkNext(order, visited, start, i);
+                if (from == start) {
+                    column[i] = first;
+                    break;
+                }
+                column[i] = column[from];
+                i = from;
+            }
+        }
+    }
+    
+    /**
+     * Reorder a double column in place, see {@link #permuteInPlace(int[], int[])}.
+     */
+    public static void permuteInPlace(int[] order, double[] column) {
+        checkLength(order, column.length);
+        long[] visited = new long[(order.length + 63) >>> 6];
+        
+        for (int start = 0; start < order.length; start++) {
+            if (isVisited(visited, start)) {
+                continue;
+            }
+            
+            double first = column[start];
+            int i = start;
+            while (true) {
+                markVisited(visited, i);
+                int from = checkNext(order, visited, start, i);
+                if (from == start) {
+                    column[i] = first;
+                    break;
+                }
+                column[i] = column[from];
+                i = from;
+            }
+        }
+    }
+    
+    /**
+     * Reorder an object column in place, see {@link #permuteInPlace(int[], int[])}.
+     */
+    public static <T> void permuteInPlace(int[] order, T[] column) {
+        checkLength(order, column.length);
+        long[] visited = new long[(order.length + 63) >>> 6];
+        
+        for (int start = 0; start < order.length; start++) {
+            if (isVisited(visited, start)) {
+                continue;
+            }
+            
+            T first = column[start];
+            int i = start;
+            while (true) {
+                markVisited(visited, i);
+                int from = checkNext(order, visited, start, i);
+                if (from == start) {
+                    column[i] = first;
+                    break;
+                }
+                column[i] = column[from];
+                i = from;
+            }
+        }
+    }
+    
+    /**
+     * LSD radix sort of packed (key, index) longs on the digits of the key in the upper half.
+     * Indices in the lower half are already ascending, and every pass is stable, so they
+     * need no passes of their own.
+     *
+     * @return The sorted values, either in the given array or in the buffer
+     */
+    private static long[] radixSortPacked(long[] packed) {
+        int n = packed.length;
+        int[][] histograms = new int[Integer.BYTES][RADIX];
+        for (long value : packed) {
+            long key = value ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < Integer.BYTES; pass++) {
+                histograms[pass][digit(key, 32 + pass * DIGIT_BITS)]++;
+            }
+        }
+        
+        long[] source = packed;
+        long[] target = null;
+        for (int pass = 0; pass < Integer.BYTES; pass++) {
+            int shift = 32 + pass * DIGIT_BITS;
+            int[] count = histograms[pass];
+            if (count[digit(packed[0] ^ Long.MIN_VALUE, shift)] == n) {
+                continue;
+            }
+            
+            if (target == null) {
+                target = new long[n];
+            }
+            toOffsets(count);
+            for (long value : source) {
+                target[count[digit(value ^ Long.MIN_VALUE, shift)]++] = value;
+            }
+            
+            long[] temp = source;
+            source = target;
+            target = temp;
+        }
+        return source;
+    }
+    
+    /**
+     * Stable order of unsigned 64-bit keys. Small inputs use insertion sort; larger ones an LSD radix
+     * sort on eight digits that moves the indices together with the keys. The keys are overwritten.
+     */
+    private static int[] argSortUnsigned(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        
+        if (n < RADIX_THRESHOLD) {
+            insertionSort(keys, order);
+            return order;
+        }
+        
+        int[][] histograms = new int[Long.BYTES][RADIX];
+        for (long key : keys) {
+            for (int pass = 0; pass < Long.BYTES; pass++) {
+                histograms[pass][digit(key, pass * DIGIT_BITS)]++;
+            }
+        }
+        
+        long[] keyBuffer = null;
+        int[] orderBuffer = null;
+        for (int pass = 0; pass < Long.BYTES; pass++) {
+            int shift = pass * DIGIT_BITS;
+            int[] count = histograms[pass];
+            if (count[digit(keys[0], shift)] == n) {
+                continue;
+            }
+            
+            if (keyBuffer == null) {
+                keyBuffer = new long[n];
+                orderBuffer = new int[n];
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                long key = keys[i];
+                int target = count[digit(key, shift)]++;
+                keyBuffer[target] = key;
+                orderBuffer[target] = order[i];
+            }
+            
+            long[] tempKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = tempKeys;
+            int[] tempOrder = order;
+            order = orderBuffer;
+            orderBuffer = tempOrder;
+        }
+        return order;
+    }
+    
+    /**
+     * Stable insertion sort of unsigned keys, moving the indices along.
+     */
+    private static void insertionSort(long[] keys, int[] order) {
+        for (int i = 1; i < keys.length; i++) {
+            long key = keys[i];
+            int index = order[i];
+            int j = i - 1;
+            
+            while (j >= 0 && Long.compareUnsigned(key, keys[j]) < 0) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            
+            keys[j + 1] = key;
+            order[j + 1] = index;
+        }
+    }
+    
+    /**
+     * Turn digit counts into the starting offset of each digit.
+     */
+    private static void toOffsets(int[] count) {
+        int offset = 0;
+        for (int d = 0; d < RADIX; d++) {
+            int c = count[d];
+            count[d] = offset;
+            offset += c;
+        }
+    }
+    
+    private static int digit(long key, int shift) {
+        return (int) (key >>> shift) & DIGIT_MASK;
+    }
+    
+    /**
+     * Next position of the cycle being followed, checking that it is a valid, unvisited index
+     * or the start of the cycle.
+     */
+    private static int checkNext(int[] order, long[] visited, int start, int i) {
+        int from = order[i];
+        if (from != start && (from < 0 || from >= order.length || isVisited(visited, from))) {
+            throw new IllegalArgumentException("order is not a permutation: index " + from + " appears twice or is out of range");
+        }
+        return from;
+    }
+    
+    private static boolean isVisited(long[] visited, int index) {
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    private static void markVisited(long[] visited, int index) {
+        visited[index >>> 6] |= 1L << index;
+    }
+    
+    private static void checkLength(int[] order, int length) {
+        if (order.length != length) {
+            throw new IllegalArgumentException("order has " + order.length + " indices but the column has " + length + " elements");
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.sortalgo.primitive;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stable sort of rows stored as parallel primitive columns, ordered by several key columns.
+ *
+ * The key columns of every row are encoded into one normalized key: the columns are written one
+ * after the other as big-endian unsigned bytes (sign bit flipped, all bits of negative doubles
+ * flipped, all bits inverted for descending columns), so comparing two keys byte by byte gives the
+ * same result as comparing the rows column by column. The row index is appended to make every key
+ * unique and the sort stable. The keys are sorted with an MSD radix sort on one byte at a time,
+ * which skips bytes shared by the whole range (for example the zero high bytes of small ints) and
+ * finishes small ranges with insertion sort. Finally the resulting order is applied to the key
+ * columns and to any payload columns added with {@code carry}, once per array even if the same
+ * array was added more than once.
+ *
+ * No per-row objects are created and rows are never compared through a Comparator.
+ *
+ * <pre>
+ * int[] order = new ColumnarSort().by(tenant).by(timestamp).byDescending(sequence).carry(payload).sort();
+ * </pre>
+ */
+public class ColumnarSort {
+    
+    // Ranges with at most this many keys are sorted with insertion sort
+    private static final int INSERTION_CUTOFF = 32;
+    
+    private static final int RADIX = 256;
+    
+    private final List<KeyColumn> keyColumns = new ArrayList<>();
+    private final List<Column> payloadColumns = new ArrayList<>();
+    private int rows = -1;
+    
+    // Normalized keys of all rows, recordWidth bytes each, and the buffer they are distributed into
+    private byte[] keys;
+    private byte[] buffer;
+    private int keyWidth;
+    private int recordWidth;
+    private int[][] counts;
+    
+    /**
+     * Add an int key column, sorted in ascending order. Key columns are compared in the order
+     * they are added.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort by(int[] column) {
+        return addKey(new IntColumn(column, false));
+    }
+    
+    /**
+     * Add an int key column, sorted in descending order.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort byDescending(int[] column) {
+        return addKey(new IntColumn(column, true));
+    }
+    
+    /**
+     * Add a long key column, sorted in ascending order.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort by(long[] column) {
+        return addKey(new LongColumn(column, false));
+    }
+    
+    /**
+     * Add a long key column, sorted in descending order.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort byDescending(long[] column) {
+        return addKey(new LongColumn(column, true));
+    }
+    
+    /**
+     * Add a double key column, sorted in ascending order of {@link Double#compare}.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort by(double[] column) {
+        return addKey(new DoubleColumn(column, false));
+    }
+    
+    /**
+     * Add a double key column, sorted in descending order of {@link Double#compare}.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort byDescending(double[] column) {
+        return addKey(new DoubleColumn(column, true));
+    }
+    
+    /**
+     * Add an int column that is reordered with the rows but not used as a key.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort carry(int[] column) {
+        return addPayload(new IntColumn(column, false), column.length);
+    }
+    
+    /**
+     * Add a long column that is reordered with the rows but not used as a key.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort carry(long[] column) {
+        return addPayload(new LongColumn(column, false), column.length);
+    }
+    
+    /**
+     * Add a double column that is reordered with the rows but not used as a key.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort carry(double[] column) {
+        return addPayload(new DoubleColumn(column, false), column.length);
+    }
+    
+    /**
+     * Add an object column that is reordered with the rows but not used as a key.
+     *
+     * @param column The column
+     * @return This sort, for chaining
+     */
+    public ColumnarSort carry(Object[] column) {
+        return addPayload(new ObjectColumn(column), column.length);
+    }
+    
+    /**
+     * Compute the stable order of the rows by the key columns, without changing any column.
+     *
+     * @return Row indices in sorted order
+     * @throws IllegalStateException if no key column was added
+     */
+    public int[] order() {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalStateException("At least one key column is required");
+        }
+        
+        encodeKeys();
+        if (rows > 1) {
+            counts = new int[keyWidth][RADIX];
+            buffer = new byte[keys.length];
+            msdSort(0, rows, 0);
+        }
+        
+        int[] order = new int[rows];
+        ByteBuffer records = ByteBuffer.wrap(keys);
+        for (int i = 0; i < rows; i++) {
+            order[i] = records.getInt(i * recordWidth + keyWidth);
+        }
+        
+        keys = null;
+        buffer = null;
+        counts = null;
+        return order;
+    }
+    
+    /**
+     * Sort the rows: reorder every key and payload column in place by the key columns.
+     *
+     * @return The order that was applied, as row indices of the original columns
+     * @throws IllegalStateException if no key column was added
+     */
+    public int[] sort() {
+        int[] order = order();
+        Set<Object> permuted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Column column : keyColumns) {
+            if (permuted.add(column.values())) {
+                column.permute(order);
+            }
+        }
+        for (Column column : payloadColumns) {
+            if (permuted.add(column.values())) {
+                column.permute(order);
+            }
+        }
+        return order;
+    }
+    
+    private ColumnarSort addKey(KeyColumn column) {
+        checkRows(column.length());
+        keyColumns.add(column);
+        return this;
+    }
+    
+    private ColumnarSort addPayload(Column column, int length) {
+        checkRows(length);
+        payloadColumns.add(column);
+        return this;
+    }
+    
+    private void checkRows(int length) {
+        if (rows >= 0 && length != rows) {
+            throw new IllegalArgumentException("Column has " + length + " rows, expected " + rows);
+        }
+        rows = length;
+    }
+    
+    /**
+     * Write the normalized key of every row, one column at a time, followed by the row index.
+     */
+    private void encodeKeys() {
+        keyWidth = 0;
+        for (KeyColumn column : keyColumns) {
+            keyWidth += column.width();
+        }
+        recordWidth = keyWidth + Integer.BYTES;
+        
+        keys = new byte[Math.multiplyExact(rows, recordWidth)];
+        ByteBuffer records = ByteBuffer.wrap(keys);
+        
+        int offset = 0;
+        for (KeyColumn column : keyColumns) {
+            column.encode(records, offset, recordWidth);
+            offset += column.width();
+        }
+        for (int i = 0; i < rows; i++) {
+            records.putInt(i * recordWidth + keyWidth, i);
+        }
+    }
+    
+    /**
+     * MSD radix sort of records [low..high) on the key byte at depth and the bytes after it.
+     */
+    private void msdSort(int low, int high, int depth) {
+        while (high - low > INSERTION_CUTOFF) {
+            // Equal keys stay in row order, because every distribution is stable
+            if (depth == keyWidth) {
+                return;
+            }
+            
+            int[] count = counts[depth];
+            Arrays.fill(count, 0);
+            for (int i = low; i < high; i++) {
+                count[keys[i * recordWidth + depth] & 0xFF]++;
+            }
+            
+            // All keys share this byte: nothing to move
+            if (count[keys[low * recordWidth + depth] & 0xFF] == high - low) {
+                depth++;
+                continue;
+            }
+            
+            // Turn the counts into starting records, distribute into the buffer and copy back
+            int start = low;
+            for (int b = 0; b < RADIX; b++) {
+                int c = count[b];
+                count[b] = start;
+                start += c;
+            }
+            for (int i = low; i < high; i++) {
+                int b = keys[i * recordWidth + depth] & 0xFF;
+                System.arraycopy(keys, i * recordWidth, buffer, count[b]++ * recordWidth, recordWidth);
+            }
+            System.arraycopy(buffer, low * recordWidth, keys, low * recordWidth, (high - low) * recordWidth);
+            
+            // count[b] is now the end of bucket b
+            int bucketStart = low;
+            for (int b = 0; b < RADIX; b++) {
+                int bucketEnd = count[b];
+                if (bucketEnd - bucketStart > 1) {
+                    msdSort(bucketStart, bucketEnd, depth + 1);
+                }
+                bucketStart = bucketEnd;
+            }
+            return;
+        }
+        
+        insertionSort(low, high, depth);
+    }
+    
+    /**
+     * Insertion sort of records [low..high), comparing the bytes from depth on; the bytes before
+     * depth are equal within the range. The row index at the end of each record breaks ties.
+     */
+    private void insertionSort(int low, int high, int depth) {
+        byte[] record = new byte[recordWidth];
+        for (int i = low + 1; i < high; i++) {
+            if (compare(i, i - 1, depth) >= 0) {
+                continue;
+            }
+            
+            System.arraycopy(keys, i * recordWidth, record, 0, recordWidth);
+            int j = i - 1;
+            
+            // Move records that are greater than the current one to one position ahead
+            do {
+                System.arraycopy(keys, j * recordWidth, keys, (j + 1) * recordWidth, recordWidth);
+                j--;
+            } while (j >= low && Arrays.compareUnsigned(record, depth, recordWidth,
+                    keys, j * recordWidth + depth, (j + 1) * recordWidth) < 0);
+            
+            System.arraycopy(record, 0, keys, (j + 1) * recordWidth, recordWidth);
+        }
+    }
+    
+    private int compare(int a, int b, int depth) {
+        return Arrays.compareUnsigned(keys, a * recordWidth + depth, (a + 1) * recordWidth,
+                keys, b * recordWidth + depth, (b + 1) * recordWidth);
+    }
+    
+    /**
+     * A column of the rows that is reordered with them.
+     */
+    private abstract static class Column {
+        
+        abstract int length();
+        
+        /**
+         * The array of the column, to permute every array only once.
+         */
+        abstract Object values();
+        
+        abstract void permute(int[] order);
+    }
+    
+    /**
+     * A column that can also be a key: encodes its normalized key bytes.
+     */
+    private abstract static class KeyColumn extends Column {
+        
+        abstract int width();
+        
+        /**
+         * Write the key of every row at offset within its record of the given width.
+         */
+        abstract void encode(ByteBuffer records, int offset, int recordWidth);
+    }
+    
+    private static class IntColumn extends KeyColumn {
+        
+        private final int[] values;
+        private final int flip;
+        
+        IntColumn(int[] values, boolean descending) {
+            this.values = values;
+            // Flip the sign bit so negative values come first; invert everything to sort descending
+            this.flip = descending ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        
+        @Override
+        int length() {
+            return values.length;
+        }
+        
+        @Override
+        Object values() {
+            return values;
+        }
+        
+        @Override
+        int width() {
+            return Integer.BYTES;
+        }
+        
+        @Override
+        void encode(ByteBuffer records, int offset, int recordWidth) {
+            for (int i = 0; i < values.length; i++) {
+                records.putInt(i * recordWidth + offset, values[i] ^ flip);
+            }
+        }
+        
+        @Override
+        void permute(int[] order) {
+            ArgSort.permute(order, values);
+        }
+    }
+    
+    private static class LongColumn extends KeyColumn {
+        
+        private final long[] values;
+        private final long flip;
+        
+        LongColumn(long[] values, boolean descending) {
+            this.values = values;
+            this.flip = descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        
+        @Override
+        int length() {
+            return values.length;
+        }
+        
+        @Override
+        Object values() {
+            return values;
+        }
+        
+        @Override
+        int width() {
+            return Long.BYTES;
+        }
+        
+        @Override
+        void encode(ByteBuffer records, int offset, int recordWidth) {
+            for (int i = 0; i < values.length; i++) {
+                records.putLong(i * recordWidth + offset, values[i] ^ flip);
+            }
+        }
+        
+        @Override
+        void permute(int[] order) {
+            ArgSort.permute(order, values);
+        }
+    }
+    
+    private static class DoubleColumn extends KeyColumn {
+        
+        private final double[] values;
+        private final boolean descending;
+        
+        DoubleColumn(double[] values, boolean descending) {
+            this.values = values;
+            this.descending = descending;
+        }
+        
+        @Override
+        int length() {
+            return values.length;
+        }
+        
+        @Override
+        Object values() {
+            return values;
+        }
+        
+        @Override
+        int width() {
+            return Double.BYTES;
+        }
+        
+        @Override
+        void encode(ByteBuffer records, int offset, int recordWidth) {
+            long invert = descending ? -1L : 0L;
+            for (int i = 0; i < values.length; i++) {
+                // Same key as DoubleSort: canonical NaN, all bits of negative values flipped
+                long bits = Double.doubleToLongBits(values[i]);
+                long key = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+                records.putLong(i * recordWidth + offset, key ^ invert);
+            }
+        }
+        
+        @Override
+        void permute(int[] order) {
+            ArgSort.permute(order, values);
+        }
+    }
+    
+    private static class ObjectColumn extends Column {
+        
+        private final Object[] values;
+        
+        ObjectColumn(Object[] values) {
+            this.values = values;
+        }
+        
+        @Override
+        int length() {
+            return values.length;
+        }
+        
+        @Override
+        Object values() {
+            return values;
+        }
+        
+        @Override
+        void permute(int[] order) {
+            ArgSort.permute(order, values);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.sortalgo.primitive;
+
+/**
+ * Sorting of short[] without boxing.
+ *
+ * Three engines are provided: an introsort (Hoare partition with median-of-three or ninther pivots,
+ * insertion sort for small ranges and heapsort when the recursion gets too deep), a stable top-down
+ * merge sort that alternates between the array and one buffer, and an LSD radix sort on 8-bit
+ * digits of a 16-bit key with all histograms built in one read. {@link #sort} picks radix sort
+ * for large ranges and introsort for small ones.
+ *
+ * Generated from tools/templates/PrimitiveSort.java.template by tools/GeneratePrimitiveSorts.java;
+ * edit the template and regenerate instead of changing this file.
+ */
+public final class ShortSort {
+    
+    // Ranges with at most this many elements are sorted with insertion sort
+    private static final int INSERTION_CUTOFF = 16;
+    
+    // Ranges smaller than this use median-of-three instead of the ninther
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    // sort() uses radix sort from this many elements on
+    private static final int RADIX_THRESHOLD = 32;
+    
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    private static final int PASSES = 16 / DIGIT_BITS;
+    
+    private ShortSort() {
+    }
+    
+    /**
+     * Sort the array in ascending order with the engine best suited to its length.
+     *
+     * @param a The array to sort
+     */
+    public static void sort(short[] a) {
+        sort(a, 0, a.length);
+    }
+    
+    /**
+     * Sort a[from..to) in ascending order with the engine best suited to its length.
+     *
+     * @param a The array to sort
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     */
+    public static void sort(short[] a, int from, int to) {
+        if (to - from >= RADIX_THRESHOLD) {
+            radixSort(a, from, to);
+        } else {
+            quickSort(a, from, to);
+        }
+    }
+    
+    /**
+     * Sort the array in place with introsort.
+     *
+     * @param a The array to sort
+     */
+    public static void quickSort(short[] a) {
+        quickSort(a, 0, a.length);
+    }
+    
+    /**
+     * Sort a[from..to) in place with introsort.
+     *
+     * @param a The array to sort
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     */
+    public static void quickSort(short[] a, int from, int to) {
+        checkRange(a.length, from, to);
+        int n = to - from;
+        if (n > 1) {
+            quickSort(a, from, to - 1, 2 * (31 - Integer.numberOfLeadingZeros(n)));
+        }
+    }
+    
+    /**
+     * Sort the array with a stable merge sort.
+     *
+     * @param a The array to sort
+     */
+    public static void mergeSort(short[] a) {
+        mergeSort(a, 0, a.length);
+    }
+    
+    /**
+     * Sort a[from..to) with a stable merge sort, using a buffer of to - from elements.
+     *
+     * @param a The array to sort
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     */
+    public static void mergeSort(short[] a, int from, int to) {
+        checkRange(a.length, from, to);
+        if (to - from > 1) {
+            // Both arrays start with the same contents, so every level can merge from one into the other
+            short[] buffer = new short[to - from];
+            System.arraycopy(a, from, buffer, 0, to - from);
+            mergeSort(buffer, -from, a, 0, from, to);
+        }
+    }
+    
+    /**
+     * Sort the array with LSD radix sort.
+     *
+     * @param a The array to sort
+     */
+    public static void radixSort(short[] a) {
+        radixSort(a, 0, a.length);
+    }
+    
+    /**
+     * Sort a[from..to) with LSD radix sort, using a buffer of to - from elements. Passes in which
+     * every element has the same digit are skipped.
+     *
+     * @param a The array to sort
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     */
+    public static void radixSort(short[] a, int from, int to) {
+        checkRange(a.length, from, to);
+        int n = to - from;
+        if (n <= 1) {
+            return;
+        }
+        
+        int[][] histograms = buildHistograms(a, from, to);
+        short[] source = a;
+        short[] target = null;
+        int sourceFrom = from;
+        int targetFrom = 0;
+        
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * DIGIT_BITS;
+            int[] count = histograms[pass];
+            if (count[digit(key(a[from]), shift)] == n) {
+                continue;
+            }
+            
+            if (target == null) {
+                target = new short[n];
+            }
+            
+            // Turn the counts into starting offsets
+            int offset = targetFrom;
+            for (int d = 0; d < RADIX; d++) {
+                int c = count[d];
+                count[d] = offset;
+                offset += c;
+            }
+            
+            for (int i = sourceFrom, end = sourceFrom + n; i < end; i++) {
+                short value = source[i];
+                target[count[digit(key(value), shift)]++] = value;
+            }
+            
+            short[] temp = source;
+            source = target;
+            target = temp;
+            int tempFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = tempFrom;
+        }
+        
+        // After an odd number of passes the sorted data lives in the buffer
+        if (source != a) {
+            System.arraycopy(source, sourceFrom, a, from, n);
+        }
+    }
+    
+    /**
+     * Check that a[from..to) is in ascending order.
+     *
+     * @param a The array to check
+     * @param from Index of the first element, inclusive
+     * @param to Index of the last element, exclusive
+     * @return true if no element is smaller than its predecessor
+     */
+    public static boolean isSorted(short[] a, int from, int to) {
+        checkRange(a.length, from, to);
+        for (int i = from + 1; i < to; i++) {
+            if (less(a[i], a[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Ascending order of two values.
+     */
+    private static boolean less(short a, short b) {
+        return a < b;
+    }
+    
+    /**
+     * Unsigned radix key whose order matches {@link #less}.
+     */
+    private static int key(short value) {
+        return value - Short.MIN_VALUE;
+    }
+    
+    private static int digit(int key, int shift) {
+        return (key >>> shift) & DIGIT_MASK;
+    }
+    
+    /**
+     * Count the digits of every pass with a single read of the range.
+     */
+    private static int[][] buildHistograms(short[] a, int from, int to) {
+        int[][] histograms = new int[PASSES][RADIX];
+        for (int i = from; i < to; i++) {
+            int key = key(a[i]);
+            for (int pass = 0; pass < PASSES; pass++) {
+                histograms[pass][digit(key, pass * DIGIT_BITS)]++;
+            }
+        }
+        return histograms;
+    }
+    
+    /**
+     * Merge sort the elements [low..high) of source into target. Element k is stored at
+     * source[sourceOffset + k] and target[targetOffset + k]; both hold the same values on entry.
+     */
+    private static void mergeSort(short[] source, int sourceOffset, short[] target, int targetOffset,
+                                  int low, int high) {
+        if (high - low <= INSERTION_CUTOFF) {
+            insertionSort(target, targetOffset + low, targetOffset + high - 1);
+            return;
+        }
+        
+        int mid = (low + high) >>> 1;
+        
+        // Sort both halves into source, so they can be merged into target
+        mergeSort(target, targetOffset, source, sourceOffset, low, mid);
+        mergeSort(target, targetOffset, source, sourceOffset, mid, high);
+        
+        int i = sourceOffset + low;
+        int middle = sourceOffset + mid;
+        int end = sourceOffset + high;
+        
+        // The halves are already in order
+        if (!less(source[middle], source[middle - 1])) {
+            System.arraycopy(source, i, target, targetOffset + low, high - low);
+            return;
+        }
+        
+        int j = middle;
+        for (int k = targetOffset + low, last = targetOffset + high; k < last; k++) {
+            if (j >= end || (i < middle && !less(source[j], source[i]))) {
+                target[k] = source[i++];
+            } else {
+                target[k] = source[j++];
+            }
+        }
+    }
+    
+    private static void quickSort(short[] a, int low, int high, int depth) {
+        // Recurse into the smaller side and loop on the larger one, so the stack stays O(log n)
+        while (high - low + 1 > INSERTION_CUTOFF) {
+            if (depth == 0) {
+                heapSort(a, low, high);
+                return;
+            }
+            depth--;
+            
+            int split = partition(a, low, high);
+            if (split - low < high - split) {
+                quickSort(a, low, split, depth);
+                low = split + 1;
+            } else {
+                quickSort(a, split + 1, high, depth);
+                high = split;
+            }
+        }
+        
+        insertionSort(a, low, high);
+    }
+    
+    /**
+     * Hoare partition around the value of the chosen pivot.
+     *
+     * @return The split point: a[low..split] are <= pivot and a[split+1..high] are >= pivot
+     */
+    private static int partition(short[] a, int low, int high) {
+        short pivot = a[choosePivot(a, low, high)];
+        int i = low - 1;
+        int j = high + 1;
+        
+        while (true) {
+            do {
+                i++;
+            } while (less(a[i], pivot));
+            
+            do {
+                j--;
+            } while (less(pivot, a[j]));
+            
+            if (i >= j) {
+                return j;
+            }
+            short temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
+        }
+    }
+    
+    private static int choosePivot(short[] a, int low, int high) {
+        int size = high - low + 1;
+        int mid = low + (high - low) / 2;
+        
+        if (size < NINTHER_THRESHOLD) {
+            return medianOfThree(a, low, mid, high);
+        }
+        
+        int step = size / 8;
+        int first = medianOfThree(a, low, low + step, low + 2 * step);
+        int middle = medianOfThree(a, mid - step, mid, mid + step);
+        int last = medianOfThree(a, high - 2 * step, high - step, high);
+        return medianOfThree(a, first, middle, last);
+    }
+    
+    /**
+     * Index of the median of a[i], a[j] and a[k].
+     */
+    private static int medianOfThree(short[] a, int i, int j, int k) {
+        if (less(a[i], a[j])) {
+            if (less(a[j], a[k])) {
+                return j;
+            }
+            return less(a[i], a[k]) ? k : i;
+        } else {
+            if (less(a[i], a[k])) {
+                return i;
+            }
+            return less(a[j], a[k]) ? k : j;
+        }
+    }
+    
+    private static void insertionSort(short[] a, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            short key = a[i];
+            int j = i - 1;
+            
+            // Move elements that are greater than key to one position ahead
+            while (j >= low && less(key, a[j])) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            
+            a[j + 1] = key;
+        }
+    }
+    
+    private static void heapSort(short[] a, int low, int high) {
+        int size = high - low + 1;
+        
+        for (int root = size / 2 - 1; root >= 0; root--) {
+            siftDown(a, low, root, size);
+        }
+        
+        for (int end = size - 1; end > 0; end--) {
+            short temp = a[low];
+            a[low] = a[low + end];
+            a[low + end] = temp;
+            siftDown(a, low, 0, end);
+        }
+    }
+    
+    /**
+     * Restore the max-heap property below root for the heap stored in a[low..low+size-1].
+     */
+    private static void siftDown(short[] a, int low, int root, int size) {
+        short value = a[low + root];
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(a[low + child], a[low + child + 1])) {
+                child++;
+            }
+            if (!less(value, a[low + child])) {
+                break;
+            }
+            a[low + root] = a[low + child];
+            root = child;
+        }
+        a[low + root] = value;
+    }
+    
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.sortalgo.stream;
+
+import com.sortalgo.algorithm.PivotStrategy;
+import com.sortalgo.algorithm.QuickSort;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The k largest values of an unbounded stream of ints, maintained as the values arrive.
+ *
+ * Values are pushed one at a time through {@link #accept} (so a collector can be handed to
+ * anything that takes an IntConsumer) or in chunks through {@link #acceptAll(int[], int, int)}.
+ * Only k values are kept, in a min-heap whose root is the smallest value kept: a new value that
+ * does not beat the root is rejected with one comparison, which is what almost every value of a
+ * long stream does, and a value that does replaces the root and is sifted down. Neither path
+ * allocates.
+ *
+ * Large chunks take a batch path instead: the values that beat the current minimum are gathered
+ * behind the kept ones in a buffer of 2k values, and whenever the buffer fills up the k largest
+ * are selected with the introselect of {@link QuickSort#select(int[], int, int, int)}, which costs
+ * O(k) instead of O(k log k) heap operations.
+ *
+ * {@link #snapshot()} copies the current top k in O(k) without disturbing the collector.
+ * Instances are not thread-safe; streams that may be parallel go through {@link #of}, which
+ * merges per-thread collectors.
+ */
+public final class IntTopK implements IntConsumer {
+    
+    private final int k;
+    
+    // Min-heap of the kept values; heap[0] is the smallest of them
+    private final int[] heap;
+    private int size;
+    private long count;
+    
+    // Created on first use by the batch path
+    private int[] buffer;
+    private QuickSort selector;
+    
+    /**
+     * Create a collector of the k largest values.
+     *
+     * @param k Number of values to keep, at least 1
+     */
+    public IntTopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1, was " + k);
+        }
+        if (k > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("k must be at most " + Integer.MAX_VALUE / 2 + ", was " + k);
+        }
+        this.k = k;
+        this.heap = new int[k];
+    }
+    
+    /**
+     * Collect the k largest values of a stream, which may be parallel.
+     *
+     * @param stream The values
+     * @param k Number of values to keep, at least 1
+     * @return A collector holding the k largest values of the stream
+     */
+    public static IntTopK of(IntStream stream, int k) {
+        return stream.collect(() -> new IntTopK(k), IntTopK::accept, IntTopK::merge);
+    }
+    
+    /**
+     * Offer one value of the stream.
+     *
+     * @param value The value
+     */
+    @Override
+    public void accept(int value) {
+        count++;
+        if (size < k) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (value > heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+    
+    /**
+     * Offer the values of a[from..to). Chunks of at least k values take the batch path.
+     *
+     * @param a The values
+     * @param from Index of the first value, inclusive
+     * @param to Index of the last value, exclusive
+     */
+    public void acceptAll(int[] a, int from, int to) {
+        if (from < 0 || to > a.length || from > to) {
+            throw new ArrayIndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + a.length);
+        }
+        if (to - from < k) {
+            for (int i = from; i < to; i++) {
+                accept(a[i]);
+            }
+            return;
+        }
+        
+        if (buffer == null) {
+            buffer = new int[2 * k];
+            selector = new QuickSort(PivotStrategy.NINTHER);
+        }
+        
+        // The kept values come first; values that do not beat the smallest of a full top k are dropped
+        System.arraycopy(heap, 0, buffer, 0, size);
+        int buffered = size;
+        boolean full = size == k;
+        int threshold = full ? heap[0] : 0;
+        for (int i = from; i < to; i++) {
+            int value = a[i];
+            if (full && value <= threshold) {
+                continue;
+            }
+            buffer[buffered++] = value;
+            if (buffered == buffer.length) {
+                threshold = keepLargest(buffered);
+                buffered = k;
+                full = true;
+            }
+        }
+        if (buffered > k) {
+            keepLargest(buffered);
+            buffered = k;
+        }
+        count += to - from;
+        
+        System.arraycopy(buffer, 0, heap, 0, buffered);
+        size = buffered;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+    
+    /**
+     * Offer every value of a sequential stream.
+     *
+     * @param stream The values
+     */
+    public void acceptAll(IntStream stream) {
+        stream.sequential().forEach(this);
+    }
+    
+    /**
+     * Offer the values kept by another collector, as if its stream had been offered to this one.
+     *
+     * @param other The other collector
+     */
+    public void merge(IntTopK other) {
+        long seen = count + other.count;
+        for (int i = 0; i < other.size; i++) {
+            accept(other.heap[i]);
+        }
+        count = seen;
+    }
+    
+    /**
+     * Move the k largest of buffer[0..buffered) to buffer[0..k).
+     *
+     * @return The smallest of them
+     */
+    private int keepLargest(int buffered) {
+        int first = buffered - k;
+        int smallest = selector.select(buffer, 0, buffered, first);
+        System.arraycopy(buffer, first, buffer, 0, k);
+        return smallest;
+    }
+    
+    /**
+     * The values kept so far, the k largest of the stream (fewer if it has had fewer values),
+     * in no particular order.
+     *
+     * @return A new array of {@link #size()} values
+     */
+    public int[] snapshot() {
+        return Arrays.copyOf(heap, size);
+    }
+    
+    /**
+     * The values kept so far, largest first.
+     *
+     * @return A new array of {@link #size()} values in descending order
+     */
+    public int[] sortedSnapshot() {
+        int[] values = snapshot();
+        Arrays.sort(values);
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            int temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+        return values;
+    }
+    
+    /**
+     * Copy the values kept so far into target, in no particular order, without allocating.
+     *
+     * @param target Array of at least {@link #size()} values
+     * @return The number of values copied
+     */
+    public int snapshot(int[] target) {
+        System.arraycopy(heap, 0, target, 0, size);
+        return size;
+    }
+    
+    /**
+     * The smallest value kept, which a new value has to exceed to enter a full top k.
+     *
+     * @return The smallest value kept
+     * @throws IllegalStateException If no value has been offered yet
+     */
+    public int min() {
+        if (size == 0) {
+            throw new IllegalStateException("No values have been offered");
+        }
+        return heap[0];
+    }
+    
+    /**
+     * Forget every value offered so far.
+     */
+    public void clear() {
+        size = 0;
+        count = 0;
+    }
+    
+    public int getK() {
+        return k;
+    }
+    
+    /**
+     * Number of values kept: k once that many have been offered.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Number of values offered so far.
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    private void siftUp(int child) {
+        int value = heap[child];
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = value;
+    }
+    
+    private void siftDown(int root) {
+        int value = heap[root];
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[root] = heap[child];
+            root = child;
+        }
+        heap[root] = value;
+    }
+}
@@ -0,0 +1,391 @@
+package com.sortalgo.text;
+
+import com.sortalgo.util.IntStack;
+
+/**
+ * Multikey quicksort (Bentley-Sedgewick) over an array of strings of some kind, with cached keys.
+ *
+ * A range is partitioned three ways on the characters at one position (depth): strings whose
+ * characters there are smaller than, equal to or greater than the pivot's. The smaller and greater
+ * parts are sorted further at the same depth and the equal part at the next one, so every character
+ * is inspected about log n times instead of the full strings being compared again and again.
+ *
+ * Instead of one character, the partition works on a key that packs several characters from depth
+ * on into a long, so one comparison consumes several characters. Keys are computed once per range
+ * and depth and kept in an array parallel to the strings; the smaller and greater parts reuse them,
+ * only the equal part needs new keys. Each character is stored as its value plus one, so a zero
+ * slot means that the string has ended and keys never confuse a string with its prefix. When all
+ * strings of a range have the same key, the range jumps straight past their longest common prefix
+ * (for example the scheme and host of URLs) instead of partitioning on it key by key.
+ * Ranges of at most INSERTION_CUTOFF strings are finished with insertion sort.
+ *
+ * The partitions move int indices of the strings together with their keys, never the string
+ * references themselves: reference stores are slowed down by the garbage collector's write barriers,
+ * so the array is reordered only once, when the sort completes.
+ *
+ * Pending ranges live on an explicit stack, so the sort can be run to completion with
+ * {@link #sortAll} or one partition at a time with {@link #advance}.
+ *
+ * @param <T> The string type
+ */
+abstract class MultikeyQuickSort<T> {
+    
+    // Ranges with at most this many strings are sorted with insertion sort
+    static final int INSERTION_CUTOFF = 16;
+    
+    // Ranges smaller than this use median-of-three instead of the ninther
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    private final int charsPerKey;
+    private final long lastSlotMask;
+    
+    private T[] array;
+    
+    // order[i] is the index in array of the string at sorted position i; cache[i] is its key
+    private int[] order;
+    private long[] cache;
+    
+    // Pending ranges as (low, high, depth, cached) quadruples; high is exclusive
+    private IntStack stack;
+    
+    private long comparisons;
+    private long swaps;
+    private int lastDepth;
+    
+    /**
+     * @param charsPerKey Number of characters packed into one key
+     * @param bitsPerChar Bits of one packed character, enough for its value plus one
+     */
+    MultikeyQuickSort(int charsPerKey, int bitsPerChar) {
+        this.charsPerKey = charsPerKey;
+        this.lastSlotMask = (1L << bitsPerChar) - 1;
+    }
+    
+    /**
+     * Key of the characters of value from depth on: charsPerKey slots, most significant first,
+     * each holding a character plus one, or zero past the end of the string.
+     */
+    abstract long key(T value, int depth);
+    
+    /**
+     * Lexicographic comparison of a and b from depth on. Both have at least depth characters.
+     */
+    abstract int compareFrom(T a, T b, int depth);
+    
+    /**
+     * Length of the common prefix of a and b, given that they agree on the first depth characters.
+     */
+    abstract int commonPrefix(T a, T b, int depth);
+    
+    abstract int length(T value);
+    
+    /**
+     * Prepare to sort the array in place.
+     *
+     * @param array The strings to sort
+     */
+    void init(T[] array) {
+        this.array = array;
+        this.order = new int[array.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        this.cache = new long[array.length];
+        this.stack = new IntStack();
+        this.comparisons = 0;
+        this.swaps = 0;
+        this.lastDepth = 0;
+        pushRange(0, array.length, 0, false);
+    }
+    
+    /**
+     * Sort everything that is left.
+     */
+    void sortAll() {
+        while (!stack.isEmpty()) {
+            advance();
+        }
+    }
+    
+    boolean isComplete() {
+        return stack.isEmpty();
+    }
+    
+    /**
+     * The string currently at a position of the array being sorted.
+     *
+     * @param position Position in the array
+     * @return The string at that position
+     */
+    T get(int position) {
+        return order == null ? array[position] : array[order[position]];
+    }
+    
+    /**
+     * Partition the next pending range, or finish it with insertion sort if it is small. After the
+     * last range the array is put into sorted order.
+     *
+     * @return The bounds of the parts: {low, lt, gt, high - 1} after a partition, where [lt..gt) holds
+     *         the strings equal to the pivot, or {low, high - 1} after an insertion sort
+     */
+    int[] advance() {
+        int[] bounds = partitionNextRange();
+        if (stack.isEmpty()) {
+            applyOrder();
+        }
+        return bounds;
+    }
+    
+    /**
+     * Reorder the array by the computed order, gathering from a copy.
+     */
+    private void applyOrder() {
+        T[] source = array.clone();
+        for (int i = 0; i < array.length; i++) {
+            array[i] = source[order[i]];
+        }
+        order = null;
+        cache = null;
+    }
+    
+    private int[] partitionNextRange() {
+        boolean cached = stack.pop() != 0;
+        int depth = stack.pop();
+        int high = stack.pop();
+        int low = stack.pop();
+        lastDepth = depth;
+        
+        if (!cached) {
+            // Guess the common prefix of the range from three strings and take the keys after it,
+            // so a shared prefix usually costs a single pass over the strings
+            int guess = Math.min(commonPrefix(array[order[low]], array[order[(low + high) >>> 1]], depth),
+                    commonPrefix(array[order[low]], array[order[high - 1]], depth));
+            int prefix = fillKeys(low, high, depth, guess);
+            if (prefix == Integer.MAX_VALUE) {
+                // The strings are all equal
+                return new int[]{low, high - 1};
+            }
+            
+            if (prefix >= guess + charsPerKey || prefix < guess) {
+                // The guess was too short or too long: skip to the real common prefix if that
+                // saves at least one key, otherwise stay at depth
+                depth = prefix >= depth + charsPerKey ? prefix : depth;
+                fillKeys(low, high, depth, depth);
+            } else {
+                depth = guess;
+            }
+            lastDepth = depth;
+        }
+        
+        if (high - low <= INSERTION_CUTOFF) {
+            insertionSort(low, high, depth);
+            return new int[]{low, high - 1};
+        }
+        
+        // Bentley-McIlroy partition: keys equal to the pivot are swapped to both ends while scanning
+        // and moved to the middle afterwards, so distinct keys cost no extra swaps
+        int last = high - 1;
+        int pivotIndex = choosePivot(low, last);
+        if (pivotIndex != low) {
+            swap(pivotIndex, low);
+        }
+        long pivot = cache[low];
+        
+        int i = low;
+        int j = high;
+        int leftEquals = low;
+        int rightEquals = high;
+        while (true) {
+            do {
+                i++;
+                comparisons++;
+            } while (cache[i] < pivot && i != last);
+            
+            do {
+                j--;
+                comparisons++;
+            } while (pivot < cache[j] && j != low);
+            
+            if (i == j && cache[i] == pivot) {
+                swap(++leftEquals, i);
+            }
+            if (i >= j) {
+                break;
+            }
+            
+            swap(i, j);
+            if (cache[i] == pivot) {
+                swap(++leftEquals, i);
+            }
+            if (cache[j] == pivot) {
+                swap(--rightEquals, j);
+            }
+        }
+        
+        // Move the equal keys from both ends to the middle: [low..lt) < pivot, [lt..gt) == pivot, [gt..high) > pivot
+        int lt = j + 1;
+        int gt = j + 1;
+        for (int k = low; k <= leftEquals; k++) {
+            swap(k, --lt);
+        }
+        for (int k = last; k >= rightEquals; k--) {
+            swap(k, gt++);
+        }
+        
+        // Process the smaller outer part first, so the stack stays small
+        if (lt - low < high - gt) {
+            pushRange(gt, high, depth, true);
+            pushRange(low, lt, depth, true);
+        } else {
+            pushRange(low, lt, depth, true);
+            pushRange(gt, high, depth, true);
+        }
+        
+        // Strings that ended inside the key are equal; the others continue after it
+        if ((pivot & lastSlotMask) != 0) {
+            pushRange(lt, gt, depth + charsPerKey, false);
+        }
+        
+        return new int[]{low, lt, gt, high - 1};
+    }
+    
+    /**
+     * Compute the keys of [low..high) at keyDepth. The strings are read anyway, so the length of
+     * their common prefix is measured in the same pass.
+     *
+     * @param depth Number of leading characters the strings of the range are known to share
+     * @param keyDepth Position of the first character of the keys, at least depth
+     * @return The length of the prefix shared by all strings of the range, or Integer.MAX_VALUE
+     *         if they are all equal
+     */
+    private int fillKeys(int low, int high, int depth, int keyDepth) {
+        T first = array[order[low]];
+        cache[low] = key(first, keyDepth);
+        int prefix = length(first);
+        boolean equal = true;
+        
+        for (int i = low + 1; i < high; i++) {
+            T value = array[order[i]];
+            cache[i] = key(value, keyDepth);
+            // Once the prefix is down to depth there is nothing left to measure
+            if (prefix > depth) {
+                int common = commonPrefix(first, value, depth);
+                prefix = Math.min(prefix, common);
+                equal &= common == length(first) && common == length(value);
+            }
+        }
+        
+        return equal && prefix > depth ? Integer.MAX_VALUE : prefix;
+    }
+    
+    private void pushRange(int low, int high, int depth, boolean cached) {
+        if (high - low > 1) {
+            stack.push(low);
+            stack.push(high);
+            stack.push(depth);
+            stack.push(cached ? 1 : 0);
+        }
+    }
+    
+    private int choosePivot(int low, int high) {
+        int size = high - low + 1;
+        int mid = low + (high - low) / 2;
+        
+        if (size < NINTHER_THRESHOLD) {
+            return medianOfThree(low, mid, high);
+        }
+        
+        int step = size / 8;
+        int first = medianOfThree(low, low + step, low + 2 * step);
+        int middle = medianOfThree(mid - step, mid, mid + step);
+        int last = medianOfThree(high - 2 * step, high - step, high);
+        return medianOfThree(first, middle, last);
+    }
+    
+    /**
+     * Index of the median of the keys at a, b and c.
+     */
+    private int medianOfThree(int a, int b, int c) {
+        long ka = cache[a];
+        long kb = cache[b];
+        long kc = cache[c];
+        
+        comparisons += 2;
+        if (ka < kb) {
+            if (kb < kc) {
+                return b;
+            }
+            comparisons++;
+            return ka < kc ? c : a;
+        } else {
+            if (ka < kc) {
+                return a;
+            }
+            comparisons++;
+            return kb < kc ? c : b;
+        }
+    }
+    
+    /**
+     * Insertion sort of [low..high), whose strings agree on the characters before depth. Keys are
+     * compared first; the strings themselves only when their keys are equal and not ended.
+     */
+    private void insertionSort(int low, int high, int depth) {
+        for (int i = low + 1; i < high; i++) {
+            int index = order[i];
+            long key = cache[i];
+            int j = i - 1;
+            
+            // Move strings that are greater than this one to one position ahead
+            while (j >= low && less(index, key, order[j], cache[j], depth)) {
+                order[j + 1] = order[j];
+                cache[j + 1] = cache[j];
+                swaps++;
+                j--;
+            }
+            
+            order[j + 1] = index;
+            cache[j + 1] = key;
+        }
+    }
+    
+    private boolean less(int a, long keyA, int b, long keyB, int depth) {
+        comparisons++;
+        if (keyA != keyB) {
+            return keyA < keyB;
+        }
+        return (keyA & lastSlotMask) != 0 && compareFrom(array[a], array[b], depth + charsPerKey) < 0;
+    }
+    
+    private void swap(int i, int j) {
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+        long key = cache[i];
+        cache[i] = cache[j];
+        cache[j] = key;
+        swaps++;
+    }
+    
+    long getComparisons() {
+        return comparisons;
+    }
+    
+    long getSwaps() {
+        return swaps;
+    }
+    
+    /**
+     * Character position of the range handled by the last call to {@link #advance}.
+     */
+    int getLastDepth() {
+        return lastDepth;
+    }
+    
+    /**
+     * Number of ranges still waiting to be sorted.
+     */
+    int getPendingRanges() {
+        return stack.size() / 4;
+    }
+}
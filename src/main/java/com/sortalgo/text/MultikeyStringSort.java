@@ -0,0 +1,152 @@
+package com.sortalgo.text;
+
+import com.sortalgo.algorithm.SortingAlgorithm;
+import com.sortalgo.model.SortingEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visualization of the string multikey quicksort of {@link StringSort} on int arrays.
+ *
+ * Every value is turned into a decimal string, zero-padded to the width of the largest one (after
+ * subtracting the minimum, so negative values work too), and the strings are sorted one character
+ * per key. Each step partitions one range on the digit at one position, so the steps show the
+ * buckets splitting from the most significant digit down: the highlights are the bounds of the
+ * smaller, equal and greater parts, and the metrics show the character position.
+ */
+public class MultikeyStringSort implements SortingAlgorithm {
+    
+    private int[] array;
+    private String[] strings;
+    private StringSort.Strings sorter;
+    private int n;
+    private int min;
+    private int width;
+    private long startTime;
+    private boolean isComplete;
+    
+    @Override
+    public void init(int[] array) {
+        this.array = array.clone();
+        this.n = array.length;
+        this.startTime = System.currentTimeMillis();
+        this.isComplete = n <= 1; // Already sorted if array size <= 1
+        
+        int max = 0;
+        this.min = 0;
+        if (n > 0) {
+            min = array[0];
+            max = array[0];
+            for (int value : array) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        this.width = Long.toString((long) max - min).length();
+        
+        this.strings = new String[n];
+        for (int i = 0; i < n; i++) {
+            strings[i] = pad(Long.toString((long) array[i] - min));
+        }
+        
+        // One character per key, so every step works on a single digit position
+        this.sorter = new StringSort.Strings(1);
+        sorter.init(strings);
+    }
+    
+    @Override
+    public SortingEvent sort() {
+        while (!isComplete) {
+            sorter.advance();
+            isComplete = sorter.isComplete();
+        }
+        updateArray();
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        
+        return new SortingEvent(array, new int[0], getComparisons(), getSwaps(), executionTime, buildMetrics());
+    }
+    
+    @Override
+    public SortingEvent step() {
+        int[] highlights = new int[0];
+        if (!isComplete) {
+            highlights = sorter.advance();
+            isComplete = sorter.isComplete();
+            updateArray();
+        }
+        
+        return new SortingEvent(array, highlights, getComparisons(), getSwaps(),
+                System.currentTimeMillis() - startTime, buildMetrics());
+    }
+    
+    private String pad(String digits) {
+        StringBuilder padded = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+    
+    /**
+     * Decode the strings, in their current order, back into the int array.
+     */
+    private void updateArray() {
+        for (int i = 0; i < n; i++) {
+            array[i] = (int) (Long.parseLong(sorter.get(i)) + min);
+        }
+    }
+    
+    private Map<String, Object> buildMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("digits", width);
+        metrics.put("charPosition", sorter.getLastDepth());
+        metrics.put("pendingRanges", sorter.getPendingRanges());
+        return metrics;
+    }
+    
+    @Override
+    public boolean isSortingComplete() {
+        return isComplete;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Multikey Quick Sort sorts strings character by character. The values are written as " +
+               "zero-padded decimal strings; each range is split three ways on the digit at one position " +
+               "into strings with a smaller, equal or greater digit than the pivot's. The smaller and " +
+               "greater parts are split again on the same position, the equal part on the next one, so " +
+               "shared prefixes are never compared twice.";
+    }
+    
+    @Override
+    public String getWorstCaseComplexity() {
+        return "O(n²)";
+    }
+    
+    @Override
+    public String getAverageCaseComplexity() {
+        return "O(n·(w + log n))";
+    }
+    
+    @Override
+    public String getBestCaseComplexity() {
+        return "O(n·w)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public int getComparisons() {
+        return (int) Math.min(Integer.MAX_VALUE, sorter.getComparisons());
+    }
+    
+    @Override
+    public int getSwaps() {
+        return (int) Math.min(Integer.MAX_VALUE, sorter.getSwaps());
+    }
+}
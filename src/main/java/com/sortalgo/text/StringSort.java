@@ -0,0 +1,130 @@
+package com.sortalgo.text;
+
+import java.util.Arrays;
+
+/**
+ * Sorting of String and byte[] keys with a multikey quicksort on cached multi-character keys.
+ *
+ * Strings are ordered like {@link String#compareTo} (by UTF-16 code unit) and byte arrays like
+ * {@link Arrays#compareUnsigned(byte[], byte[])}. The algorithm inspects each character
+ * only a few times, so it is much faster than a comparison sort when the keys share long prefixes,
+ * as URLs, paths and generated identifiers do; see {@link MultikeyQuickSort}.
+ */
+public final class StringSort {
+    
+    private StringSort() {
+    }
+    
+    /**
+     * Sort strings in place in the order of {@link String#compareTo}.
+     *
+     * @param a The strings to sort; must not contain null
+     */
+    public static void sort(String[] a) {
+        Strings sort = new Strings(Strings.CHARS_PER_KEY);
+        sort.init(a);
+        sort.sortAll();
+    }
+    
+    /**
+     * Sort byte strings in place in unsigned lexicographic order.
+     *
+     * @param a The byte strings to sort; must not contain null
+     */
+    public static void sort(byte[][] a) {
+        ByteStrings sort = new ByteStrings();
+        sort.init(a);
+        sort.sortAll();
+    }
+    
+    /**
+     * Multikey quicksort over Strings, packing up to three UTF-16 characters into a key.
+     */
+    static final class Strings extends MultikeyQuickSort<String> {
+        
+        static final int CHARS_PER_KEY = 3;
+        private static final int BITS_PER_CHAR = Character.SIZE + 1;
+        
+        private final int charsPerKey;
+        
+        Strings(int charsPerKey) {
+            super(charsPerKey, BITS_PER_CHAR);
+            this.charsPerKey = charsPerKey;
+        }
+        
+        @Override
+        long key(String value, int depth) {
+            long key = 0;
+            int length = value.length();
+            for (int i = depth; i < depth + charsPerKey; i++) {
+                key = (key << BITS_PER_CHAR) | (i < length ? value.charAt(i) + 1 : 0);
+            }
+            return key;
+        }
+        
+        @Override
+        int compareFrom(String a, String b, int depth) {
+            int end = Math.min(a.length(), b.length());
+            for (int i = depth; i < end; i++) {
+                int diff = a.charAt(i) - b.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return a.length() - b.length();
+        }
+        
+        @Override
+        int length(String value) {
+            return value.length();
+        }
+        
+        @Override
+        int commonPrefix(String a, String b, int depth) {
+            int end = Math.min(a.length(), b.length());
+            int i = depth;
+            while (i < end && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+    
+    /**
+     * Multikey quicksort over byte strings, packing up to seven unsigned bytes into a key.
+     */
+    static final class ByteStrings extends MultikeyQuickSort<byte[]> {
+        
+        private static final int BYTES_PER_KEY = 7;
+        private static final int BITS_PER_BYTE = Byte.SIZE + 1;
+        
+        ByteStrings() {
+            super(BYTES_PER_KEY, BITS_PER_BYTE);
+        }
+        
+        @Override
+        long key(byte[] value, int depth) {
+            long key = 0;
+            for (int i = depth; i < depth + BYTES_PER_KEY; i++) {
+                key = (key << BITS_PER_BYTE) | (i < value.length ? (value[i] & 0xFF) + 1 : 0);
+            }
+            return key;
+        }
+        
+        @Override
+        int compareFrom(byte[] a, byte[] b, int depth) {
+            return Arrays.compareUnsigned(a, depth, a.length, b, depth, b.length);
+        }
+        
+        @Override
+        int length(byte[] value) {
+            return value.length;
+        }
+        
+        @Override
+        int commonPrefix(byte[] a, byte[] b, int depth) {
+            int mismatch = Arrays.mismatch(a, depth, a.length, b, depth, b.length);
+            return mismatch < 0 ? a.length : depth + mismatch;
+        }
+    }
+}
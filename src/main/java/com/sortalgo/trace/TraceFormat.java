@@ -0,0 +1,95 @@
+package com.sortalgo.trace;
+
+/**
+ * Layout of a trace file, shared by {@link TraceRecorder} and {@link TraceReader}.
+ *
+ * A trace starts with a header of HEADER_BYTES bytes and the initial array as 4-byte ints, both
+ * big-endian like the int files of com.sortalgo.external. The steps follow in regions of
+ * regionBytes bytes, each mapped on its own, so a trace may be larger than one mapping. A step
+ * never crosses a region: the recorder ends a region that has no room for the next step with
+ * REGION_END and continues at the start of the next one. The last step is followed by END.
+ *
+ * Every checkpointOperations operations, at the end of a step, the recorder writes CHECKPOINT and
+ * the whole array after that step as 4-byte ints. If the array leaves at least one byte of the
+ * region, the steps continue right after it in the same region, and otherwise in a new region
+ * starting after the array. The encoding state (previous operands and highlights) starts over at
+ * a checkpoint, so decoding can start there as well as at the first step. The index after END
+ * lists the checkpoints, INDEX_ENTRY_BYTES each: the step, the offsets of the array and of the
+ * region it continues in, and the comparisons, swaps and execution time after the step.
+ *
+ * A step is its operations, in the order of the OperationLog, followed by a STEP record. Every
+ * record starts with a tag byte whose low three bits are its kind:
+ * <ul>
+ * <li>An operation (kind = OperationLog opcode) stores its first operand as the zigzag delta to
+ *     the first operand of the previous operation with the same opcode, in the five high bits of
+ *     the tag if it is below INLINE_LIMIT and as a varint of delta - INLINE_LIMIT after the tag
+ *     otherwise, and its second operand as a varint of the zigzag delta to the previous second
+ *     operand of that opcode. Partition scans and merges move by one position per step, so most
+ *     operations take two bytes.</li>
+ * <li>A STEP record has flags in the high bits. Comparisons and swaps are not stored but counted
+ *     from the operations: COMPARE adds a comparison, SWAP and WRITE a swap. Where an algorithm
+ *     counts differently, the difference follows as a zigzag varint. The highlights are only
+ *     stored when they differ from the previous step's, as a count and the zigzag delta of each
+ *     index to the previous step's index at the same position (or to the preceding index). The
+ *     execution time follows as a varint of its increase when it changed.</li>
+ * </ul>
+ */
+final class TraceFormat {
+    
+    static final int MAGIC = 0x53545243; // "STRC"
+    static final int VERSION = 2;
+    
+    static final int HEADER_BYTES = 128;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int REGION_BYTES_OFFSET = 8;
+    static final int LENGTH_OFFSET = 12;
+    static final int STEPS_OFFSET = 16;
+    static final int OPERATIONS_OFFSET = 24;
+    // Offset of the byte after END; 0 while the trace is being recorded
+    static final int END_OFFSET = 32;
+    static final int INDEX_OFFSET = 40;
+    static final int CHECKPOINTS_OFFSET = 48;
+    static final int CHECKPOINT_OPERATIONS_OFFSET = 56;
+    // Length byte and UTF-8 bytes of the algorithm name
+    static final int NAME_OFFSET = 64;
+    static final int MAX_NAME_BYTES = HEADER_BYTES - NAME_OFFSET - 1;
+    
+    static final int DEFAULT_REGION_BYTES = 64 << 20;
+    static final long DEFAULT_CHECKPOINT_OPERATIONS = 1 << 22;
+    
+    static final int INDEX_ENTRY_BYTES = 40;
+    
+    static final int KIND_MASK = 7;
+    static final int KIND_BITS = 3;
+    static final int STEP = 4;
+    static final int REGION_END = 5;
+    static final int END = 6;
+    static final int CHECKPOINT = 7;
+    
+    static final int INLINE_LIMIT = 31;
+    
+    // Flags of a STEP record
+    static final int HIGHLIGHTS = 1 << 3;
+    static final int COMPARISONS = 1 << 4;
+    static final int SWAPS = 1 << 5;
+    static final int TIME = 1 << 6;
+    
+    private TraceFormat() {
+    }
+    
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+    
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Offset of the first region: after the header and the initial array of length ints.
+     */
+    static long dataStart(int length) {
+        return HEADER_BYTES + (long) length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,488 @@
+package com.sortalgo.trace;
+
+import com.sortalgo.model.OperationLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the steps of a trace written by {@link TraceRecorder}, one region of the file mapped at a
+ * time, see {@link TraceFormat} for the layout.
+ *
+ * {@link #nextStep} decodes one step, applies its swaps and writes to an array that holds the
+ * state before the step, and makes the counters and highlights after the step available. Decoding
+ * allocates nothing but the highlight array of each new highlight count, so a whole trace is read
+ * at the speed of the mapped pages.
+ *
+ * {@link #seek} moves to any step, forwards or backwards: it restores the array of the last
+ * checkpoint before the step, unless the current step is already between the two, and decodes the
+ * remaining steps, which are at most checkpointOperations operations.
+ */
+public class TraceReader implements AutoCloseable {
+    
+    private static final int[] NO_HIGHLIGHTS = new int[0];
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final int regionBytes;
+    private final int length;
+    private final long steps;
+    private final long operations;
+    private final long end;
+    private final long dataStart;
+    private final String algorithmName;
+    private final long checkpointOperations;
+    
+    // The index: step, offsets of the array and its region, and the counters after the step of every checkpoint
+    private final long[] checkpointSteps;
+    private final long[] checkpointArrays;
+    private final long[] checkpointRegions;
+    private final int[] checkpointComparisons;
+    private final int[] checkpointSwaps;
+    private final long[] checkpointTimes;
+    
+    private MappedByteBuffer region;
+    private long regionStart;
+    
+    // Decoding state, see TraceFormat
+    private final int[] previousFirst = new int[4];
+    private final int[] previousSecond = new int[4];
+    private int[] highlights;
+    private int[][] highlightsByLength;
+    private int comparisons;
+    private int swaps;
+    private long executionTime;
+    private long step;
+    
+    /**
+     * Open a trace and check its header.
+     *
+     * @param file The trace file
+     * @throws IOException if the file cannot be read, is not a trace or was not closed by its recorder
+     */
+    public TraceReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read until the header is complete or the file ends
+            }
+            if (header.hasRemaining() || header.getInt(TraceFormat.MAGIC_OFFSET) != TraceFormat.MAGIC) {
+                throw new IOException(file + " is not a sort trace");
+            }
+            int version = header.getInt(TraceFormat.VERSION_OFFSET);
+            if (version != TraceFormat.VERSION) {
+                throw new IOException(file + " has trace version " + version + ", expected " + TraceFormat.VERSION);
+            }
+            this.regionBytes = header.getInt(TraceFormat.REGION_BYTES_OFFSET);
+            this.length = header.getInt(TraceFormat.LENGTH_OFFSET);
+            this.steps = header.getLong(TraceFormat.STEPS_OFFSET);
+            this.operations = header.getLong(TraceFormat.OPERATIONS_OFFSET);
+            this.end = header.getLong(TraceFormat.END_OFFSET);
+            this.dataStart = TraceFormat.dataStart(length);
+            this.checkpointOperations = header.getLong(TraceFormat.CHECKPOINT_OPERATIONS_OFFSET);
+            if (end == 0) {
+                throw new IOException(file + " is incomplete: its recorder was not closed");
+            }
+            int checkpoints = header.getInt(TraceFormat.CHECKPOINTS_OFFSET);
+            long indexOffset = header.getLong(TraceFormat.INDEX_OFFSET);
+            long indexEnd = indexOffset + (long) checkpoints * TraceFormat.INDEX_ENTRY_BYTES;
+            if (end > channel.size() || end <= dataStart || indexEnd > channel.size()) {
+                throw new IOException(file + " is truncated: the trace ends at " + indexEnd + ", the file at " + channel.size());
+            }
+            
+            ByteBuffer index = ByteBuffer.allocate(checkpoints * TraceFormat.INDEX_ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (index.hasRemaining() && channel.read(index, indexOffset + index.position()) >= 0) {
+                // Read the whole index
+            }
+            index.flip();
+            this.checkpointSteps = new long[checkpoints];
+            this.checkpointArrays = new long[checkpoints];
+            this.checkpointRegions = new long[checkpoints];
+            this.checkpointComparisons = new int[checkpoints];
+            this.checkpointSwaps = new int[checkpoints];
+            this.checkpointTimes = new long[checkpoints];
+            for (int i = 0; i < checkpoints; i++) {
+                checkpointSteps[i] = index.getLong();
+                checkpointArrays[i] = index.getLong();
+                checkpointRegions[i] = index.getLong();
+                checkpointComparisons[i] = index.getInt();
+                checkpointSwaps[i] = index.getInt();
+                checkpointTimes[i] = index.getLong();
+            }
+            byte[] name = new byte[header.get(TraceFormat.NAME_OFFSET) & 0xFF];
+            header.position(TraceFormat.NAME_OFFSET + 1);
+            header.get(name);
+            this.algorithmName = new String(name, StandardCharsets.UTF_8);
+            rewind();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Read the array before the first step.
+     *
+     * @return A new array
+     * @throws IOException if the file cannot be read
+     */
+    public int[] readInitialArray() throws IOException {
+        int[] initial = new int[length];
+        readArray(TraceFormat.HEADER_BYTES, initial);
+        return initial;
+    }
+    
+    private void readArray(long position, int[] array) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+        for (int offset = 0; offset < length; ) {
+            int count = Math.min(length - offset, buffer.capacity() / Integer.BYTES);
+            buffer.clear().limit(count * Integer.BYTES);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException(file + " ends inside an array at " + position);
+                }
+                position += read;
+            }
+            buffer.flip();
+            buffer.asIntBuffer().get(array, offset, count);
+            offset += count;
+        }
+    }
+    
+    /**
+     * Go back to the state before the first step.
+     */
+    public void rewind() {
+        mapRegion(dataStart);
+        resetDecoding();
+        comparisons = 0;
+        swaps = 0;
+        executionTime = 0;
+        step = 0;
+    }
+    
+    /**
+     * Forget the previous operands and highlights, at the start and at every checkpoint.
+     */
+    private void resetDecoding() {
+        previousFirst[0] = previousFirst[1] = previousFirst[2] = previousFirst[3] = 0;
+        previousSecond[0] = previousSecond[1] = previousSecond[2] = previousSecond[3] = 0;
+        highlights = NO_HIGHLIGHTS;
+    }
+    
+    /**
+     * Move to the state after the given number of steps, forwards or backwards.
+     *
+     * @param target Number of steps, from 0 to getSteps()
+     * @param array The array in the state after getStep() steps, updated in place
+     * @throws IndexOutOfBoundsException if target is not a step of the trace
+     * @throws UncheckedIOException if a checkpoint cannot be read
+     */
+    public void seek(long target, int[] array) {
+        if (target < 0 || target > steps) {
+            throw new IndexOutOfBoundsException("Step " + target + " out of bounds for " + steps + " steps");
+        }
+        // Decode at least one step after the checkpoint, which restores the highlights
+        int checkpoint = lastCheckpointBefore(target);
+        long base = checkpoint < 0 ? 0 : checkpointSteps[checkpoint];
+        if (step > target || step < base) {
+            restore(checkpoint, array);
+        }
+        while (step < target) {
+            nextStep(array, null);
+        }
+    }
+    
+    /**
+     * Index of the last checkpoint before a step, or -1 if there is none.
+     */
+    private int lastCheckpointBefore(long target) {
+        int low = 0;
+        int high = checkpointSteps.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (checkpointSteps[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+    
+    /**
+     * Restore the array and the counters of a checkpoint, or of the start for -1.
+     */
+    private void restore(int checkpoint, int[] array) {
+        try {
+            if (checkpoint < 0) {
+                readArray(TraceFormat.HEADER_BYTES, array);
+                rewind();
+                return;
+            }
+            readArray(checkpointArrays[checkpoint], array);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read a checkpoint of " + file, e);
+        }
+        mapRegion(checkpointRegions[checkpoint]);
+        region.position((int) (checkpointArrays[checkpoint] + (long) length * Integer.BYTES - regionStart));
+        resetDecoding();
+        comparisons = checkpointComparisons[checkpoint];
+        swaps = checkpointSwaps[checkpoint];
+        executionTime = checkpointTimes[checkpoint];
+        step = checkpointSteps[checkpoint];
+    }
+    
+    /**
+     * Decode the next step and apply its swaps and writes to an array.
+     *
+     * @param array The array before the step, updated in place
+     * @param log Receives the operations of the step, or null
+     * @return false if all steps have been read, in which case nothing changes
+     * @throws UncheckedIOException if the next region cannot be mapped
+     * @throws IllegalStateException if the trace is corrupt
+     */
+    public boolean nextStep(int[] array, OperationLog log) {
+        if (step == steps) {
+            return false;
+        }
+        MappedByteBuffer buffer = region;
+        int compares = 0;
+        int changes = 0;
+        while (true) {
+            int tag = buffer.get() & 0xFF;
+            int kind = tag & TraceFormat.KIND_MASK;
+            if (kind < TraceFormat.STEP) {
+                int delta = tag >>> TraceFormat.KIND_BITS;
+                if (delta == TraceFormat.INLINE_LIMIT) {
+                    delta += readVarint(buffer);
+                }
+                int first = previousFirst[kind] + TraceFormat.unzigzag(delta);
+                int second = previousSecond[kind] + TraceFormat.unzigzag(readVarint(buffer));
+                previousFirst[kind] = first;
+                previousSecond[kind] = second;
+                
+                switch (kind) {
+                    case OperationLog.COMPARE:
+                        compares++;
+                        if (log != null) {
+                            log.compare(first, second);
+                        }
+                        break;
+                    case OperationLog.SWAP:
+                        int temp = array[first];
+                        array[first] = array[second];
+                        array[second] = temp;
+                        changes++;
+                        if (log != null) {
+                            log.swap(first, second);
+                        }
+                        break;
+                    case OperationLog.WRITE:
+                        array[first] = second;
+                        changes++;
+                        if (log != null) {
+                            log.write(first, second);
+                        }
+                        break;
+                    default:
+                        if (log != null) {
+                            log.mark(first, second);
+                        }
+                }
+            } else if (kind == TraceFormat.STEP) {
+                readStep(buffer, tag, compares, changes);
+                return true;
+            } else if (kind == TraceFormat.REGION_END) {
+                mapRegion(regionStart + regionBytes);
+                buffer = region;
+            } else if (kind == TraceFormat.CHECKPOINT) {
+                // Skip the stored array; the encoding starts over after it
+                resetDecoding();
+                long arrayBytes = (long) length * Integer.BYTES;
+                if (buffer.position() + arrayBytes < regionBytes) {
+                    buffer.position(buffer.position() + (int) arrayBytes);
+                } else {
+                    mapRegion(regionStart + buffer.position() + arrayBytes);
+                    buffer = region;
+                }
+            } else {
+                throw new IllegalStateException(file + " is corrupt: unexpected tag " + tag + " in step " + step);
+            }
+        }
+    }
+    
+    private void readStep(MappedByteBuffer buffer, int flags, int compares, int changes) {
+        comparisons += compares;
+        if ((flags & TraceFormat.COMPARISONS) != 0) {
+            comparisons += TraceFormat.unzigzag(readVarint(buffer));
+        }
+        swaps += changes;
+        if ((flags & TraceFormat.SWAPS) != 0) {
+            swaps += TraceFormat.unzigzag(readVarint(buffer));
+        }
+        if ((flags & TraceFormat.HIGHLIGHTS) != 0) {
+            int[] previous = highlights;
+            int[] current = highlightArray(readVarint(buffer));
+            for (int i = 0; i < current.length; i++) {
+                int base = i < previous.length ? previous[i] : i > 0 ? current[i - 1] : 0;
+                current[i] = base + TraceFormat.unzigzag(readVarint(buffer));
+            }
+            highlights = current;
+        }
+        if ((flags & TraceFormat.TIME) != 0) {
+            executionTime += readVarLong(buffer);
+        }
+        step++;
+    }
+    
+    /**
+     * The cached highlight array of a length; the array of the previous step's length is the
+     * previous highlights themselves, which are decoded in place.
+     */
+    private int[] highlightArray(int count) {
+        if (count == 0) {
+            return NO_HIGHLIGHTS;
+        }
+        if (highlightsByLength == null || count >= highlightsByLength.length) {
+            int[][] grown = new int[Math.max(8, count + 1)][];
+            if (highlightsByLength != null) {
+                System.arraycopy(highlightsByLength, 0, grown, 0, highlightsByLength.length);
+            }
+            highlightsByLength = grown;
+        }
+        if (highlightsByLength[count] == null) {
+            highlightsByLength[count] = new int[count];
+        }
+        return highlightsByLength[count];
+    }
+    
+    private static int readVarint(MappedByteBuffer buffer) {
+        int value = buffer.get();
+        if (value >= 0) {
+            return value;
+        }
+        value &= 0x7F;
+        for (int shift = 7; ; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+    
+    private static long readVarLong(MappedByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+    
+    private void mapRegion(long start) {
+        try {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionBytes, end - start));
+            regionStart = start;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file + " at " + start, e);
+        }
+    }
+    
+    /**
+     * Length of the array.
+     */
+    public int getLength() {
+        return length;
+    }
+    
+    /**
+     * Number of steps in the trace.
+     */
+    public long getSteps() {
+        return steps;
+    }
+    
+    /**
+     * Number of operations in the trace.
+     */
+    public long getOperations() {
+        return operations;
+    }
+    
+    /**
+     * Name of the algorithm that was recorded.
+     */
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+    
+    /**
+     * Number of checkpoints, not counting the initial array.
+     */
+    public int getCheckpoints() {
+        return checkpointSteps.length;
+    }
+    
+    /**
+     * Number of operations between two checkpoints, the most a seek replays.
+     */
+    public long getCheckpointOperations() {
+        return checkpointOperations;
+    }
+    
+    /**
+     * Number of steps read since the start or the last rewind.
+     */
+    public long getStep() {
+        return step;
+    }
+    
+    /**
+     * Comparisons after the last step read, as reported by the recorded algorithm.
+     */
+    public int getComparisons() {
+        return comparisons;
+    }
+    
+    /**
+     * Swaps after the last step read, as reported by the recorded algorithm.
+     */
+    public int getSwaps() {
+        return swaps;
+    }
+    
+    /**
+     * Execution time of the recorded run after the last step read, in milliseconds.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+    
+    /**
+     * Highlights of the last step read. The array is reused by later steps with the same number of
+     * highlights.
+     */
+    public int[] getHighlightIndices() {
+        return highlights;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
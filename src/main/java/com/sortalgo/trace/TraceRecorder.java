@@ -0,0 +1,447 @@
+package com.sortalgo.trace;
+
+import com.sortalgo.algorithm.SortingAlgorithm;
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
+import com.sortalgo.model.SortingEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes every step of a sort run to a binary trace file, see {@link TraceFormat} for the layout.
+ *
+ * The steps are taken from the {@link OperationLog} an algorithm records into, so storing a step
+ * costs a few bytes per operation instead of a SortingEvent with the whole array. Each step is
+ * encoded into a small heap buffer and copied into the current region of the file, which is
+ * memory-mapped; the operating system writes the pages back, so recording does not wait for the
+ * disk. Every checkpointOperations operations the whole array is stored as well, so a reader can
+ * seek to any step by restoring the checkpoint before it and replaying at most that many
+ * operations. The header and the index of checkpoints are completed by {@link #close()}, and a
+ * trace that was not closed cannot be read. Algorithm metrics are not recorded.
+ */
+public class TraceRecorder implements AutoCloseable {
+    
+    private static final int ENTRY_LONGS = 6;
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final int regionBytes;
+    private final long checkpointOperations;
+    private final long dataStart;
+    private final int length;
+    private final String algorithmName;
+    private final long startTime;
+    
+    private MappedByteBuffer region;
+    private long regionStart;
+    
+    // Encoding state, see TraceFormat
+    private final int[] previousFirst = new int[4];
+    private final int[] previousSecond = new int[4];
+    private int[] previousHighlights = new int[0];
+    private int comparisons;
+    private int swaps;
+    private long executionTime;
+    
+    private byte[] scratch = new byte[256];
+    private long steps;
+    private long operations;
+    private boolean closed;
+    
+    // ENTRY_LONGS longs per checkpoint, see TraceFormat
+    private long[] checkpoints = new long[ENTRY_LONGS * 16];
+    private int checkpointCount;
+    private long nextCheckpoint;
+    
+    /**
+     * Create or truncate a trace file and write the initial array, with regions of
+     * DEFAULT_REGION_BYTES and a checkpoint every DEFAULT_CHECKPOINT_OPERATIONS operations.
+     *
+     * @param file The trace file
+     * @param algorithmName Name of the algorithm, stored in the header (truncated to 63 bytes)
+     * @param initial The array before the first step
+     * @throws IOException if the file cannot be written
+     */
+    public TraceRecorder(Path file, String algorithmName, int[] initial) throws IOException {
+        this(file, algorithmName, initial, TraceFormat.DEFAULT_REGION_BYTES, TraceFormat.DEFAULT_CHECKPOINT_OPERATIONS);
+    }
+    
+    /**
+     * Create or truncate a trace file and write the initial array.
+     *
+     * @param file The trace file
+     * @param algorithmName Name of the algorithm, stored in the header (truncated to 63 bytes)
+     * @param initial The array before the first step
+     * @param regionBytes Size of each mapped region of steps; a step must fit into one
+     * @param checkpointOperations Number of operations after which the array is stored again; a
+     *                             seek replays at most this many
+     * @throws IOException if the file cannot be written
+     */
+    public TraceRecorder(Path file, String algorithmName, int[] initial, int regionBytes, long checkpointOperations)
+            throws IOException {
+        if (regionBytes < 1024) {
+            throw new IllegalArgumentException("regionBytes must be at least 1024");
+        }
+        if (checkpointOperations < 1) {
+            throw new IllegalArgumentException("checkpointOperations must be at least 1");
+        }
+        this.file = file;
+        this.regionBytes = regionBytes;
+        this.checkpointOperations = checkpointOperations;
+        this.nextCheckpoint = checkpointOperations;
+        this.length = initial.length;
+        this.algorithmName = algorithmName;
+        this.dataStart = TraceFormat.dataStart(length);
+        this.startTime = System.currentTimeMillis();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader(0, 0);
+            writeArray(initial, TraceFormat.HEADER_BYTES);
+            mapRegion(dataStart);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Sort an array step by step and record every step.
+     *
+     * @param file The trace file
+     * @param algorithm An algorithm that records its operations (see SortingAlgorithm.setOperationLog)
+     * @param array The array to sort, which is not changed
+     * @return Statistics of the trace
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the algorithm does not record its operations
+     */
+    public static TraceStats record(Path file, SortingAlgorithm algorithm, int[] array) throws IOException {
+        OperationLog log = new OperationLog();
+        if (!algorithm.setOperationLog(log)) {
+            throw new IllegalArgumentException(algorithm.getClass().getSimpleName() + " does not record its operations");
+        }
+        try {
+            TraceRecorder recorder = new TraceRecorder(file, algorithm.getClass().getSimpleName(), array);
+            try {
+                algorithm.init(array);
+                ReusableSortingEvent event = new ReusableSortingEvent();
+                while (!algorithm.isSortingComplete()) {
+                    recorder.recordStep(log, algorithm.step(event));
+                    log.clear();
+                }
+            } catch (IOException | RuntimeException e) {
+                recorder.abort();
+                throw e;
+            }
+            recorder.close();
+            return recorder.getStats();
+        } finally {
+            algorithm.setOperationLog(null);
+        }
+    }
+    
+    /**
+     * Append one step: the operations recorded in the log since the previous step, and the
+     * counters, time and highlights of the event after it. The caller clears the log afterwards.
+     *
+     * @param log The operations of the step
+     * @param event The state after the step
+     * @throws IOException if the step does not fit into a region or the file cannot be grown
+     */
+    public void recordStep(OperationLog log, SortingEvent event) throws IOException {
+        recordStep(log, event.getCurrentArray(), event.getHighlightIndices(), event.getComparisons(), event.getSwaps(),
+                event.getExecutionTime());
+    }
+    
+    /**
+     * Append one step from an event that is reused for every step, see
+     * {@link #recordStep(OperationLog, SortingEvent)}.
+     *
+     * @param log The operations of the step
+     * @param event The state after the step
+     * @throws IOException if the step does not fit into a region or the file cannot be grown
+     */
+    public void recordStep(OperationLog log, ReusableSortingEvent event) throws IOException {
+        recordStep(log, event.getCurrentArray(), event.getHighlightIndices(), event.getComparisons(), event.getSwaps(),
+                event.getExecutionTime());
+    }
+    
+    private void recordStep(OperationLog log, int[] array, int[] highlights, int stepComparisons, int stepSwaps,
+                            long stepTime) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Trace " + file + " is closed");
+        }
+        int size = log.size();
+        ensureScratch(16 * size + 5 * highlights.length + 32);
+        byte[] bytes = scratch;
+        int position = 0;
+        
+        int compares = 0;
+        int changes = 0;
+        for (int op = 0; op < size; op++) {
+            int opcode = log.opcode(op);
+            int first = log.first(op);
+            int second = log.second(op);
+            
+            int delta = TraceFormat.zigzag(first - previousFirst[opcode]);
+            if (delta < TraceFormat.INLINE_LIMIT) {
+                bytes[position++] = (byte) (opcode | delta << TraceFormat.KIND_BITS);
+            } else {
+                bytes[position++] = (byte) (opcode | TraceFormat.INLINE_LIMIT << TraceFormat.KIND_BITS);
+                position = putVarint(bytes, position, delta - TraceFormat.INLINE_LIMIT);
+            }
+            position = putVarint(bytes, position, TraceFormat.zigzag(second - previousSecond[opcode]));
+            previousFirst[opcode] = first;
+            previousSecond[opcode] = second;
+            
+            if (opcode == OperationLog.COMPARE) {
+                compares++;
+            } else if (opcode != OperationLog.MARK) {
+                changes++;
+            }
+        }
+        
+        int tag = position++;
+        int flags = TraceFormat.STEP;
+        int extraComparisons = stepComparisons - comparisons - compares;
+        if (extraComparisons != 0) {
+            flags |= TraceFormat.COMPARISONS;
+            position = putVarint(bytes, position, TraceFormat.zigzag(extraComparisons));
+        }
+        int extraSwaps = stepSwaps - swaps - changes;
+        if (extraSwaps != 0) {
+            flags |= TraceFormat.SWAPS;
+            position = putVarint(bytes, position, TraceFormat.zigzag(extraSwaps));
+        }
+        if (!Arrays.equals(highlights, previousHighlights)) {
+            flags |= TraceFormat.HIGHLIGHTS;
+            position = putVarint(bytes, position, highlights.length);
+            for (int i = 0; i < highlights.length; i++) {
+                int base = i < previousHighlights.length ? previousHighlights[i] : i > 0 ? highlights[i - 1] : 0;
+                position = putVarint(bytes, position, TraceFormat.zigzag(highlights[i] - base));
+            }
+            if (previousHighlights.length != highlights.length) {
+                previousHighlights = new int[highlights.length];
+            }
+            System.arraycopy(highlights, 0, previousHighlights, 0, highlights.length);
+        }
+        long elapsed = stepTime - executionTime;
+        if (elapsed != 0) {
+            flags |= TraceFormat.TIME;
+            position = putVarLong(bytes, position, elapsed);
+        }
+        bytes[tag] = (byte) flags;
+        
+        comparisons = stepComparisons;
+        swaps = stepSwaps;
+        executionTime = stepTime;
+        steps++;
+        operations += size;
+        put(bytes, position);
+        
+        if (operations >= nextCheckpoint) {
+            checkpoint(array);
+            nextCheckpoint = operations + checkpointOperations;
+        }
+    }
+    
+    /**
+     * Store the array after the current step and start the encoding over, see TraceFormat.
+     */
+    private void checkpoint(int[] array) throws IOException {
+        region.put((byte) TraceFormat.CHECKPOINT);
+        long arrayStart = regionStart + region.position();
+        long arrayBytes = (long) length * Integer.BYTES;
+        if (region.position() + arrayBytes < regionBytes) {
+            region.asIntBuffer().put(array);
+            region.position(region.position() + (int) arrayBytes);
+        } else {
+            writeArray(array, arrayStart);
+            mapRegion(arrayStart + arrayBytes);
+        }
+        
+        if (ENTRY_LONGS * checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, 2 * checkpoints.length);
+        }
+        int entry = ENTRY_LONGS * checkpointCount++;
+        checkpoints[entry] = steps;
+        checkpoints[entry + 1] = arrayStart;
+        checkpoints[entry + 2] = regionStart;
+        checkpoints[entry + 3] = comparisons;
+        checkpoints[entry + 4] = swaps;
+        checkpoints[entry + 5] = executionTime;
+        
+        Arrays.fill(previousFirst, 0);
+        Arrays.fill(previousSecond, 0);
+        previousHighlights = new int[0];
+    }
+    
+    private void ensureScratch(int bytes) {
+        if (scratch.length < bytes) {
+            scratch = new byte[Math.max(bytes, 2 * scratch.length)];
+        }
+    }
+    
+    /**
+     * Copy an encoded step into the current region, or into the next one if it does not fit.
+     */
+    private void put(byte[] bytes, int count) throws IOException {
+        // One byte is always left for REGION_END
+        if (count >= region.remaining()) {
+            if (count >= regionBytes) {
+                throw new IOException("A step of " + count + " bytes does not fit into a region of "
+                        + regionBytes + " bytes");
+            }
+            region.put((byte) TraceFormat.REGION_END);
+            mapRegion(regionStart + regionBytes);
+        }
+        region.put(bytes, 0, count);
+    }
+    
+    private void mapRegion(long start) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionBytes);
+        regionStart = start;
+    }
+    
+    static int putVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+    
+    private static int putVarLong(byte[] bytes, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+    
+    private void writeHeader(long end, long indexOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(TraceFormat.MAGIC_OFFSET, TraceFormat.MAGIC);
+        header.putInt(TraceFormat.VERSION_OFFSET, TraceFormat.VERSION);
+        header.putInt(TraceFormat.REGION_BYTES_OFFSET, regionBytes);
+        header.putInt(TraceFormat.LENGTH_OFFSET, length);
+        header.putLong(TraceFormat.STEPS_OFFSET, steps);
+        header.putLong(TraceFormat.OPERATIONS_OFFSET, operations);
+        header.putLong(TraceFormat.END_OFFSET, end);
+        header.putLong(TraceFormat.INDEX_OFFSET, indexOffset);
+        header.putInt(TraceFormat.CHECKPOINTS_OFFSET, checkpointCount);
+        header.putLong(TraceFormat.CHECKPOINT_OPERATIONS_OFFSET, checkpointOperations);
+        byte[] name = algorithmName == null ? new byte[0] : algorithmName.getBytes(StandardCharsets.UTF_8);
+        int nameBytes = Math.min(name.length, TraceFormat.MAX_NAME_BYTES);
+        header.put(TraceFormat.NAME_OFFSET, (byte) nameBytes);
+        header.position(TraceFormat.NAME_OFFSET + 1);
+        header.put(name, 0, nameBytes);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+    
+    private void writeArray(int[] array, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+        for (int offset = 0; offset < array.length; ) {
+            int count = Math.min(array.length - offset, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(array, offset, count);
+            buffer.limit(count * Integer.BYTES);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            offset += count;
+        }
+    }
+    
+    private void writeIndex(long position) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(checkpointCount * TraceFormat.INDEX_ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (int entry = 0; entry < ENTRY_LONGS * checkpointCount; entry += ENTRY_LONGS) {
+            index.putLong(checkpoints[entry]);
+            index.putLong(checkpoints[entry + 1]);
+            index.putLong(checkpoints[entry + 2]);
+            index.putInt((int) checkpoints[entry + 3]);
+            index.putInt((int) checkpoints[entry + 4]);
+            index.putLong(checkpoints[entry + 5]);
+        }
+        index.flip();
+        while (index.hasRemaining()) {
+            position += channel.write(index, position);
+        }
+    }
+    
+    /**
+     * Number of steps recorded so far.
+     */
+    public long getSteps() {
+        return steps;
+    }
+    
+    /**
+     * Number of operations recorded so far.
+     */
+    public long getOperations() {
+        return operations;
+    }
+    
+    /**
+     * Statistics of the trace; the size in bytes is only final after {@link #close()}.
+     */
+    public TraceStats getStats() {
+        long end = regionStart + region.position();
+        long arrayBytes = (long) checkpointCount * length * Integer.BYTES;
+        return new TraceStats(length, steps, operations, end - dataStart - arrayBytes, checkpointCount, arrayBytes,
+                end + (long) checkpointCount * TraceFormat.INDEX_ENTRY_BYTES, System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * Close the file without completing the trace, after a failed recording. The header keeps an
+     * end offset of 0, so readers reject the trace as incomplete.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        channel.close();
+    }
+    
+    /**
+     * End the steps, write the pages back, cut the file after the last step, append the index
+     * of checkpoints and complete the header. Closing again has no effect.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            region.put((byte) TraceFormat.END);
+            region.force();
+            long end = regionStart + region.position();
+            channel.truncate(end);
+            writeIndex(end);
+            writeHeader(end, end);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
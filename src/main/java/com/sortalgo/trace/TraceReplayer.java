@@ -0,0 +1,173 @@
+package com.sortalgo.trace;
+
+import com.sortalgo.model.OperationLog;
+import com.sortalgo.model.ReusableSortingEvent;
+import com.sortalgo.model.SortingEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Plays a recorded trace back as SortingEvents, like the algorithm that was recorded, so a
+ * {@link com.sortalgo.model.SortingModel} can feed its observers from a file (see
+ * SortingModel.setReplay(TraceReplayer)).
+ *
+ * Each call to step() advances stepsPerEvent recorded steps, which sets the speed of the replay
+ * independently of the animation delay; {@link #skip} advances without producing events at all,
+ * and {@link #seek} jumps to any step in either direction through the checkpoints of the trace.
+ * As with the algorithms, the array of every event is the replayer's live array.
+ */
+public class TraceReplayer implements AutoCloseable {
+    
+    private final TraceReader reader;
+    private final int[] initial;
+    private final int[] array;
+    private int stepsPerEvent = 1;
+    private OperationLog log;
+    
+    /**
+     * Open a trace for replay.
+     *
+     * @param file The trace file
+     * @throws IOException if the file cannot be read or is not a complete trace
+     */
+    public TraceReplayer(Path file) throws IOException {
+        this.reader = new TraceReader(file);
+        try {
+            this.initial = reader.readInitialArray();
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+        this.array = initial.clone();
+    }
+    
+    /**
+     * Go back to the state before the first step.
+     */
+    public void rewind() {
+        reader.rewind();
+        System.arraycopy(initial, 0, array, 0, array.length);
+    }
+    
+    /**
+     * Advance stepsPerEvent steps and report the state after them.
+     *
+     * @return A new SortingEvent; its highlights are those of the last step
+     */
+    public SortingEvent step() {
+        advance(stepsPerEvent);
+        return currentEvent();
+    }
+    
+    /**
+     * Move to the state after the given step, forwards or backwards. A seek restores at most one
+     * checkpoint and replays the operations after it, without passing them to the operation log.
+     *
+     * @param stepNumber Number of steps to have replayed, clamped to the steps of the trace
+     * @return A new SortingEvent with the state after the step
+     */
+    public SortingEvent seek(long stepNumber) {
+        reader.seek(Math.max(0, Math.min(stepNumber, reader.getSteps())), array);
+        return currentEvent();
+    }
+    
+    private SortingEvent currentEvent() {
+        return new SortingEvent(array, reader.getHighlightIndices().clone(), reader.getComparisons(),
+                reader.getSwaps(), reader.getExecutionTime());
+    }
+    
+    /**
+     * Advance stepsPerEvent steps and write the state after them into an event.
+     *
+     * @param event The event to fill in
+     * @return The same event
+     */
+    public ReusableSortingEvent step(ReusableSortingEvent event) {
+        advance(stepsPerEvent);
+        return event.update(array, reader.getComparisons(), reader.getSwaps(), reader.getExecutionTime())
+                .highlight(reader.getHighlightIndices());
+    }
+    
+    /**
+     * Advance without producing events.
+     *
+     * @param steps Number of steps to advance
+     * @return Number of steps advanced, less than steps at the end of the trace
+     */
+    public long skip(long steps) {
+        return advance(steps);
+    }
+    
+    private long advance(long count) {
+        long done = 0;
+        while (done < count && reader.nextStep(array, log)) {
+            done++;
+        }
+        return done;
+    }
+    
+    /**
+     * Check if every step has been replayed.
+     */
+    public boolean isComplete() {
+        return reader.getStep() == reader.getSteps();
+    }
+    
+    /**
+     * Set how many recorded steps each call to step() advances.
+     *
+     * @param stepsPerEvent At least 1
+     */
+    public void setStepsPerEvent(int stepsPerEvent) {
+        if (stepsPerEvent < 1) {
+            throw new IllegalArgumentException("stepsPerEvent must be at least 1");
+        }
+        this.stepsPerEvent = stepsPerEvent;
+    }
+    
+    public int getStepsPerEvent() {
+        return stepsPerEvent;
+    }
+    
+    /**
+     * Attach a log that receives the operations of every replayed step, like
+     * SortingAlgorithm.setOperationLog(OperationLog), or detach it with null.
+     */
+    public void setOperationLog(OperationLog log) {
+        this.log = log;
+    }
+    
+    /**
+     * A copy of the array before the first step.
+     */
+    public int[] getInitialArray() {
+        return initial.clone();
+    }
+    
+    /**
+     * Number of steps replayed since the start or the last rewind.
+     */
+    public long getStepNumber() {
+        return reader.getStep();
+    }
+    
+    /**
+     * Number of steps in the trace.
+     */
+    public long getSteps() {
+        return reader.getSteps();
+    }
+    
+    /**
+     * Name of the algorithm that was recorded.
+     */
+    public String getAlgorithmName() {
+        return reader.getAlgorithmName();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.sortalgo.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of one recorded trace.
+ */
+public class TraceStats {
+    
+    private final int elements;
+    private final long steps;
+    private final long operations;
+    private final long stepBytes;
+    private final int checkpoints;
+    private final long checkpointBytes;
+    private final long fileBytes;
+    private final long executionTime;
+    
+    TraceStats(int elements, long steps, long operations, long stepBytes, int checkpoints, long checkpointBytes,
+               long fileBytes, long executionTime) {
+        this.elements = elements;
+        this.steps = steps;
+        this.operations = operations;
+        this.stepBytes = stepBytes;
+        this.checkpoints = checkpoints;
+        this.checkpointBytes = checkpointBytes;
+        this.fileBytes = fileBytes;
+        this.executionTime = executionTime;
+    }
+    
+    /**
+     * Length of the array that was sorted.
+     */
+    public int getElements() {
+        return elements;
+    }
+    
+    /**
+     * Number of steps recorded.
+     */
+    public long getSteps() {
+        return steps;
+    }
+    
+    /**
+     * Number of operations recorded.
+     */
+    public long getOperations() {
+        return operations;
+    }
+    
+    /**
+     * Bytes taken by the steps, without the header, the initial array and the checkpoints.
+     */
+    public long getStepBytes() {
+        return stepBytes;
+    }
+    
+    /**
+     * Number of checkpoints, not counting the initial array.
+     */
+    public int getCheckpoints() {
+        return checkpoints;
+    }
+    
+    /**
+     * Bytes taken by the arrays stored at the checkpoints.
+     */
+    public long getCheckpointBytes() {
+        return checkpointBytes;
+    }
+    
+    /**
+     * Size of the trace file in bytes.
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+    
+    /**
+     * Average bytes per operation, including the step records but not the checkpoints.
+     */
+    public double getBytesPerOperation() {
+        return operations == 0 ? 0 : (double) stepBytes / operations;
+    }
+    
+    /**
+     * Wall-clock time of the recording in milliseconds, including the sort.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+    
+    /**
+     * The statistics as a map, in the same form as {@link com.sortalgo.model.SortingEvent#getMetrics()}.
+     */
+    public Map<String, Object> toMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("elements", elements);
+        metrics.put("steps", steps);
+        metrics.put("operations", operations);
+        metrics.put("stepBytes", stepBytes);
+        metrics.put("checkpoints", checkpoints);
+        metrics.put("checkpointBytes", checkpointBytes);
+        metrics.put("fileBytes", fileBytes);
+        metrics.put("executionTime", executionTime);
+        return metrics;
+    }
+    
+    @Override
+    public String toString() {
+        return "TraceStats" + toMetrics();
+    }
+}
@@ -10,6 +10,8 @@ import java.awt.event.ActionListener;
  */
 public class ControlPanel extends JPanel {
     
+    private static final int TRACE_SLIDER_MAX = 10_000;
+    
     private final MainScreen mainScreen;
     private final JButton startButton;
     private final JButton stopButton;
@@ -20,6 +22,12 @@ public class ControlPanel extends JPanel {
     private final JSlider arraySizeSlider;
     private final JTextField customArrayField;
     private final JButton applyCustomArrayButton;
+    private final JButton openTraceButton;
+    private final JSlider traceSlider;
+    
+    // Steps of the open trace, 0 without one; the slider covers them in at most TRACE_SLIDER_MAX positions
+    private long traceSteps;
+    private boolean updatingTraceSlider;
     
     public ControlPanel(MainScreen mainScreen) {
         this.mainScreen = mainScreen;
@@ -35,7 +43,18 @@ public class ControlPanel extends JPanel {
             "Selection Sort", 
             "Insertion Sort", 
             "Quick Sort", 
-            "Merge Sort"
+            "Introsort", 
+            "Quick Select",
+            "Partial Quick Sort",
+            "PdqSort",
+            "Three-Way Quick Sort",
+            "Merge Sort",
+            "Parallel Merge Sort",
+            "K-way Merge Sort",
+            "Sample Sort",
+            "TimSort",
+            "Radix Sort",
+            "Multikey String Sort"
         };
         
         algorithmComboBox = new JComboBox<>(algorithms);
@@ -77,13 +96,22 @@ public class ControlPanel extends JPanel {
             }
         });
         
+        openTraceButton = new JButton("Open Trace...");
+        openTraceButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openTrace();
+            }
+        });
+        
         buttonPanel.add(startButton);
         buttonPanel.add(stopButton);
         buttonPanel.add(stepButton);
         buttonPanel.add(generateButton);
+        buttonPanel.add(openTraceButton);
         
         // Sliders panel
-        JPanel slidersPanel = new JPanel(new GridLayout(2, 2, 10, 5));
+        JPanel slidersPanel = new JPanel(new GridLayout(3, 2, 10, 5));
         
         // Speed slider
         slidersPanel.add(new JLabel("Animation Speed:"));
@@ -111,6 +139,18 @@ public class ControlPanel extends JPanel {
         arraySizeSlider.setPaintLabels(true);
         slidersPanel.add(arraySizeSlider);
         
+        // Trace position slider, to scrub through a recorded trace in both directions
+        slidersPanel.add(new JLabel("Trace Step:"));
+        traceSlider = new JSlider(JSlider.HORIZONTAL, 0, 1, 0);
+        traceSlider.addChangeListener(e -> {
+            if (!updatingTraceSlider && traceSteps > 0) {
+                mainScreen.seekTrace(traceSlider.getValue() * traceSteps / traceSlider.getMaximum());
+                setSortingActive(false);
+            }
+        });
+        traceSlider.setEnabled(false);
+        slidersPanel.add(traceSlider);
+        
         // Custom array input panel
         JPanel customArrayPanel = new JPanel(new BorderLayout(5, 0));
         customArrayPanel.add(new JLabel("Custom Array (comma separated):"), BorderLayout.WEST);
@@ -168,6 +208,37 @@ public class ControlPanel extends JPanel {
         mainScreen.setCustomArray(customArrayField.getText());
     }
     
+    private void openTrace() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            mainScreen.openTrace(chooser.getSelectedFile().toPath());
+        }
+    }
+    
+    /**
+     * Set the number of steps of the open trace, or 0 when no trace is open, which disables the
+     * trace slider.
+     */
+    public void setTraceSteps(long steps) {
+        traceSteps = steps;
+        updatingTraceSlider = true;
+        traceSlider.setMaximum((int) Math.max(1, Math.min(steps, TRACE_SLIDER_MAX)));
+        traceSlider.setValue(0);
+        updatingTraceSlider = false;
+        traceSlider.setEnabled(steps > 0);
+    }
+    
+    /**
+     * Move the trace slider to a step without seeking.
+     */
+    public void setTraceStep(long step) {
+        if (traceSteps > 0) {
+            updatingTraceSlider = true;
+            traceSlider.setValue((int) (step * traceSlider.getMaximum() / traceSteps));
+            updatingTraceSlider = false;
+        }
+    }
+    
     public void setSortingActive(boolean active) {
         startButton.setEnabled(!active);
         algorithmComboBox.setEnabled(!active);
@@ -175,6 +246,8 @@ public class ControlPanel extends JPanel {
         arraySizeSlider.setEnabled(!active);
         applyCustomArrayButton.setEnabled(!active);
         customArrayField.setEnabled(!active);
+        openTraceButton.setEnabled(!active);
+        traceSlider.setEnabled(!active && traceSteps > 0);
         stopButton.setEnabled(active);
     }
 }
@@ -1,15 +1,22 @@
 package com.sortalgo.ui;
 
 import com.sortalgo.algorithm.*;
+import com.sortalgo.merge.KWayMergeSort;
 import com.sortalgo.model.AlgorithmObserver;
+import com.sortalgo.model.OperationLog;
 import com.sortalgo.model.SortingEvent;
 import com.sortalgo.model.SortingModel;
+import com.sortalgo.text.MultikeyStringSort;
+import com.sortalgo.trace.TraceReplayer;
 import com.sortalgo.util.ArrayGenerator;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * The main screen of the application that contains the visualization panel and controls.
@@ -21,6 +28,15 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
     private InfoPanel infoPanel;
     private SortingModel model;
     
+    // Operations of the current step, applied to the displayed array when the algorithm records
+    // them, so a step costs as much as its operations instead of a copy of the whole array
+    private final OperationLog operationLog = new OperationLog();
+    private int[] displayArray;
+    private boolean followingLog;
+    
+    // The trace being replayed instead of an algorithm, if one is open
+    private TraceReplayer replay;
+    
     public MainScreen() {
         setTitle("Sort Algorithm Visualizer - Demonstration");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -65,12 +81,25 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
     
     // Method called by the control panel
     public void startSorting(String algorithmName) {
+        // An open trace is played from its current step instead, or from the start once complete
+        if (replay != null) {
+            if (replay.isComplete()) {
+                seekTrace(0);
+            }
+            model.startSorting();
+            return;
+        }
+        
         SortingAlgorithm algorithm = createAlgorithm(algorithmName);
         if (algorithm == null) return;
         
         // Set algorithm in the model and start sorting
         infoPanel.setAlgorithmName(algorithmName);
         infoPanel.resetMetrics();
+        operationLog.clear();
+        followingLog = algorithm.setOperationLog(operationLog);
+        displayArray = model.getArray();
+        sortingPanel.setArray(displayArray);
         model.setAlgorithm(algorithm);
         model.startSorting();
     }
@@ -86,12 +115,14 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
     public void generateNewArray(int size) {
         // Stop any ongoing sorting
         model.stopSorting();
+        closeTrace();
         
         // Generate new array
         int[] array = ArrayGenerator.generateRandomArray(size, 1, 100);
         model.setArray(array);
         
         // Update UI
+        followingLog = false;
         sortingPanel.setArray(array.clone());
         sortingPanel.clearHighlights();
         sortingPanel.repaint();
@@ -118,11 +149,13 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
             
             // Stop any ongoing sorting
             model.stopSorting();
+            closeTrace();
             
             // Set new array
             model.setArray(array);
             
             // Update UI
+            followingLog = false;
             sortingPanel.setArray(array.clone());
             sortingPanel.clearHighlights();
             sortingPanel.repaint();
@@ -136,6 +169,69 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
         }
     }
     
+    /**
+     * Replay a trace recorded with TraceRecorder instead of running an algorithm.
+     */
+    public void openTrace(Path file) {
+        model.stopSorting();
+        TraceReplayer opened;
+        try {
+            opened = new TraceReplayer(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, 
+                "Cannot open trace: " + e.getMessage(), 
+                "Invalid Trace", 
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        closeTrace();
+        replay = opened;
+        
+        // Follow the recorded operations like those of a recording algorithm
+        operationLog.clear();
+        replay.setOperationLog(operationLog);
+        model.setReplay(replay);
+        displayArray = replay.getInitialArray();
+        followingLog = true;
+        
+        // Update UI
+        sortingPanel.setArray(displayArray);
+        sortingPanel.clearHighlights();
+        sortingPanel.repaint();
+        infoPanel.setAlgorithmName("Trace: " + replay.getAlgorithmName());
+        infoPanel.resetMetrics();
+        controlPanel.setTraceSteps(replay.getSteps());
+    }
+    
+    /**
+     * Move the open trace to a step, in either direction.
+     */
+    public void seekTrace(long step) {
+        if (replay == null) return;
+        
+        // Once stopped, no timer step runs alongside the seek
+        model.stopSorting();
+        
+        // A seek may restore a checkpoint, so the array of its event is copied once
+        followingLog = false;
+        model.seek(step);
+        operationLog.clear();
+        followingLog = true;
+    }
+    
+    private void closeTrace() {
+        if (replay == null) return;
+        
+        try {
+            replay.close();
+        } catch (IOException e) {
+            System.err.println("Could not close trace: " + e.getMessage());
+        }
+        replay = null;
+        followingLog = false;
+        controlPanel.setTraceSteps(0);
+    }
+    
     public void setAnimationSpeed(int speed) {
         model.setAnimationDelay(510 - speed); // Invert scale for more intuitive control
     }
@@ -150,8 +246,30 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
                 return new InsertionSort();
             case "Quick Sort":
                 return new QuickSort();
+            case "Introsort":
+                return new QuickSort(PivotStrategy.NINTHER);
+            case "Quick Select":
+                return new QuickSelect();
+            case "Partial Quick Sort":
+                return new QuickSelect(QuickSelect.Mode.PARTIAL_SORT, 0.25);
+            case "PdqSort":
+                return new PdqSort();
+            case "Three-Way Quick Sort":
+                return new ThreeWayQuickSort();
             case "Merge Sort":
                 return new MergeSort();
+            case "Parallel Merge Sort":
+                return new ParallelMergeSort();
+            case "K-way Merge Sort":
+                return new KWayMergeSort();
+            case "Sample Sort":
+                return new SampleSort();
+            case "TimSort":
+                return new TimSort();
+            case "Radix Sort":
+                return new RadixSort();
+            case "Multikey String Sort":
+                return new MultikeyStringSort();
             default:
                 return null;
         }
@@ -160,7 +278,16 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
     @Override
     public void onSortingStep(SortingEvent event) {
         // Update visualization with new array state and highlighted indices
-        sortingPanel.setArray(event.getCurrentArray().clone());
+        if (followingLog) {
+            operationLog.applyTo(displayArray, 0);
+        } else {
+            displayArray = event.getCurrentArray().clone();
+            sortingPanel.setArray(displayArray);
+        }
+        operationLog.clear();
+        if (replay != null) {
+            controlPanel.setTraceStep(replay.getStepNumber());
+        }
         sortingPanel.setHighlightIndices(event.getHighlightIndices());
         sortingPanel.repaint();
         
@@ -172,6 +299,7 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
     
     @Override
     public void onSortingComplete(SortingEvent event) {
+        operationLog.clear();
         sortingPanel.setArray(event.getCurrentArray().clone());
         sortingPanel.clearHighlights();
         sortingPanel.repaint();
@@ -184,11 +312,16 @@ public class MainScreen extends JFrame implements AlgorithmObserver {
         // Enable controls after sorting is complete
         controlPanel.setSortingActive(false);
         
-        // Show completion message
+        // Show completion message, including any algorithm-specific metrics
+        StringBuilder message = new StringBuilder()
+                .append("Sorting completed in ").append(event.getExecutionTime()).append(" ms\n")
+                .append("Comparisons: ").append(event.getComparisons()).append("\n")
+                .append("Swaps: ").append(event.getSwaps());
+        for (Map.Entry<String, Object> metric : event.getMetrics().entrySet()) {
+            message.append("\n").append(metric.getKey()).append(": ").append(metric.getValue());
+        }
         JOptionPane.showMessageDialog(this, 
-                "Sorting completed in " + event.getExecutionTime() + " ms\n" +
-                "Comparisons: " + event.getComparisons() + "\n" +
-                "Swaps: " + event.getSwaps(),
+                message.toString(),
                 "Sorting Complete", 
                 JOptionPane.INFORMATION_MESSAGE);
     }
@@ -0,0 +1,97 @@
+package com.sortalgo.util;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Growable, unsynchronized stack of primitive ints.
+ * Used by the iterative sorting drivers instead of {@code java.util.Stack<Integer>},
+ * so pushing and popping never boxes values or takes a lock.
+ */
+public class IntStack {
+    
+    private static final int DEFAULT_CAPACITY = 64;
+    
+    private int[] elements;
+    private int size;
+    
+    /**
+     * Create an empty stack with a small initial capacity.
+     */
+    public IntStack() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Create an empty stack.
+     *
+     * @param initialCapacity Number of values the stack can hold before growing
+     */
+    public IntStack(int initialCapacity) {
+        this.elements = new int[Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+    
+    /**
+     * Push a value onto the top of the stack.
+     *
+     * @param value The value to push
+     */
+    public void push(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        elements[size++] = value;
+    }
+    
+    /**
+     * Remove and return the value on top of the stack.
+     *
+     * @return The value on top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[--size];
+    }
+    
+    /**
+     * Return the value on top of the stack without removing it.
+     *
+     * @return The value on top of the stack
+     * @throws EmptyStackException if the stack is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[size - 1];
+    }
+    
+    /**
+     * Check if the stack is empty.
+     *
+     * @return true if there are no values on the stack
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Get the number of values on the stack.
+     *
+     * @return Number of values
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Remove all values, keeping the allocated capacity for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
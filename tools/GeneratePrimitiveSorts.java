@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the primitive-specialized sorts in com.sortalgo.primitive from
+ * tools/templates/PrimitiveSort.java.template, one class per primitive type, so that every
+ * type gets its own monomorphic copy of the hot loops.
+ *
+ * Run from the project root with {@code java tools/GeneratePrimitiveSorts.java}.
+ *
+ * The template uses two kinds of markup:
+ * - $name$ is replaced by the value of the variable of the same name.
+ * - Lines #if[flag], #else[flag] and #end[flag] keep or drop the lines between them depending on
+ *   whether the type has the flag; the directive lines themselves are removed.
+ */
+public class GeneratePrimitiveSorts {
+    
+    private static final Path TEMPLATE = Paths.get("tools/templates/PrimitiveSort.java.template");
+    private static final Path OUTPUT_DIR = Paths.get("src/main/java/com/sortalgo/primitive");
+    
+    public static void main(String[] args) throws IOException {
+        List<String> template = Files.readAllLines(TEMPLATE, StandardCharsets.UTF_8);
+        Files.createDirectories(OUTPUT_DIR);
+        
+        generate(template, integral("long", "Long", "long", 64, "value ^ Long.MIN_VALUE", 128));
+        generate(template, floatingPoint("double", "Double", "long", "Long", 64, "doubleToLongBits", "doubleToRawLongBits", 128));
+        generate(template, floatingPoint("float", "Float", "int", "Integer", 32, "floatToIntBits", "floatToRawIntBits", 64));
+        generate(template, integral("short", "Short", "int", 16, "value - Short.MIN_VALUE", 32));
+        generate(template, integral("byte", "Byte", "int", 8, "value - Byte.MIN_VALUE", 32));
+    }
+    
+    private static Map<String, String> integral(String type, String boxed, String key, int bits,
+                                                String keyExpression, int radixThreshold) {
+        Map<String, String> vars = common(type, boxed, key, bits, radixThreshold);
+        vars.put("keyExpression", keyExpression);
+        return vars;
+    }
+    
+    private static Map<String, String> floatingPoint(String type, String boxed, String key, String keyBoxed, int bits,
+                                                     String toBits, String toRawBits, int radixThreshold) {
+        Map<String, String> vars = common(type, boxed, key, bits, radixThreshold);
+        vars.put("Key", keyBoxed);
+        vars.put("toBits", toBits);
+        vars.put("toRawBits", toRawBits);
+        vars.put("signShift", String.valueOf(bits - 1));
+        vars.put("#floatingPoint", "");
+        return vars;
+    }
+    
+    private static Map<String, String> common(String type, String boxed, String key, int bits, int radixThreshold) {
+        Map<String, String> vars = new LinkedHashMap<>();
+        vars.put("type", type);
+        vars.put("Type", boxed);
+        vars.put("key", key);
+        vars.put("bits", String.valueOf(bits));
+        vars.put("radixThreshold", String.valueOf(radixThreshold));
+        if (key.equals("long")) {
+            vars.put("#longKey", "");
+        }
+        return vars;
+    }
+    
+    private static void generate(List<String> template, Map<String, String> vars) throws IOException {
+        StringBuilder out = new StringBuilder();
+        // Whether the lines of each enclosing #if block are kept
+        Deque<Boolean> keep = new ArrayDeque<>();
+        
+        for (String line : template) {
+            String directive = line.trim();
+            if (directive.startsWith("#if[")) {
+                keep.push(vars.containsKey("#" + flag(directive)));
+            } else if (directive.startsWith("#else[")) {
+                keep.push(!keep.pop());
+            } else if (directive.startsWith("#end[")) {
+                keep.pop();
+            } else if (!keep.contains(false)) {
+                out.append(substitute(line, vars)).append('\n');
+            }
+        }
+        
+        Path file = OUTPUT_DIR.resolve(vars.get("Type") + "Sort.java");
+        Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Generated " + file);
+    }
+    
+    private static String flag(String directive) {
+        return directive.substring(directive.indexOf('[') + 1, directive.indexOf(']'));
+    }
+    
+    private static String substitute(String line, Map<String, String> vars) {
+        StringBuilder result = new StringBuilder();
+        int start = 0;
+        int open;
+        while ((open = line.indexOf('$', start)) >= 0) {
+            int close = line.indexOf('$', open + 1);
+            if (close < 0) {
+                break;
+            }
+            String name = line.substring(open + 1, close);
+            String value = vars.get(name);
+            if (value == null || name.startsWith("#")) {
+                throw new IllegalArgumentException("Unknown template variable $" + name + "$ in: " + line);
+            }
+            result.append(line, start, open).append(value);
+            start = close + 1;
+        }
+        return result.append(line.substring(start)).toString();
+    }
+}